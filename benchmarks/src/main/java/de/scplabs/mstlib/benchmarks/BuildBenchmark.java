@@ -0,0 +1,38 @@
+package de.scplabs.mstlib.benchmarks;
+
+import de.scplabs.mstlib.IncomingWebhookBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building representative card trees through the fluent {@code cardobjects} API, without serialization.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BuildBenchmark {
+
+    @Benchmark
+    public IncomingWebhookBuilder deepContainers() {
+        return Cards.deepContainers(50);
+    }
+
+    @Benchmark
+    public IncomingWebhookBuilder table500() {
+        return Cards.table(500);
+    }
+
+    @Benchmark
+    public IncomingWebhookBuilder richText100() {
+        return Cards.richText(100);
+    }
+}
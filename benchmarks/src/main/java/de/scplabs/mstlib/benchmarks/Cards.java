@@ -0,0 +1,64 @@
+package de.scplabs.mstlib.benchmarks;
+
+import de.scplabs.mstlib.IncomingWebhookBuilder;
+import de.scplabs.mstlib.cardobjects.Container;
+import de.scplabs.mstlib.cardobjects.RichTextBlock;
+import de.scplabs.mstlib.cardobjects.Table;
+import de.scplabs.mstlib.options.Colors;
+import de.scplabs.mstlib.options.ContainerStyle;
+import de.scplabs.mstlib.options.FontWeights;
+
+/**
+ * Builds the representative card trees used by the benchmarks.
+ */
+final class Cards {
+
+    static final String URL = "http://localhost/webhook";
+
+    private Cards() { }
+
+    /**
+     * Creates a card with containers nested the given number of levels deep, each holding a text block.
+     */
+    static IncomingWebhookBuilder deepContainers(int depth) {
+        IncomingWebhookBuilder builder = new IncomingWebhookBuilder(URL);
+        Container<?> container = builder.addContainer().setStyle(ContainerStyle.EMPHASIS);
+        for (int level = 0; level < depth; level++) {
+            container.addTextBlock("Level " + level).setWeight(FontWeights.BOLDER);
+            container = container.addContainer();
+        }
+        return builder;
+    }
+
+    /**
+     * Creates a card with a table of three columns and the given number of rows below a header row.
+     */
+    static IncomingWebhookBuilder table(int rows) {
+        IncomingWebhookBuilder builder = new IncomingWebhookBuilder(URL);
+        Table<IncomingWebhookBuilder> table = builder.addTable().addColumns(2).addColumns(1).addColumns(3);
+        addRow(table, "Job", "Status", "Message");
+        for (int i = 0; i < rows; i++) {
+            addRow(table, "job-" + i, i % 7 == 0 ? "FAILED" : "OK", "Run " + i + " finished with \"exit code\" " + (i % 7));
+        }
+        return builder;
+    }
+
+    /**
+     * Creates a card with a rich text block made of the given number of text runs.
+     */
+    static IncomingWebhookBuilder richText(int runs) {
+        IncomingWebhookBuilder builder = new IncomingWebhookBuilder(URL);
+        RichTextBlock<IncomingWebhookBuilder> block = builder.addRichTextBlock();
+        for (int i = 0; i < runs; i++) {
+            block.addInline("Run " + i + " with ümlauts and ✓ ").setColor(i % 2 == 0 ? Colors.ACCENT : Colors.DEFAULT);
+        }
+        return builder;
+    }
+
+    private static void addRow(Table<IncomingWebhookBuilder> table, String... texts) {
+        Table.TableRow<Table<IncomingWebhookBuilder>> row = table.addRows();
+        for (String text : texts) {
+            row.addCell().addTextBlock(text);
+        }
+    }
+}
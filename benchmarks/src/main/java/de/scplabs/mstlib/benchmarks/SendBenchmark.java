@@ -0,0 +1,100 @@
+package de.scplabs.mstlib.benchmarks;
+
+import com.sun.net.httpserver.HttpServer;
+import de.scplabs.mstlib.IncomingWebhook;
+import de.scplabs.mstlib.IncomingWebhookBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures end-to-end sends, from building the card to the HTTP response, against an in-process
+ * loopback server that reads the payload and answers {@code 200} immediately.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SendBenchmark {
+
+    private static final int BATCH = 32;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private String url;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            try (InputStream body = exchange.getRequestBody()) {
+                body.readAllBytes();
+            }
+            byte[] response = "1".getBytes();
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+        });
+        serverExecutor = Executors.newFixedThreadPool(8);
+        server.setExecutor(serverExecutor);
+        server.start();
+        url = "http://localhost:" + server.getAddress().getPort() + "/webhook";
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    /**
+     * Builds and sends one small card, blocking for the response.
+     */
+    @Benchmark
+    public int execute() throws InterruptedException {
+        return card().execute().statusCode();
+    }
+
+    /**
+     * Builds and sends a batch of cards concurrently and waits for all responses.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int executeAsync() {
+        @SuppressWarnings("unchecked")
+        CompletableFuture<HttpResponse<String>>[] futures = new CompletableFuture[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            futures[i] = card().executeAsync();
+        }
+        CompletableFuture.allOf(futures).join();
+        return futures[BATCH - 1].join().statusCode();
+    }
+
+    private IncomingWebhook card() {
+        return new IncomingWebhookBuilder(url)
+                .addTextBlock("Build failed").prev()
+                .addFactSet().addFact("Job", "nightly").addFact("Stage", "test").prev()
+                .build();
+    }
+}
@@ -0,0 +1,105 @@
+package de.scplabs.mstlib.benchmarks;
+
+import de.scplabs.mstlib.IncomingWebhook;
+import de.scplabs.mstlib.IncomingWebhookBuilder;
+import de.scplabs.mstlib.json.JsonWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the serialization throughput of {@link IncomingWebhookBuilder#build()} for prebuilt card trees.
+ * Elements cache their encoding once written, so the cold benchmarks serialize a freshly built tree per
+ * invocation, while the cached benchmarks write the same tree again and only copy the cached fragments.
+ * Run with {@code -prof gc} to report the allocation rate per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"deepContainers", "table500", "richText100"})
+    public String card;
+
+    private IncomingWebhookBuilder builder;
+    private JsonWriter writer;
+
+    @Setup
+    public void setUp() {
+        builder = newCard();
+        writer = new JsonWriter(64 * 1024);
+    }
+
+    private IncomingWebhookBuilder newCard() {
+        return switch (card) {
+            case "deepContainers" -> Cards.deepContainers(50);
+            case "table500" -> Cards.table(500);
+            case "richText100" -> Cards.richText(100);
+            default -> throw new IllegalArgumentException(card);
+        };
+    }
+
+    /**
+     * A card tree that was never written, rebuilt outside the measurement before each invocation.
+     */
+    @State(Scope.Thread)
+    public static class ColdCard {
+
+        private IncomingWebhookBuilder builder;
+
+        @Setup(Level.Invocation)
+        public void setUp(SerializationBenchmark benchmark) {
+            builder = benchmark.newCard();
+        }
+    }
+
+    /**
+     * Serializes a new card into a new webhook, including the payload copy and the prepared request.
+     */
+    @Benchmark
+    public IncomingWebhook build(ColdCard cold) {
+        return cold.builder.build();
+    }
+
+    /**
+     * Serializes a new card into a reused writer, isolating the encoding itself.
+     */
+    @Benchmark
+    public int writeJson(ColdCard cold) {
+        writer.reset();
+        cold.builder.writeJson(writer);
+        return writer.size();
+    }
+
+    /**
+     * Builds a webhook from a card that was written before, so its elements are copied from their cache.
+     */
+    @Benchmark
+    public IncomingWebhook buildCached() {
+        return builder.build();
+    }
+
+    /**
+     * Writes a card that was written before into a reused writer, copying the cached fragments.
+     */
+    @Benchmark
+    public int writeJsonCached() {
+        writer.reset();
+        builder.writeJson(writer);
+        return writer.size();
+    }
+}
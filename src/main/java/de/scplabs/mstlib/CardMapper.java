@@ -0,0 +1,64 @@
+package de.scplabs.mstlib;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import de.scplabs.mstlib.json.JsonWriter;
+import de.scplabs.mstlib.options.*;
+
+/**
+ * The {@code CardMapper} class holds the process-wide Jackson configuration used to serialize cards.
+ * <p>
+ * The {@link ObjectWriter} is created once and is thread-safe, so its serializers are cached across all builds.
+ * Cards are written by the streaming {@link JsonWriter}, also when Jackson serializes a card object; the
+ * object writer serializes values that are not part of the card model and remains available for custom serialization.
+ */
+public final class CardMapper {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final ObjectWriter WRITER = MAPPER.writer();
+
+    private static volatile boolean warmedUp;
+
+    private CardMapper() { }
+
+    /**
+     * Returns the shared object writer for card payloads.
+     *
+     * @return the shared {@code ObjectWriter}
+     */
+    public static ObjectWriter getWriter() {
+        return WRITER;
+    }
+
+    /**
+     * Serializes a sample card containing every card element once with both the streaming writer
+     * and the object writer, so the serializers and field tokens for the whole model are built
+     * before the first real card is sent.
+     * Calling this method more than once has no further effect.
+     *
+     * @throws IllegalStateException if the sample card cannot be serialized
+     */
+    public static void warmUp() {
+        if (warmedUp) {
+            return;
+        }
+        IncomingWebhookBuilder builder = new IncomingWebhookBuilder("http://localhost");
+        builder.addTextBlock("").setColor(Colors.ACCENT).prev()
+                .addImage("").prev()
+                .addImageSet().addImage("").prev().prev()
+                .addFactSet().addFact("", "").prev()
+                .addMedia().addSource("").addCaptionSource("", "", "").prev()
+                .addRichTextBlock().addInline("").prev().prev()
+                .addTable().addColumns(1).addRows().addCell().addTextBlock("").prev().prev().prev().prev()
+                .addColumnSet().prev()
+                .addContainer().addBackgroundImage("").setFillMode(ImageFillMode.COVER).prev().prev();
+        builder.writeJson(new JsonWriter());
+        try {
+            WRITER.writeValueAsString(builder.toPayload());
+            warmedUp = true;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Sample card could not be serialized", e);
+        }
+    }
+}
@@ -0,0 +1,683 @@
+package de.scplabs.mstlib;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import de.scplabs.mstlib.cardobjects.*;
+import de.scplabs.mstlib.options.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The {@code CardParser} class reads Adaptive Card JSON into the {@code cardobjects} model, so stored cards
+ * can be loaded, modified and sent again.
+ * <p>
+ * The parser reads the jackson-core token stream directly and calls the builder methods of the model;
+ * no databind tree or reflection is involved. It accepts a bare {@code AdaptiveCard} as well as a complete
+ * webhook message whose attachments hold cards, in which case the bodies of all cards are appended in order.
+ * Elements of a type the model does not support, such as {@code ActionSet}, are kept verbatim as
+ * {@link FrozenElement}s. Properties the model does not support are skipped.
+ * <pre>{@code
+ * IncomingWebhookBuilder builder = CardParser.parse(url, Files.readAllBytes(layout));
+ * builder.addTextBlock("Generated " + Instant.now());
+ * builder.build().executeAsync();
+ * }</pre>
+ */
+public final class CardParser {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+    private static final ClassValue<Map<String, Enum<?>>> ENUM_VALUES = new ClassValue<>() {
+        @Override
+        protected Map<String, Enum<?>> computeValue(Class<?> type) {
+            Map<String, Enum<?>> values = new HashMap<>();
+            for (Object constant : type.getEnumConstants()) {
+                Enum<?> value = (Enum<?>) constant;
+                values.put(value.name().toLowerCase(Locale.ROOT), value);
+                values.putIfAbsent(value.toString().toLowerCase(Locale.ROOT), value);
+            }
+            return values;
+        }
+    };
+
+    private CardParser() { }
+
+    /**
+     * Parses a card or a webhook message into a new builder.
+     *
+     * @param url  the target URL of the builder
+     * @param json the JSON text
+     * @return the builder holding the parsed body elements
+     * @throws IOException if the JSON is malformed or holds values the model does not support
+     */
+    public static IncomingWebhookBuilder parse(String url, String json) throws IOException {
+        try (JsonParser p = FACTORY.createParser(json)) {
+            return parse(url, p);
+        }
+    }
+
+    /**
+     * Parses a card or a webhook message into a new builder.
+     *
+     * @param url  the target URL of the builder
+     * @param json the UTF-8 encoded JSON
+     * @return the builder holding the parsed body elements
+     * @throws IOException if the JSON is malformed or holds values the model does not support
+     */
+    public static IncomingWebhookBuilder parse(String url, byte[] json) throws IOException {
+        try (JsonParser p = FACTORY.createParser(json)) {
+            return parse(url, p);
+        }
+    }
+
+    /**
+     * Parses a card or a webhook message into a new builder. The stream is not closed.
+     *
+     * @param url the target URL of the builder
+     * @param in  the stream holding the JSON
+     * @return the builder holding the parsed body elements
+     * @throws IOException if reading fails, the JSON is malformed or holds values the model does not support
+     */
+    public static IncomingWebhookBuilder parse(String url, InputStream in) throws IOException {
+        try (JsonParser p = FACTORY.createParser(in)) {
+            p.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            return parse(url, p);
+        }
+    }
+
+    private static IncomingWebhookBuilder parse(String url, JsonParser p) throws IOException {
+        IncomingWebhookBuilder builder = new IncomingWebhookBuilder(url);
+        expect(p, p.nextToken(), JsonToken.START_OBJECT);
+        parseCard(p, new Target(builder));
+        return builder;
+    }
+
+    /**
+     * Parses the members of a message, an attachment or a card, appending the body elements to the target.
+     */
+    private static void parseCard(JsonParser p, Target target) throws IOException {
+        String name;
+        while ((name = p.nextFieldName()) != null) {
+            JsonToken token = p.nextToken();
+            switch (name) {
+                case "attachments", "body" -> {
+                    expect(p, token, JsonToken.START_ARRAY);
+                    while ((token = p.nextToken()) != JsonToken.END_ARRAY) {
+                        expect(p, token, JsonToken.START_OBJECT);
+                        if (name.equals("body")) {
+                            parseElement(p, target);
+                        } else {
+                            parseCard(p, target);
+                        }
+                    }
+                }
+                case "content" -> {
+                    expect(p, token, JsonToken.START_OBJECT);
+                    parseCard(p, target);
+                }
+                default -> p.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * Parses a body element. The parser is positioned at the start of its object.
+     */
+    private static void parseElement(JsonParser p, Target target) throws IOException {
+        String name = p.nextFieldName();
+        if (name == null) {
+            return;
+        }
+        if (!name.equals("type")) {
+            // rare: the type is not the first member, so find it in a buffered copy and parse the copy
+            byte[] element = copyObject(p, name, null);
+            String type = findType(element);
+            try (JsonParser copy = FACTORY.createParser(element)) {
+                copy.nextToken();
+                parseElement(copy, target, type, element);
+            }
+            return;
+        }
+        p.nextToken();
+        parseElement(p, target, p.getValueAsString(), null);
+    }
+
+    /**
+     * Parses the members of a body element of the given type, skipping its type member. An unsupported
+     * element is kept unchanged: its buffered copy if there is one, otherwise a copy of the rest of it.
+     */
+    private static void parseElement(JsonParser p, Target target, String type, byte[] buffered)
+            throws IOException {
+        switch (type == null ? "" : type) {
+            case "TextBlock" -> parseTextBlock(p, target.textBlock());
+            case "Image" -> parseImage(p, target.image());
+            case "Container" -> parseContainer(p, target.container());
+            case "ColumnSet" -> parseColumnSet(p, target.columnSet());
+            case "FactSet" -> parseFactSet(p, target.factSet());
+            case "ImageSet" -> parseImageSet(p, target.imageSet());
+            case "Media" -> parseMedia(p, target.media());
+            case "RichTextBlock" -> parseRichTextBlock(p, target.richTextBlock());
+            case "Table" -> parseTable(p, target.table());
+            default -> {
+                byte[] element = buffered != null ? buffered : copyObject(p, null, type);
+                target.add(FrozenElement.of(out -> out.rawValue(element)));
+            }
+        }
+    }
+
+    private static void parseTextBlock(JsonParser p, TextBlock<?> element) throws IOException {
+        String name;
+        while ((name = p.nextFieldName()) != null) {
+            p.nextToken();
+            switch (name) {
+                case "text" -> element.setText(p.getValueAsString());
+                case "color" -> element.setColor(enumValue(p, Colors.class));
+                case "fontType" -> element.setFontType(enumValue(p, FontTypes.class));
+                case "horizontalAlignment" -> element.setHorizontalAlignment(enumValue(p, HorizontalAlignments.class));
+                case "isSubtle" -> element.setSubtle(p.getValueAsBoolean());
+                case "size" -> parseTextBlockSize(p, element);
+                case "weight" -> element.setWeight(enumValue(p, FontWeights.class));
+                case "wrap" -> element.setWrap(p.getValueAsBoolean());
+                case "style" -> element.setStyle(enumValue(p, TextBlockStyles.class));
+                default -> parseCommon(p, name, element);
+            }
+        }
+    }
+
+    /**
+     * Parses the size of a text block. Sizes the library does not model, such as the font type values
+     * written by older versions, are kept verbatim.
+     */
+    private static void parseTextBlockSize(JsonParser p, TextBlock<?> element) throws IOException {
+        String text = p.getValueAsString();
+        if (text == null) {
+            p.skipChildren();
+            return;
+        }
+        Enum<?> size = ENUM_VALUES.get(FontSize.class).get(text.toLowerCase(Locale.ROOT));
+        if (size != null) {
+            element.setSize((FontSize) size);
+        } else {
+            element.setSize(text);
+        }
+    }
+
+    private static void parseImage(JsonParser p, Image<?> element) throws IOException {
+        String name;
+        while ((name = p.nextFieldName()) != null) {
+            p.nextToken();
+            switch (name) {
+                case "url" -> element.setUrl(p.getValueAsString());
+                case "altText" -> element.setAltText(p.getValueAsString());
+                case "backgroundColor" -> element.setBackgroundColor(p.getValueAsString());
+                case "height" -> element.setHeight(p.getValueAsString());
+                case "horizontalAlignment" -> element.setHorizontalAlignment(enumValue(p, HorizontalAlignments.class));
+                case "size" -> element.setSize(enumValue(p, ImageSize.class));
+                case "style" -> element.setStyle(enumValue(p, ImageStyle.class));
+                case "width" -> element.setWidth(p.getValueAsString());
+                case "type" -> { }
+                default -> parseCommon(p, name, element);
+            }
+        }
+    }
+
+    private static void parseContainer(JsonParser p, Container<?> element) throws IOException {
+        String name;
+        while ((name = p.nextFieldName()) != null) {
+            JsonToken token = p.nextToken();
+            switch (name) {
+                case "items" -> parseItems(p, token, new Target(element));
+                case "style" -> element.setStyle(enumValue(p, ContainerStyle.class));
+                case "verticalContentAlignment" ->
+                        element.setVerticalContentAlignment(enumValue(p, VerticalContentAlignment.class));
+                case "bleed" -> element.setBleed(p.getValueAsBoolean());
+                case "backgroundImage" -> parseBackgroundImage(p, token, element::addBackgroundImage);
+                case "minHeight" -> element.setMinHeight(p.getValueAsString());
+                case "rtl", "rtl?" -> element.setRtl(p.getValueAsBoolean());
+                default -> parseCommon(p, name, element);
+            }
+        }
+    }
+
+    private static void parseColumnSet(JsonParser p, ColumnSet<?> element) throws IOException {
+        String name;
+        while ((name = p.nextFieldName()) != null) {
+            JsonToken token = p.nextToken();
+            switch (name) {
+                case "columns" -> {
+                    expect(p, token, JsonToken.START_ARRAY);
+                    while ((token = p.nextToken()) != JsonToken.END_ARRAY) {
+                        expect(p, token, JsonToken.START_OBJECT);
+                        parseColumn(p, element.addColumn());
+                    }
+                }
+                case "style" -> element.setStyle(enumValue(p, ContainerStyle.class));
+                case "bleed" -> element.setBleed(p.getValueAsBoolean());
+                case "minHeight" -> element.setMinHeight(p.getValueAsString());
+                case "horizontalAlignment" -> element.setHorizontalAlignment(enumValue(p, HorizontalAlignments.class));
+                default -> parseCommon(p, name, element);
+            }
+        }
+    }
+
+    private static void parseColumn(JsonParser p, Column<?> element) throws IOException {
+        String name;
+        while ((name = p.nextFieldName()) != null) {
+            JsonToken token = p.nextToken();
+            switch (name) {
+                case "items" -> parseItems(p, token, new Target(element));
+                case "backgroundImage" -> parseBackgroundImage(p, token, element::addBackgroundImage);
+                case "bleed" -> element.setBleed(p.getValueAsBoolean());
+                case "minHeight" -> element.setMinHeight(p.getValueAsString());
+                case "rtl", "rtl?" -> element.setRtl(p.getValueAsBoolean());
+                case "style" -> element.setStyle(enumValue(p, ContainerStyle.class));
+                case "verticalContentAlignment" ->
+                        element.setVerticalContentAlignment(enumValue(p, VerticalContentAlignment.class));
+                case "width" -> element.setWidth(p.getValueAsString());
+                case "type" -> { }
+                default -> parseCommon(p, name, element);
+            }
+        }
+    }
+
+    private static void parseFactSet(JsonParser p, FactSet<?> element) throws IOException {
+        String name;
+        while ((name = p.nextFieldName()) != null) {
+            JsonToken token = p.nextToken();
+            if (!name.equals("facts")) {
+                parseCommon(p, name, element);
+                continue;
+            }
+            expect(p, token, JsonToken.START_ARRAY);
+            while ((token = p.nextToken()) != JsonToken.END_ARRAY) {
+                expect(p, token, JsonToken.START_OBJECT);
+                String title = null;
+                String value = null;
+                String data = null;
+                String member;
+                while ((member = p.nextFieldName()) != null) {
+                    p.nextToken();
+                    switch (member) {
+                        case "title" -> title = p.getValueAsString();
+                        case "value" -> value = p.getValueAsString();
+                        case "$data" -> data = p.getValueAsString();
+                        default -> p.skipChildren();
+                    }
+                }
+                if (data == null) {
+                    element.addFact(title, value);
+                } else {
+                    element.addRepeatedFact(data, title, value);
+                }
+            }
+        }
+    }
+
+    private static void parseImageSet(JsonParser p, ImageSet<?> element) throws IOException {
+        String name;
+        while ((name = p.nextFieldName()) != null) {
+            JsonToken token = p.nextToken();
+            switch (name) {
+                case "images" -> {
+                    expect(p, token, JsonToken.START_ARRAY);
+                    while ((token = p.nextToken()) != JsonToken.END_ARRAY) {
+                        expect(p, token, JsonToken.START_OBJECT);
+                        parseImage(p, element.addImage(null));
+                    }
+                }
+                case "imageSize" -> element.setImageSize(enumValue(p, ImageSize.class));
+                case "style" -> element.setStyle(enumValue(p, ImageSetStyle.class));
+                default -> parseCommon(p, name, element);
+            }
+        }
+    }
+
+    private static void parseMedia(JsonParser p, Media<?> element) throws IOException {
+        String name;
+        while ((name = p.nextFieldName()) != null) {
+            JsonToken token = p.nextToken();
+            switch (name) {
+                case "sources", "captionSources" -> {
+                    expect(p, token, JsonToken.START_ARRAY);
+                    while ((token = p.nextToken()) != JsonToken.END_ARRAY) {
+                        expect(p, token, JsonToken.START_OBJECT);
+                        String url = null;
+                        String mimeType = null;
+                        String label = null;
+                        String member;
+                        while ((member = p.nextFieldName()) != null) {
+                            p.nextToken();
+                            switch (member) {
+                                case "url" -> url = p.getValueAsString();
+                                case "mimeType" -> mimeType = p.getValueAsString();
+                                case "label" -> label = p.getValueAsString();
+                                default -> p.skipChildren();
+                            }
+                        }
+                        if (name.equals("sources")) {
+                            element.addSource(url, mimeType == null ? "" : mimeType);
+                        } else {
+                            element.addCaptionSource(mimeType, url, label);
+                        }
+                    }
+                }
+                case "poster" -> element.setPoster(p.getValueAsString());
+                case "altText" -> element.setAltText(p.getValueAsString());
+                default -> parseCommon(p, name, element);
+            }
+        }
+    }
+
+    private static void parseRichTextBlock(JsonParser p, RichTextBlock<?> element) throws IOException {
+        String name;
+        while ((name = p.nextFieldName()) != null) {
+            JsonToken token = p.nextToken();
+            switch (name) {
+                case "inlines" -> {
+                    expect(p, token, JsonToken.START_ARRAY);
+                    while ((token = p.nextToken()) != JsonToken.END_ARRAY) {
+                        if (token == JsonToken.VALUE_STRING) {
+                            element.addInline(p.getText());
+                        } else {
+                            expect(p, token, JsonToken.START_OBJECT);
+                            parseTextRun(p, element.addInline(""));
+                        }
+                    }
+                }
+                case "horizontalAlignment" -> element.setHorizontalAlignment(enumValue(p, HorizontalAlignments.class));
+                default -> parseCommon(p, name, element);
+            }
+        }
+    }
+
+    private static void parseTextRun(JsonParser p, TextRun<?> element) throws IOException {
+        String name;
+        while ((name = p.nextFieldName()) != null) {
+            p.nextToken();
+            switch (name) {
+                case "text" -> element.setText(p.getValueAsString());
+                case "color" -> element.setColor(enumValue(p, Colors.class));
+                case "fontType" -> element.setFontType(enumValue(p, FontTypes.class));
+                case "highlight" -> element.setHighlight(p.getValueAsBoolean());
+                case "isSubtle" -> element.setSubtle(p.getValueAsBoolean());
+                case "italic" -> element.setItalic(p.getValueAsBoolean());
+                case "size" -> element.setSize(enumValue(p, FontSize.class));
+                case "strikethrough" -> element.setStrikethrough(p.getValueAsBoolean());
+                case "underline" -> element.setUnderline(p.getValueAsBoolean());
+                case "weight" -> element.setWeight(enumValue(p, FontWeights.class));
+                case "type" -> { }
+                default -> parseCommon(p, name, element);
+            }
+        }
+    }
+
+    private static void parseTable(JsonParser p, Table<?> element) throws IOException {
+        String name;
+        while ((name = p.nextFieldName()) != null) {
+            JsonToken token = p.nextToken();
+            switch (name) {
+                case "columns" -> {
+                    expect(p, token, JsonToken.START_ARRAY);
+                    while ((token = p.nextToken()) != JsonToken.END_ARRAY) {
+                        expect(p, token, JsonToken.START_OBJECT);
+                        String width = null;
+                        String alignment = null;
+                        String member;
+                        while ((member = p.nextFieldName()) != null) {
+                            p.nextToken();
+                            switch (member) {
+                                case "width" -> width = p.getValueAsString();
+                                case "horizontalCellContentAlignment" ->
+                                        alignment = enumValue(p, HorizontalAlignments.class).toString();
+                                default -> p.skipChildren();
+                            }
+                        }
+                        element.getColumns().add(new Table.TableColumnDefinition(width, alignment));
+                        element.invalidate();
+                    }
+                }
+                case "rows" -> {
+                    expect(p, token, JsonToken.START_ARRAY);
+                    while ((token = p.nextToken()) != JsonToken.END_ARRAY) {
+                        expect(p, token, JsonToken.START_OBJECT);
+                        parseTableRow(p, element.addRows());
+                    }
+                }
+                case "firstRowAsHeader" -> element.setFirstRowAsHeader(p.getValueAsBoolean());
+                case "showGridLines" -> element.setShowGridLines(p.getValueAsBoolean());
+                case "gridStyle" -> element.setGridStyle(enumValue(p, ContainerStyle.class));
+                case "horizontalCellContentAlignment" ->
+                        element.setHorizontalCellContentAlignment(enumValue(p, HorizontalAlignments.class));
+                case "verticalCellContentAlignment" ->
+                        element.setVerticalCellContentAlignment(enumValue(p, VerticalContentAlignment.class));
+                default -> parseCommon(p, name, element);
+            }
+        }
+    }
+
+    private static void parseTableRow(JsonParser p, Table.TableRow<?> row) throws IOException {
+        String name;
+        while ((name = p.nextFieldName()) != null) {
+            JsonToken token = p.nextToken();
+            switch (name) {
+                case "cells" -> {
+                    expect(p, token, JsonToken.START_ARRAY);
+                    while ((token = p.nextToken()) != JsonToken.END_ARRAY) {
+                        expect(p, token, JsonToken.START_OBJECT);
+                        parseTableCell(p, row.addCell());
+                    }
+                }
+                case "style" -> row.setStyle(enumValue(p, ContainerStyle.class));
+                case "type" -> { }
+                default -> parseCommon(p, name, row);
+            }
+        }
+    }
+
+    private static void parseTableCell(JsonParser p, TableCell<?> cell) throws IOException {
+        String name;
+        while ((name = p.nextFieldName()) != null) {
+            JsonToken token = p.nextToken();
+            switch (name) {
+                case "items" -> parseItems(p, token, new Target(cell));
+                case "style" -> cell.setStyle(enumValue(p, ContainerStyle.class));
+                case "verticalAlignment", "verticalContentAlignment" ->
+                        cell.setVerticalAlignment(enumValue(p, VerticalContentAlignment.class));
+                case "bleed" -> cell.setBleed(p.getValueAsBoolean());
+                case "backgroundImage" -> parseBackgroundImage(p, token, cell::addBackgroundImage);
+                case "minHeight" -> cell.setMinHeight(p.getValueAsString());
+                case "rtl", "rtl?" -> cell.setRtl(p.getValueAsBoolean());
+                case "type" -> { }
+                default -> parseCommon(p, name, cell);
+            }
+        }
+    }
+
+    private static void parseItems(JsonParser p, JsonToken token, Target target) throws IOException {
+        expect(p, token, JsonToken.START_ARRAY);
+        while ((token = p.nextToken()) != JsonToken.END_ARRAY) {
+            expect(p, token, JsonToken.START_OBJECT);
+            parseElement(p, target);
+        }
+    }
+
+    /**
+     * Parses a background image given as a URL or as an object.
+     */
+    private static void parseBackgroundImage(JsonParser p, JsonToken token,
+                                             BackgroundImageFactory factory) throws IOException {
+        if (token == JsonToken.VALUE_STRING) {
+            factory.add(p.getText());
+            return;
+        }
+        expect(p, token, JsonToken.START_OBJECT);
+        String url = null;
+        ImageFillMode fillMode = null;
+        HorizontalAlignments horizontalAlignment = null;
+        VerticalContentAlignment verticalAlignment = null;
+        String name;
+        while ((name = p.nextFieldName()) != null) {
+            p.nextToken();
+            switch (name) {
+                case "url" -> url = p.getValueAsString();
+                case "fillMode" -> fillMode = enumValue(p, ImageFillMode.class);
+                case "horizontalAlignment" -> horizontalAlignment = enumValue(p, HorizontalAlignments.class);
+                case "verticalAlignment" -> verticalAlignment = enumValue(p, VerticalContentAlignment.class);
+                default -> p.skipChildren();
+            }
+        }
+        BackGroundImage<?> image = factory.add(url);
+        if (fillMode != null) {
+            image.setFillMode(fillMode);
+        }
+        if (horizontalAlignment != null) {
+            image.setHorizontalAlignment(horizontalAlignment);
+        }
+        if (verticalAlignment != null) {
+            image.setVerticalAlignment(verticalAlignment);
+        }
+    }
+
+    /**
+     * Parses a property shared by all card elements, skipping unsupported properties.
+     */
+    private static void parseCommon(JsonParser p, String name, CardObject<?, ?> element) throws IOException {
+        switch (name) {
+            case "height" -> element.setHeight(enumValue(p, BlockElementHeight.class));
+            case "separator" -> element.setSeparator(p.getValueAsBoolean());
+            case "spacing" -> element.setSpacing(enumValue(p, Spacing.class));
+            case "isVisible", "visible" -> element.setVisible(p.getValueAsBoolean());
+            case "$data" -> element.setData(p.getValueAsString());
+            default -> p.skipChildren();
+        }
+    }
+
+    private static <E extends Enum<E>> E enumValue(JsonParser p, Class<E> type) throws IOException {
+        String text = p.getValueAsString();
+        Enum<?> value = text == null ? null : ENUM_VALUES.get(type).get(text.toLowerCase(Locale.ROOT));
+        if (value == null) {
+            throw new JsonParseException(p, "Unsupported " + type.getSimpleName() + " value: " + text);
+        }
+        return type.cast(value);
+    }
+
+    private static void expect(JsonParser p, JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new JsonParseException(p, "Expected " + expected + " but found " + actual);
+        }
+    }
+
+    /**
+     * Copies the rest of the current object, optionally preceded by a member whose name was already read
+     * or by a type member whose value was already read.
+     */
+    private static byte[] copyObject(JsonParser p, String pendingName, String type) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (JsonGenerator gen = FACTORY.createGenerator(buffer)) {
+            gen.writeStartObject();
+            if (type != null) {
+                gen.writeStringField("type", type);
+            }
+            if (pendingName != null) {
+                gen.copyCurrentStructure(p);
+            }
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                gen.copyCurrentStructure(p);
+            }
+            gen.writeEndObject();
+        }
+        return buffer.toByteArray();
+    }
+
+    private static String findType(byte[] element) throws IOException {
+        try (JsonParser p = FACTORY.createParser(element)) {
+            p.nextToken();
+            String name;
+            while ((name = p.nextFieldName()) != null) {
+                p.nextToken();
+                if (name.equals("type")) {
+                    return p.getValueAsString();
+                }
+                p.skipChildren();
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Creates the background image of a container, a column or a table cell.
+     */
+    @FunctionalInterface
+    private interface BackgroundImageFactory {
+        BackGroundImage<?> add(String url);
+    }
+
+    /**
+     * The card body or the container that parsed elements are appended to.
+     */
+    private static final class Target {
+
+        private final IncomingWebhookBuilder builder;
+        private final CardContainerObject<?, ?> container;
+
+        private Target(IncomingWebhookBuilder builder) {
+            this.builder = builder;
+            this.container = null;
+        }
+
+        private Target(CardContainerObject<?, ?> container) {
+            this.builder = null;
+            this.container = container;
+        }
+
+        TextBlock<?> textBlock() {
+            return builder != null ? builder.addTextBlock("") : container.addTextBlock("");
+        }
+
+        Image<?> image() {
+            return builder != null ? builder.addImage(null) : container.addImage(null);
+        }
+
+        Container<?> container() {
+            return builder != null ? builder.addContainer() : container.addContainer();
+        }
+
+        ColumnSet<?> columnSet() {
+            return builder != null ? builder.addColumnSet() : container.addColumnSet();
+        }
+
+        FactSet<?> factSet() {
+            return builder != null ? builder.addFactSet() : container.addFactSet();
+        }
+
+        ImageSet<?> imageSet() {
+            return builder != null ? builder.addImageSet() : container.addImageSet();
+        }
+
+        Media<?> media() {
+            return builder != null ? builder.addMedia() : container.addMedia();
+        }
+
+        RichTextBlock<?> richTextBlock() {
+            return builder != null ? builder.addRichTextBlock() : container.addRichTextBlock();
+        }
+
+        Table<?> table() {
+            return builder != null ? builder.addTable() : container.addTable();
+        }
+
+        void add(FrozenElement element) {
+            if (builder != null) {
+                builder.add(element);
+            } else {
+                container.add(element);
+            }
+        }
+    }
+}
@@ -0,0 +1,544 @@
+package de.scplabs.mstlib;
+
+import de.scplabs.mstlib.json.JsonWriter;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * The {@code CardTemplate} class renders the same card shape many times with changing values,
+ * without rebuilding and reserializing the card.
+ * <p>
+ * A template is compiled once from a builder whose strings contain {@code ${...}} placeholders in the
+ * style of Adaptive Cards Templating. Compiling serializes the card and splits it into pre-encoded byte
+ * segments and binding slots; rendering only copies the segments and writes the JSON-escaped values
+ * of the slots. Elements inside arrays that carry a {@code $data} binding (see
+ * {@link de.scplabs.mstlib.cardobjects.CardObject#setData(String)} and
+ * {@link de.scplabs.mstlib.cardobjects.FactSet#addRepeatedFact(String, String, String)}) are repeated once
+ * for each entry of the bound data, with the entry as the scope of their placeholders.
+ * <pre>{@code
+ * IncomingWebhookBuilder builder = new IncomingWebhookBuilder(url);
+ * builder.addTextBlock("Build ${build.name} failed").prev()
+ *        .addFactSet().addRepeatedFact("${facts}", "${key}", "${value}");
+ * CardTemplate template = CardTemplate.compile(builder);
+ * template.render(Map.of("build", build, "facts", facts)).executeAsync();
+ * }</pre>
+ * Placeholders are property paths such as {@code ${name}} or {@code ${build.name}}, resolved against
+ * maps, records, getters and public fields. {@code $root} refers to the data passed to
+ * {@link #render(Object)}, {@code $data} to the current scope and {@code $index} to the position of the
+ * current repetition. A {@code $data} binding may be an iterable, an array, or a map whose entries are
+ * bound as {@code ${key}} and {@code ${value}}; any other object binds the element once.
+ * Missing values render as empty text. Templates are immutable and thread-safe.
+ */
+public final class CardTemplate {
+
+    private static final byte[] DATA_KEY = "\"$data\"".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ARRAY_START = {'['};
+    private static final byte[] ARRAY_END = {']'};
+    private static final byte[] COMMA = {','};
+    private static final Pattern PATH = Pattern.compile("\\$?[A-Za-z_][A-Za-z0-9_]*(\\.\\$?[A-Za-z_][A-Za-z0-9_]*)*");
+
+    private final String url;
+    private final WebhookTransport transport;
+    private final Segment[] segments;
+    /** Size of the last rendered payload, used to size the buffer of the next rendering. */
+    private volatile int sizeHint;
+
+    private CardTemplate(String url, WebhookTransport transport, Segment[] segments, int sizeHint) {
+        this.url = url;
+        this.transport = transport;
+        this.segments = segments;
+        this.sizeHint = sizeHint;
+    }
+
+    /**
+     * Compiles the card of the given builder into a template. Later changes to the builder
+     * do not affect the template.
+     *
+     * @param builder the builder holding the card with placeholders
+     * @return the compiled template
+     * @throws IllegalArgumentException if a placeholder is not a valid property path
+     */
+    public static CardTemplate compile(IncomingWebhookBuilder builder) {
+        JsonWriter out = new JsonWriter();
+        builder.writeJson(out);
+        byte[] json = out.toByteArray();
+        Segments segments = new Segments();
+        new Compiler(json).value(segments);
+        return new CardTemplate(builder.getUrl(), builder.getTransport(), segments.toArray(), json.length);
+    }
+
+    /**
+     * Renders the template with the given data into a webhook for the URL of the compiled builder.
+     *
+     * @param data the data bound to the placeholders, e.g. a map, a record or a bean
+     * @return the webhook ready to be sent
+     */
+    public IncomingWebhook render(Object data) {
+        return render(url, data);
+    }
+
+    /**
+     * Renders the template with the given data into a webhook for another URL.
+     *
+     * @param url  the webhook URL
+     * @param data the data bound to the placeholders, e.g. a map, a record or a bean
+     * @return the webhook ready to be sent
+     */
+    public IncomingWebhook render(String url, Object data) {
+        return new IncomingWebhook(url, renderBytes(data), transport);
+    }
+
+    /**
+     * Renders the template with the given data into an encoded payload.
+     *
+     * @param data the data bound to the placeholders
+     * @return the UTF-8 encoded JSON payload
+     */
+    public byte[] renderBytes(Object data) {
+        JsonWriter out = new JsonWriter(sizeHint + (sizeHint >> 2));
+        render(data, out);
+        sizeHint = out.size();
+        return out.toByteArray();
+    }
+
+    /**
+     * Renders the template with the given data into a writer.
+     *
+     * @param data the data bound to the placeholders
+     * @param out  the writer to append the payload to
+     */
+    public void render(Object data, JsonWriter out) {
+        Scope scope = new Scope(data, data, 0);
+        for (Segment segment : segments) {
+            segment.render(out, scope);
+        }
+    }
+
+    /**
+     * Returns the URL of the compiled builder.
+     *
+     * @return the default target URL
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * The data visible to the placeholders of a segment.
+     */
+    private record Scope(Object root, Object current, int index) { }
+
+    /**
+     * A compiled part of the payload.
+     */
+    private interface Segment {
+        void render(JsonWriter out, Scope scope);
+    }
+
+    /**
+     * Pre-encoded bytes copied as-is.
+     */
+    private record Literal(byte[] bytes) implements Segment {
+        @Override
+        public void render(JsonWriter out, Scope scope) {
+            out.raw(bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * A placeholder inside a string literal.
+     */
+    private record Slot(Path path) implements Segment {
+        @Override
+        public void render(JsonWriter out, Scope scope) {
+            Object value = path.resolve(scope);
+            if (value != null) {
+                out.stringContent(value.toString());
+            }
+        }
+    }
+
+    /**
+     * An array with at least one repeated element. Separators are written at render time,
+     * since repeated elements may expand to no entries at all.
+     */
+    private record Repeat(Element[] elements) implements Segment {
+        @Override
+        public void render(JsonWriter out, Scope scope) {
+            out.raw(ARRAY_START, 0, 1);
+            boolean first = true;
+            for (Element element : elements) {
+                if (element.data() == null) {
+                    first = element.render(out, scope, first);
+                    continue;
+                }
+                int index = 0;
+                for (Object item : iterate(element.data().resolve(scope))) {
+                    first = element.render(out, new Scope(scope.root(), item, index++), first);
+                }
+            }
+            out.raw(ARRAY_END, 0, 1);
+        }
+    }
+
+    /**
+     * An element of a {@link Repeat} array, repeated when it has a data binding.
+     */
+    private record Element(Path data, Segment[] body) {
+        boolean render(JsonWriter out, Scope scope, boolean first) {
+            if (!first) {
+                out.raw(COMMA, 0, 1);
+            }
+            for (Segment segment : body) {
+                segment.render(out, scope);
+            }
+            return false;
+        }
+    }
+
+    private static Iterable<?> iterate(Object value) {
+        if (value == null) {
+            return Collections.emptyList();
+        } else if (value instanceof Iterable<?> iterable) {
+            return iterable;
+        } else if (value instanceof Object[] array) {
+            return Arrays.asList(array);
+        } else if (value instanceof Map<?, ?> map) {
+            return map.entrySet();
+        }
+        // a single object binds the element once, as in Adaptive Cards Templating
+        return Collections.singletonList(value);
+    }
+
+    /**
+     * A compiled property path such as {@code build.name}.
+     */
+    private record Path(String[] names) {
+
+        static Path parse(String expression) {
+            String path = expression.trim();
+            if (!PATH.matcher(path).matches()) {
+                throw new IllegalArgumentException("Invalid template expression: ${" + expression + "}");
+            }
+            return new Path(path.split("\\."));
+        }
+
+        Object resolve(Scope scope) {
+            Object value;
+            int i = 1;
+            switch (names[0]) {
+                case "$root":
+                    value = scope.root();
+                    break;
+                case "$data":
+                    value = scope.current();
+                    break;
+                case "$index":
+                    return scope.index();
+                default:
+                    value = scope.current();
+                    i = 0;
+                    break;
+            }
+            for (; i < names.length && value != null; i++) {
+                value = property(value, names[i]);
+            }
+            return value;
+        }
+    }
+
+    /** Property accessors per class and property name. */
+    private static final ClassValue<Map<String, Function<Object, Object>>> ACCESSORS = new ClassValue<>() {
+        @Override
+        protected Map<String, Function<Object, Object>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private static Object property(Object target, String name) {
+        if (target instanceof Map<?, ?> map) {
+            return map.get(name);
+        }
+        if (target instanceof Map.Entry<?, ?> entry) {
+            // lets repeated elements bind to the entries of a map as ${key} and ${value}
+            switch (name) {
+                case "key":
+                    return entry.getKey();
+                case "value":
+                    return entry.getValue();
+                default:
+                    return null;
+            }
+        }
+        return ACCESSORS.get(target.getClass()).computeIfAbsent(name, n -> accessor(target.getClass(), n)).apply(target);
+    }
+
+    private static Function<Object, Object> accessor(Class<?> type, String name) {
+        Method method = null;
+        if (type.isRecord()) {
+            for (RecordComponent component : type.getRecordComponents()) {
+                if (component.getName().equals(name)) {
+                    method = component.getAccessor();
+                }
+            }
+        }
+        if (method == null) {
+            String suffix = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+            method = findGetter(type, "get" + suffix);
+            if (method == null) {
+                method = findGetter(type, "is" + suffix);
+            }
+            if (method == null) {
+                method = findGetter(type, name);
+            }
+        }
+        if (method != null) {
+            Method getter = method;
+            getter.trySetAccessible();
+            return target -> {
+                try {
+                    return getter.invoke(target);
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException("Cannot read property " + name + " of " + type.getName(), e);
+                }
+            };
+        }
+        try {
+            Field field = type.getField(name);
+            field.trySetAccessible();
+            return target -> {
+                try {
+                    return field.get(target);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException("Cannot read property " + name + " of " + type.getName(), e);
+                }
+            };
+        } catch (NoSuchFieldException e) {
+            return target -> null;
+        }
+    }
+
+    private static Method findGetter(Class<?> type, String name) {
+        try {
+            Method method = type.getMethod(name);
+            return method.getReturnType() != void.class && !Modifier.isStatic(method.getModifiers()) ? method : null;
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Collects segments, merging adjacent literal bytes.
+     */
+    private static final class Segments {
+
+        private final List<Segment> segments = new ArrayList<>();
+        private byte[] pending = new byte[256];
+        private int pendingLength;
+
+        void literal(byte[] bytes, int offset, int length) {
+            if (pendingLength + length > pending.length) {
+                pending = Arrays.copyOf(pending, Math.max(pending.length * 2, pendingLength + length));
+            }
+            System.arraycopy(bytes, offset, pending, pendingLength, length);
+            pendingLength += length;
+        }
+
+        void literal(char c) {
+            literal(new byte[] {(byte) c}, 0, 1);
+        }
+
+        void add(Segment segment) {
+            flush();
+            segments.add(segment);
+        }
+
+        void addAll(Segment[] body) {
+            for (Segment segment : body) {
+                if (segment instanceof Literal literal) {
+                    literal(literal.bytes(), 0, literal.bytes().length);
+                } else {
+                    add(segment);
+                }
+            }
+        }
+
+        Segment[] toArray() {
+            flush();
+            return segments.toArray(new Segment[0]);
+        }
+
+        private void flush() {
+            if (pendingLength > 0) {
+                segments.add(new Literal(Arrays.copyOf(pending, pendingLength)));
+                pendingLength = 0;
+            }
+        }
+    }
+
+    /**
+     * Splits the compact JSON written by {@link JsonWriter} into segments.
+     */
+    private static final class Compiler {
+
+        private final byte[] json;
+        private int pos;
+
+        Compiler(byte[] json) {
+            this.json = json;
+        }
+
+        /**
+         * Compiles the value at the current position.
+         *
+         * @return the {@code $data} binding if the value is an object carrying one, otherwise {@code null}
+         */
+        Path value(Segments out) {
+            switch (json[pos]) {
+                case '{':
+                    return object(out);
+                case '[':
+                    array(out);
+                    return null;
+                case '"':
+                    string(out);
+                    return null;
+                default:
+                    int start = pos;
+                    while (pos < json.length && json[pos] != ',' && json[pos] != '}' && json[pos] != ']') {
+                        pos++;
+                    }
+                    out.literal(json, start, pos - start);
+                    return null;
+            }
+        }
+
+        private Path object(Segments out) {
+            out.literal('{');
+            pos++;
+            Path data = null;
+            boolean first = true;
+            while (json[pos] != '}') {
+                int keyStart = pos;
+                skipString();
+                // include the colon
+                int keyLength = ++pos - keyStart;
+                if (isDataKey(keyStart, keyLength - 1) && json[pos] == '"') {
+                    data = dataBinding();
+                } else {
+                    if (!first) {
+                        out.literal(',');
+                    }
+                    first = false;
+                    out.literal(json, keyStart, keyLength);
+                    value(out);
+                }
+                if (json[pos] == ',') {
+                    pos++;
+                }
+            }
+            pos++;
+            out.literal('}');
+            return data;
+        }
+
+        private void array(Segments out) {
+            pos++;
+            List<Element> elements = new ArrayList<>();
+            boolean repeated = false;
+            while (json[pos] != ']') {
+                Segments body = new Segments();
+                Path data = value(body);
+                elements.add(new Element(data, body.toArray()));
+                repeated |= data != null;
+                if (json[pos] == ',') {
+                    pos++;
+                }
+            }
+            pos++;
+            if (repeated) {
+                out.add(new Repeat(elements.toArray(new Element[0])));
+                return;
+            }
+            out.literal('[');
+            for (int i = 0; i < elements.size(); i++) {
+                if (i > 0) {
+                    out.literal(',');
+                }
+                out.addAll(elements.get(i).body());
+            }
+            out.literal(']');
+        }
+
+        private void string(Segments out) {
+            int start = pos++;
+            while (json[pos] != '"') {
+                if (json[pos] == '\\') {
+                    pos += 2;
+                } else if (json[pos] == '$' && json[pos + 1] == '{') {
+                    int end = placeholderEnd(pos + 2);
+                    if (end < 0) {
+                        pos++;
+                        continue;
+                    }
+                    out.literal(json, start, pos - start);
+                    out.add(new Slot(Path.parse(new String(json, pos + 2, end - pos - 2, StandardCharsets.UTF_8))));
+                    pos = end + 1;
+                    start = pos;
+                } else {
+                    pos++;
+                }
+            }
+            pos++;
+            out.literal(json, start, pos - start);
+        }
+
+        private Path dataBinding() {
+            int start = pos;
+            skipString();
+            String binding = new String(json, start + 1, pos - start - 2, StandardCharsets.UTF_8);
+            if (!binding.startsWith("${") || !binding.endsWith("}")) {
+                throw new IllegalArgumentException("$data must be a single placeholder: " + binding);
+            }
+            return Path.parse(binding.substring(2, binding.length() - 1));
+        }
+
+        private int placeholderEnd(int from) {
+            for (int i = from; i < json.length && json[i] != '"' && json[i] != '\\'; i++) {
+                if (json[i] == '}') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private boolean isDataKey(int start, int length) {
+            return Arrays.equals(json, start, start + length, DATA_KEY, 0, DATA_KEY.length);
+        }
+
+        private void skipString() {
+            pos++;
+            while (json[pos] != '"') {
+                pos += json[pos] == '\\' ? 2 : 1;
+            }
+            pos++;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CardTemplate{url=" + url + ", segments=" + segments.length + "}";
+    }
+}
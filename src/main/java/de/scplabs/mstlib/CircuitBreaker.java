@@ -0,0 +1,272 @@
+package de.scplabs.mstlib;
+
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@code CircuitBreaker} class fails fast while the channel behind a webhook URL is down.
+ * <p>
+ * Every URL has its own circuit. After a number of consecutive failures (exceptions or
+ * {@code 5xx} responses) the circuit opens and executions fail immediately with a
+ * {@link CircuitOpenException} instead of waiting for timeouts. Once the open duration has passed,
+ * a single trial execution is let through; if it succeeds the circuit closes again, otherwise it reopens.
+ */
+public class CircuitBreaker {
+
+    /**
+     * The states of a circuit.
+     */
+    public enum State {
+        /** Executions pass through. */
+        CLOSED,
+        /** Executions fail fast. */
+        OPEN,
+        /** A single trial execution is in progress. */
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final Map<String, Circuit> circuits = new ConcurrentHashMap<>();
+
+    private CircuitBreaker(Builder builder) {
+        this.failureThreshold = builder.failureThreshold;
+        this.openNanos = builder.openDuration.toNanos();
+    }
+
+    /**
+     * Creates a new builder for configuring a circuit breaker.
+     *
+     * @return a new {@code Builder}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the current state of the circuit of the given URL.
+     *
+     * @param url the webhook URL
+     * @return the circuit state
+     */
+    public State getState(String url) {
+        Circuit circuit = circuits.get(url);
+        return circuit == null ? State.CLOSED : circuit.state(System.nanoTime());
+    }
+
+    /**
+     * Returns whether an execution for the given URL may proceed. When the circuit is half-open,
+     * only the first caller is permitted.
+     *
+     * @param url the webhook URL
+     * @return {@code true} if the execution may proceed
+     */
+    public boolean tryAcquire(String url) {
+        return circuit(url).tryAcquire(System.nanoTime());
+    }
+
+    /**
+     * Records a successful execution for the given URL.
+     *
+     * @param url the webhook URL
+     */
+    public void onSuccess(String url) {
+        circuit(url).onSuccess();
+    }
+
+    /**
+     * Records a failed execution for the given URL.
+     *
+     * @param url the webhook URL
+     */
+    public void onFailure(String url) {
+        circuit(url).onFailure(System.nanoTime());
+    }
+
+    /**
+     * Wraps a webhook so its executions are guarded by the circuit of its URL.
+     *
+     * @param webhook the webhook to wrap
+     * @return the guarded webhook
+     */
+    public Webhook wrap(Webhook webhook) {
+        return new GuardedWebhook(webhook);
+    }
+
+    private Circuit circuit(String url) {
+        return circuits.computeIfAbsent(url, u -> new Circuit());
+    }
+
+    private void record(String url, HttpResponse<?> response) {
+        if (response.statusCode() >= 500) {
+            onFailure(url);
+        } else {
+            onSuccess(url);
+        }
+    }
+
+    /**
+     * The circuit of a single URL.
+     */
+    private final class Circuit {
+
+        private State state = State.CLOSED;
+        private int failures;
+        private long openedAt;
+
+        synchronized State state(long now) {
+            if (state == State.OPEN && now - openedAt >= openNanos) {
+                return State.HALF_OPEN;
+            }
+            return state;
+        }
+
+        synchronized boolean tryAcquire(long now) {
+            switch (state) {
+                case CLOSED:
+                    return true;
+                case OPEN:
+                    if (now - openedAt >= openNanos) {
+                        state = State.HALF_OPEN;
+                        return true;
+                    }
+                    return false;
+                default:
+                    // a trial execution is already in progress
+                    return false;
+            }
+        }
+
+        synchronized void onSuccess() {
+            state = State.CLOSED;
+            failures = 0;
+        }
+
+        synchronized void onFailure(long now) {
+            failures++;
+            if (state == State.HALF_OPEN || failures >= failureThreshold) {
+                state = State.OPEN;
+                openedAt = now;
+            }
+        }
+    }
+
+    /**
+     * A webhook decorator that checks the circuit of its URL before each execution.
+     */
+    private final class GuardedWebhook implements Webhook {
+
+        private final Webhook delegate;
+
+        private GuardedWebhook(Webhook delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String getUrl() {
+            return delegate.getUrl();
+        }
+
+        @Override
+        public HttpResponse<String> execute() throws InterruptedException {
+            String url = getUrl();
+            if (url == null) {
+                return delegate.execute();
+            }
+            if (!tryAcquire(url)) {
+                throw new CircuitOpenException(url);
+            }
+            // any throwable, including an interrupt or an Error, must end a half-open trial
+            HttpResponse<String> response = null;
+            boolean completed = false;
+            try {
+                response = delegate.execute();
+                completed = true;
+                return response;
+            } finally {
+                if (completed) {
+                    record(url, response);
+                } else {
+                    onFailure(url);
+                }
+            }
+        }
+
+        @Override
+        public CompletableFuture<HttpResponse<String>> executeAsync() {
+            String url = getUrl();
+            if (url == null) {
+                return delegate.executeAsync();
+            }
+            if (!tryAcquire(url)) {
+                return CompletableFuture.failedFuture(new CircuitOpenException(url));
+            }
+            CompletableFuture<HttpResponse<String>> future;
+            try {
+                future = delegate.executeAsync();
+            } catch (Throwable e) {
+                onFailure(url);
+                throw e;
+            }
+            return future.whenComplete((response, failure) -> {
+                if (failure != null) {
+                    Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+                    if (!(cause instanceof CircuitOpenException)) {
+                        onFailure(url);
+                    }
+                } else {
+                    record(url, response);
+                }
+            });
+        }
+    }
+
+    /**
+     * Builder class for {@link CircuitBreaker} instances.
+     */
+    public static class Builder {
+
+        private int failureThreshold = 5;
+        private Duration openDuration = Duration.ofSeconds(30);
+
+        private Builder() { }
+
+        /**
+         * Sets the number of consecutive failures that open a circuit.
+         *
+         * @param failureThreshold the failure threshold
+         * @return this builder for method chaining
+         */
+        public Builder setFailureThreshold(int failureThreshold) {
+            if (failureThreshold < 1) {
+                throw new IllegalArgumentException("failureThreshold must be positive");
+            }
+            this.failureThreshold = failureThreshold;
+            return this;
+        }
+
+        /**
+         * Sets how long a circuit stays open before a trial execution is let through.
+         *
+         * @param openDuration the open duration
+         * @return this builder for method chaining
+         */
+        public Builder setOpenDuration(Duration openDuration) {
+            this.openDuration = openDuration;
+            return this;
+        }
+
+        /**
+         * Creates the circuit breaker.
+         *
+         * @return the new {@code CircuitBreaker}
+         */
+        public CircuitBreaker build() {
+            return new CircuitBreaker(this);
+        }
+    }
+}
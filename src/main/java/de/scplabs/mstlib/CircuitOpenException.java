@@ -0,0 +1,21 @@
+package de.scplabs.mstlib;
+
+import java.io.Serial;
+
+/**
+ * Exception thrown when a webhook is not sent because the circuit of its URL is open.
+ */
+public class CircuitOpenException extends WebhookException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Creates a new {@code CircuitOpenException}.
+     *
+     * @param url the target URL of the webhook
+     */
+    public CircuitOpenException(String url) {
+        super(url, "Circuit is open for " + url, null);
+    }
+}
@@ -0,0 +1,110 @@
+package de.scplabs.mstlib;
+
+import de.scplabs.mstlib.cardobjects.FrozenElement;
+import de.scplabs.mstlib.json.JsonWritable;
+import de.scplabs.mstlib.json.JsonWriter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * The {@code FrozenCard} class is an immutable snapshot of a card created with {@link IncomingWebhookBuilder#freeze()}.
+ * <p>
+ * The card is serialized once: the snapshot keeps the encoded bytes of every body element and of the
+ * whole payload. It can be shared freely between threads, sent any number of times and to any URL
+ * without serializing again, and its elements can be added to other cards.
+ * <pre>{@code
+ * FrozenCard banner = builder.freeze();
+ * for (String url : channels) {
+ *     banner.toWebhook(url).executeAsync();
+ * }
+ * }</pre>
+ */
+public final class FrozenCard implements JsonWritable {
+
+    private final List<FrozenElement> elements;
+    private final byte[] payload;
+    private final IncomingWebhook webhook;
+
+    FrozenCard(String url, WebhookTransport transport, List<FrozenElement> elements, byte[] payload) {
+        this.elements = List.copyOf(elements);
+        this.payload = payload;
+        this.webhook = new IncomingWebhook(url, payload, transport);
+    }
+
+    /**
+     * Returns the target URL of the card.
+     *
+     * @return the target URL
+     */
+    public String getUrl() {
+        return webhook.getUrl();
+    }
+
+    /**
+     * Returns the frozen body elements, e.g. to add them to another card.
+     *
+     * @return the body elements in order
+     */
+    public List<FrozenElement> getElements() {
+        return elements;
+    }
+
+    /**
+     * Returns the size of the encoded payload in bytes.
+     *
+     * @return the encoded payload size
+     */
+    public int getPayloadSize() {
+        return payload.length;
+    }
+
+    /**
+     * Returns the JSON payload of the card.
+     *
+     * @return the JSON payload
+     */
+    public String getPayload() {
+        return new String(payload, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the webhook sending this card to its URL. The webhook is created once and shared.
+     *
+     * @return the webhook
+     */
+    public IncomingWebhook toWebhook() {
+        return webhook;
+    }
+
+    /**
+     * Returns a webhook sending this card to another URL, reusing the encoded payload.
+     *
+     * @param url the target URL
+     * @return the webhook
+     */
+    public IncomingWebhook toWebhook(String url) {
+        return toWebhook(url, webhook.getTransport());
+    }
+
+    /**
+     * Returns a webhook sending this card to another URL through the given transport, reusing the encoded payload.
+     *
+     * @param url       the target URL
+     * @param transport the transport used to send the payload
+     * @return the webhook
+     */
+    public IncomingWebhook toWebhook(String url, WebhookTransport transport) {
+        return new IncomingWebhook(url, payload, transport);
+    }
+
+    /**
+     * Writes the cached message payload.
+     *
+     * @param out the writer to write to
+     */
+    @Override
+    public void writeJson(JsonWriter out) {
+        out.rawValue(payload);
+    }
+}
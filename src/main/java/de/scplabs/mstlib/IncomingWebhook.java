@@ -1,21 +1,27 @@
 package de.scplabs.mstlib;
 
 import java.io.IOException;
-import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * The {@code IncomingWebhook} class implements the {@link Webhook} interface
  * and allows sending HTTP POST requests with a JSON payload to a specified URL,
  * both synchronously and asynchronously.
+ * <p>
+ * Requests are sent through a shared {@link WebhookTransport}, so repeated sends reuse warm connections.
+ * The payload is encoded once and the request is prepared on the first execution and reused afterwards.
  */
 public class IncomingWebhook implements Webhook {
 
     private final String url;
-    private final String payload;
+    private final byte[] payload;
+    private final WebhookTransport transport;
+    private volatile HttpRequest request;
 
     /**
      * Creates a new instance of {@code IncomingWebhook} with the specified URL and payload.
@@ -26,39 +32,147 @@ public class IncomingWebhook implements Webhook {
      * @param payload the JSON payload to send
      */
     protected IncomingWebhook(String url, String payload) {
+        this(url, payload, WebhookTransport.getDefault());
+    }
+
+    /**
+     * Creates a new instance of {@code IncomingWebhook} that sends through the given transport.
+     *
+     * Use {@link IncomingWebhookBuilder} to create an instance of this class.
+     *
+     * @param url       the target URL for the webhook
+     * @param payload   the JSON payload to send
+     * @param transport the transport used to send the payload
+     */
+    protected IncomingWebhook(String url, String payload, WebhookTransport transport) {
+        this(url, payload.getBytes(StandardCharsets.UTF_8), transport);
+    }
+
+    /**
+     * Creates a new instance of {@code IncomingWebhook} with an already UTF-8 encoded payload.
+     * The array is taken over without copying and must not be modified afterwards.
+     *
+     * Use {@link IncomingWebhookBuilder} to create an instance of this class.
+     *
+     * @param url       the target URL for the webhook
+     * @param payload   the UTF-8 encoded JSON payload to send
+     * @param transport the transport used to send the payload
+     */
+    protected IncomingWebhook(String url, byte[] payload, WebhookTransport transport) {
         this.url = url;
         this.payload = payload;
+        this.transport = transport;
     }
 
+    @Override
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Returns the JSON payload of this webhook, decoded from its UTF-8 bytes.
+     *
+     * @return the JSON payload
+     */
+    public String getPayload() {
+        return new String(payload, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns a copy of the UTF-8 encoded JSON payload of this webhook.
+     *
+     * @return the encoded payload
+     */
+    public byte[] getPayloadBytes() {
+        return payload.clone();
+    }
+
+    /**
+     * Returns the size of the UTF-8 encoded payload in bytes, as sent over the wire.
+     *
+     * @return the encoded payload size
+     */
+    public int getPayloadSize() {
+        return payload.length;
+    }
+
+    /**
+     * Returns the transport used to send this webhook.
+     *
+     * @return the webhook transport
+     */
+    public WebhookTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * Returns the prepared request, creating it on first use. The request is immutable and reused for
+     * every execution.
+     *
+     * @return the prepared HTTP request
+     * @throws IllegalArgumentException if the URL is not a valid URI
+     * @throws NullPointerException     if the URL is {@code null}
+     */
+    public HttpRequest getRequest() {
+        HttpRequest prepared = request;
+        if (prepared == null) {
+            prepared = transport.newRequest(transport.resolve(Objects.requireNonNull(url, "url")))
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(payload))
+                    .build();
+            request = prepared;
+        }
+        return prepared;
+    }
+
+    /**
+     * Returns the encoded payload without copying. Callers must not modify the array.
+     *
+     * @return the encoded payload
+     */
+    byte[] payload() {
+        return payload;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws WebhookException         if the request fails with an I/O error
+     * @throws IllegalArgumentException if the URL is not a valid URI
+     */
     @Override
     public HttpResponse<String> execute() throws InterruptedException {
+        HttpRequest request = getRequest();
+        WebhookMetrics.Instruments metrics = WebhookMetrics.instruments();
+        long start = metrics.sendStarted();
+        HttpResponse<String> response = null;
         try {
-            HttpClient client = HttpClient.newHttpClient();
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(payload))
-                    .build();
-            return client.send(request, HttpResponse.BodyHandlers.ofString());
+            response = transport.getClient().send(request, HttpResponse.BodyHandlers.ofString());
+            return response;
         } catch (IOException e) {
-            e.printStackTrace();
-            throw new RuntimeException(e);
+            throw new WebhookException(url, "Sending webhook failed", e);
+        } finally {
+            metrics.sendFinished(start, response);
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * I/O errors complete the future exceptionally with a {@link WebhookException}.
+     *
+     * @throws IllegalArgumentException if the URL is not a valid URI
+     */
     @Override
     public CompletableFuture<HttpResponse<String>> executeAsync() {
-        try {
-            HttpClient client = HttpClient.newHttpClient();
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(payload))
-                    .build();
-            return client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
-        } catch (Exception e) {
-            e.printStackTrace();
-            throw new RuntimeException(e);
-        }
+        HttpRequest request = getRequest();
+        WebhookMetrics.Instruments metrics = WebhookMetrics.instruments();
+        long start = metrics.sendStarted();
+        return transport.getClient().sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, e) -> metrics.sendFinished(start, response))
+                .exceptionallyCompose(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    return CompletableFuture.failedFuture(cause instanceof IOException
+                            ? new WebhookException(url, "Sending webhook failed", cause)
+                            : cause);
+                });
     }
 }
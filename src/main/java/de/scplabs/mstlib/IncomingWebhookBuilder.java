@@ -1,24 +1,53 @@
 package de.scplabs.mstlib;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import de.scplabs.mstlib.cardobjects.*;
+import de.scplabs.mstlib.json.JsonToken;
+import de.scplabs.mstlib.json.JsonWritable;
+import de.scplabs.mstlib.json.JsonWriter;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
 
 /**
  * Builder class for creating {@link IncomingWebhook} instances with adaptive card payloads.
  * Provides methods to add various card elements and construct the final webhook.
  */
-public class IncomingWebhookBuilder implements CardParent<IncomingWebhookBuilder> {
+public class IncomingWebhookBuilder implements CardParent<IncomingWebhookBuilder>, JsonWritable {
+
+    private static final JsonToken ATTACHMENTS = JsonToken.of("attachments");
+    private static final JsonToken CONTENT_TYPE = JsonToken.of("contentType");
+    private static final JsonToken CONTENT = JsonToken.of("content");
+    private static final JsonToken SCHEMA = JsonToken.of("$schema");
+    private static final JsonToken FALLBACK_TEXT = JsonToken.of("fallbackText");
+    private static final JsonToken TYPE = JsonToken.of("type");
+    private static final JsonToken BODY = JsonToken.of("body");
+    private static final JsonToken VERSION = JsonToken.of("version");
+    private static final JsonToken ADAPTIVE_CARD_CONTENT_TYPE = JsonToken.of("application/vnd.microsoft.card.adaptive");
+    private static final JsonToken SCHEMA_URL = JsonToken.of("http://adaptivecards.io/schemas/adaptive-card.json");
+    private static final JsonToken FALLBACK = JsonToken.of("Version 1.5 not supported by client");
+    private static final JsonToken ADAPTIVE_CARD = JsonToken.of("AdaptiveCard");
+    private static final JsonToken CARD_VERSION = JsonToken.of("1.5");
+    private static final JsonToken MESSAGE = JsonToken.of("message");
+
+    /** Approximate payload size in bytes above which Teams rejects incoming webhook messages. */
+    public static final int MAX_PAYLOAD_SIZE = 28 * 1024;
 
     /** List holding the body elements of the adaptive card. */
     private final List<Object> body = new ArrayList<>();
     /** The target URL for the webhook. */
     private final String url;
+    /** The transport used by built webhooks. */
+    private WebhookTransport transport = WebhookTransport.getDefault();
+    /** The pool encoding large bodies in parallel, or {@code null} to encode sequentially. */
+    private ForkJoinPool pool;
+    /** The number of body elements and table rows from which the body is encoded in parallel. */
+    private int parallelThreshold = 1000;
 
     /**
      * Constructs a new {@code IncomingWebhookBuilder} with the specified URL.
@@ -29,6 +58,76 @@ public class IncomingWebhookBuilder implements CardParent<IncomingWebhookBuilder
         this.url = url;
     }
 
+    /**
+     * Returns the target URL of the webhook.
+     *
+     * @return the target URL
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Returns the transport used by the webhooks built by this builder.
+     *
+     * @return the transport
+     */
+    public WebhookTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * Sets the transport used by the webhooks built by this builder.
+     * Defaults to {@link WebhookTransport#getDefault()}.
+     *
+     * @param transport the shared transport
+     * @return this builder for method chaining
+     */
+    public IncomingWebhookBuilder setTransport(WebhookTransport transport) {
+        this.transport = transport;
+        return this;
+    }
+
+    /**
+     * Enables encoding large card bodies in parallel on the common fork-join pool.
+     * Body elements and the rows of large tables are encoded into separate buffers in parallel
+     * and then stitched together; the result is identical to sequential encoding.
+     *
+     * @param parallel true to encode large bodies in parallel, false to always encode sequentially
+     * @return this builder for method chaining
+     * @see #setParallelThreshold(int)
+     */
+    public IncomingWebhookBuilder setParallel(boolean parallel) {
+        return setForkJoinPool(parallel ? ForkJoinPool.commonPool() : null);
+    }
+
+    /**
+     * Sets the fork-join pool encoding large card bodies in parallel, or {@code null} to encode sequentially.
+     *
+     * @param pool the fork-join pool
+     * @return this builder for method chaining
+     */
+    public IncomingWebhookBuilder setForkJoinPool(ForkJoinPool pool) {
+        this.pool = pool;
+        return this;
+    }
+
+    /**
+     * Sets the number of body elements, counting the rows of tables, from which the body is encoded
+     * in parallel. Smaller bodies are encoded sequentially, since forking would cost more than it saves.
+     * Defaults to 1000.
+     *
+     * @param parallelThreshold the minimum number of elements and table rows
+     * @return this builder for method chaining
+     */
+    public IncomingWebhookBuilder setParallelThreshold(int parallelThreshold) {
+        if (parallelThreshold < 1) {
+            throw new IllegalArgumentException("parallelThreshold must be positive");
+        }
+        this.parallelThreshold = parallelThreshold;
+        return this;
+    }
+
     /**
      * Adds a new {@link ColumnSet} to the card body.
      *
@@ -96,6 +195,34 @@ public class IncomingWebhookBuilder implements CardParent<IncomingWebhookBuilder
         return table;
     }
 
+    /**
+     * Adds a new {@link StreamingTable} to the card body whose rows are read from an iterator
+     * when the card is written.
+     *
+     * @param rows the row values
+     * @param <R>  the type of the row values
+     * @return the created {@code StreamingTable}
+     */
+    public <R> StreamingTable<IncomingWebhookBuilder, R> addStreamingTable(Iterator<? extends R> rows) {
+        StreamingTable<IncomingWebhookBuilder, R> table = new StreamingTable<>(this, rows, null);
+        body.add(table);
+        return table;
+    }
+
+    /**
+     * Adds a new {@link StreamingTable} to the card body whose rows are read from a stream
+     * when the card is written. The stream is closed once its rows were written.
+     *
+     * @param rows the row values
+     * @param <R>  the type of the row values
+     * @return the created {@code StreamingTable}
+     */
+    public <R> StreamingTable<IncomingWebhookBuilder, R> addStreamingTable(Stream<? extends R> rows) {
+        StreamingTable<IncomingWebhookBuilder, R> table = new StreamingTable<>(this, rows.iterator(), rows);
+        body.add(table);
+        return table;
+    }
+
     /**
      * Adds a new {@link TextBlock} to the card body.
      *
@@ -130,12 +257,211 @@ public class IncomingWebhookBuilder implements CardParent<IncomingWebhookBuilder
         return tb;
     }
 
+    /**
+     * Adds a frozen element to the card body. The element is written from its cached bytes.
+     *
+     * @param element the frozen element
+     * @return this builder for method chaining
+     */
+    public IncomingWebhookBuilder add(FrozenElement element) {
+        body.add(Objects.requireNonNull(element, "element"));
+        return this;
+    }
+
+    /**
+     * Freezes the card into an immutable snapshot that caches the encoded bytes of the payload and of
+     * each body element. Later changes to this builder do not affect the snapshot.
+     *
+     * @return the frozen card
+     */
+    public FrozenCard freeze() {
+        encodeInParallel();
+        List<FrozenElement> elements = new ArrayList<>(body.size());
+        for (Object element : body) {
+            elements.add(FrozenElement.of((JsonWritable) element));
+        }
+        JsonWriter out = new JsonWriter();
+        writeJson(out, elements);
+        return new FrozenCard(url, transport, elements, out.toByteArray());
+    }
+
     /**
      * Builds the {@link IncomingWebhook} with the configured card elements and URL.
      *
-     * @return the constructed {@code IncomingWebhook}, or {@code null} if JSON serialization fails
+     * @return the constructed {@code IncomingWebhook}
+     * @throws RuntimeException if encoding the card fails, for example because a streaming table's rows cannot be read
      */
     public IncomingWebhook build() {
+        WebhookMetrics.Instruments metrics = WebhookMetrics.instruments();
+        long start = metrics.start();
+        try {
+            encodeInParallel();
+            JsonWriter out = new JsonWriter();
+            writeJson(out);
+            metrics.serialized(start);
+            IncomingWebhook webhook = new IncomingWebhook(url, out.toByteArray(), transport);
+            metrics.built(start, webhook.getPayloadSize());
+            return webhook;
+        }
+        catch (RuntimeException e) {
+            metrics.buildFailed();
+            throw e;
+        }
+    }
+
+    /**
+     * Builds the card as a sequence of webhooks that each stay below {@link #MAX_PAYLOAD_SIZE}.
+     *
+     * @return the sequence of webhooks
+     * @see #buildSplit(int)
+     */
+    public WebhookSequence buildSplit() {
+        return buildSplit(MAX_PAYLOAD_SIZE);
+    }
+
+    /**
+     * Builds the card as a sequence of webhooks whose payloads each stay below the given size.
+     * <p>
+     * Body elements are measured once and packed in order into as few messages as possible.
+     * An element too large for a message on its own is divided if it is {@link Splittable}:
+     * tables are split by rows, repeating the header row when {@code firstRowAsHeader} is set,
+     * and fact sets by facts. A card that fits results in a sequence with a single webhook.
+     *
+     * @param maxPayloadSize the maximum encoded payload size in bytes
+     * @return the sequence of webhooks
+     * @throws IllegalArgumentException if a body element that cannot be split, or a single table row or fact,
+     *                                  does not fit into a message on its own
+     * @throws RuntimeException         if encoding the card fails, for example because a streaming table's rows
+     *                                  cannot be read
+     */
+    public WebhookSequence buildSplit(int maxPayloadSize) {
+        WebhookMetrics.Instruments metrics = WebhookMetrics.instruments();
+        long start = metrics.start();
+        try {
+            encodeInParallel();
+            JsonWriter out = new JsonWriter();
+            writeJson(out, List.of());
+            MessagePacker packer = new MessagePacker(maxPayloadSize - out.size());
+            for (Object element : body) {
+                byte[] encoded = encode(out, element);
+                if (encoded.length > packer.budget && element instanceof Splittable splittable) {
+                    for (JsonWritable part : splittable.split(packer.budget)) {
+                        packer.add(encode(out, part));
+                    }
+                } else {
+                    packer.add(encoded);
+                }
+            }
+            List<IncomingWebhook> parts = new ArrayList<>();
+            for (List<JsonWritable> message : packer.finish()) {
+                out.reset();
+                writeJson(out, message);
+                parts.add(new IncomingWebhook(url, out.toByteArray(), transport));
+            }
+            metrics.serialized(start);
+            for (IncomingWebhook part : parts) {
+                metrics.payload(part.getPayloadSize());
+            }
+            // one build call, however many messages it produced
+            metrics.built(start);
+            return new WebhookSequence(parts);
+        }
+        catch (RuntimeException e) {
+            metrics.buildFailed();
+            throw e;
+        }
+    }
+
+    /**
+     * Encodes the body elements in parallel if enabled and the body is large enough,
+     * so writing the card afterwards only copies their cached fragments.
+     */
+    private void encodeInParallel() {
+        if (pool != null && ParallelEncoder.countItems(body) >= parallelThreshold) {
+            pool.invoke(new ParallelEncoder(body));
+        }
+    }
+
+    private static byte[] encode(JsonWriter out, Object element) {
+        out.reset();
+        out.value(element);
+        return out.toByteArray();
+    }
+
+    /**
+     * Packs encoded body elements in order into messages whose bodies stay within a byte budget.
+     */
+    private static final class MessagePacker {
+
+        private final int budget;
+        private final List<List<JsonWritable>> messages = new ArrayList<>();
+        private List<JsonWritable> current = new ArrayList<>();
+        private int size;
+
+        private MessagePacker(int budget) {
+            this.budget = budget;
+        }
+
+        void add(byte[] element) {
+            if (element.length > budget) {
+                throw new IllegalArgumentException("Body element of " + element.length
+                        + " bytes does not fit into a message with " + budget + " bytes for the body");
+            }
+            // one byte for the separating comma
+            if (!current.isEmpty() && size + 1 + element.length > budget) {
+                messages.add(current);
+                current = new ArrayList<>();
+                size = 0;
+            }
+            size += (current.isEmpty() ? 0 : 1) + element.length;
+            current.add(out -> out.rawValue(element));
+        }
+
+        List<List<JsonWritable>> finish() {
+            messages.add(current);
+            return messages;
+        }
+    }
+
+    /**
+     * Writes the message payload wrapping the adaptive card.
+     * The member order matches the Jackson serialization of {@link #toPayload()}.
+     *
+     * @param out the writer to write to
+     */
+    @Override
+    public void writeJson(JsonWriter out) {
+        writeJson(out, body);
+    }
+
+    private void writeJson(JsonWriter out, List<?> body) {
+        out.beginObject()
+                .name(ATTACHMENTS).beginArray()
+                .beginObject()
+                .field(CONTENT_TYPE, ADAPTIVE_CARD_CONTENT_TYPE)
+                .name(CONTENT).beginObject()
+                .field(SCHEMA, SCHEMA_URL)
+                .field(FALLBACK_TEXT, FALLBACK)
+                .field(TYPE, ADAPTIVE_CARD)
+                .name(BODY).beginArray();
+        for (Object element : body) {
+            out.value(element);
+        }
+        out.endArray()
+                .field(VERSION, CARD_VERSION)
+                .endObject()
+                .endObject()
+                .endArray()
+                .field(TYPE, MESSAGE)
+                .endObject();
+    }
+
+    /**
+     * Creates the message payload wrapping the adaptive card as a map structure for Jackson.
+     *
+     * @return the payload as a map structure
+     */
+    Map<String, Object> toPayload() {
         Map<String, Object> card = new HashMap<>();
         card.put("$schema", "http://adaptivecards.io/schemas/adaptive-card.json");
         card.put("type", "AdaptiveCard");
@@ -151,14 +477,6 @@ public class IncomingWebhookBuilder implements CardParent<IncomingWebhookBuilder
                         "content", card
                 )
         ));
-
-        ObjectMapper mapper = new ObjectMapper();
-        try {
-            return new IncomingWebhook(url, mapper.writeValueAsString(payload));
-        }
-        catch (JsonProcessingException e) {
-            e.printStackTrace();
-            return null;
-        }
+        return payload;
     }
 }
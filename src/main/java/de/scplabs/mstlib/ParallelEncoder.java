@@ -0,0 +1,74 @@
+package de.scplabs.mstlib;
+
+import de.scplabs.mstlib.cardobjects.CardObject;
+import de.scplabs.mstlib.cardobjects.Table;
+import de.scplabs.mstlib.json.JsonWriter;
+
+import java.io.Serial;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Encodes card elements on a fork-join pool, dividing the elements and the rows of large tables into ranges.
+ * <p>
+ * Every element caches its encoded fragment when it is written, so after this task completed,
+ * writing the card sequentially only stitches the cached fragments together.
+ */
+final class ParallelEncoder extends RecursiveAction {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /** Number of elements encoded by a single task. */
+    private static final int LEAF_SIZE = 32;
+
+    private final List<?> elements;
+    private final int from;
+    private final int to;
+
+    ParallelEncoder(List<?> elements) {
+        this(elements, 0, elements.size());
+    }
+
+    private ParallelEncoder(List<?> elements, int from, int to) {
+        this.elements = elements;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Returns the number of elements that would be encoded in parallel: the elements and the rows of tables.
+     *
+     * @param elements the body elements of a card
+     * @return the number of parallel work items
+     */
+    static int countItems(List<?> elements) {
+        int count = elements.size();
+        for (Object element : elements) {
+            if (element instanceof Table<?> table) {
+                count += table.getRows().size();
+            }
+        }
+        return count;
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from > LEAF_SIZE) {
+            int middle = (from + to) >>> 1;
+            invokeAll(new ParallelEncoder(elements, from, middle), new ParallelEncoder(elements, middle, to));
+            return;
+        }
+        JsonWriter out = new JsonWriter();
+        for (int i = from; i < to; i++) {
+            Object element = elements.get(i);
+            if (element instanceof Table<?> table && table.getRows().size() > LEAF_SIZE) {
+                new ParallelEncoder(table.getRows()).invoke();
+            }
+            if (element instanceof CardObject<?, ?> card) {
+                out.reset();
+                card.writeJson(out);
+            }
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package de.scplabs.mstlib;
+
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code RetryPolicy} class retries failed webhook executions with exponential backoff and jitter.
+ * <p>
+ * An execution is retried when it fails with a {@link WebhookException} or when the response status
+ * is retryable ({@code 408}, {@code 429} and {@code 5xx} by default). A {@code Retry-After} header longer
+ * than the computed backoff is honored up to the maximum backoff. Executions rejected by an open
+ * {@link CircuitBreaker} are never retried, so wrap the circuit breaker inside the retry policy:
+ * <pre>{@code
+ * Webhook webhook = retryPolicy.wrap(circuitBreaker.wrap(builder.build()));
+ * }</pre>
+ */
+public class RetryPolicy {
+
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final double multiplier;
+    private final double jitter;
+    private final Set<Integer> retryableStatuses;
+    private final boolean retryServerErrors;
+
+    private RetryPolicy(Builder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.initialBackoffNanos = builder.initialBackoff.toNanos();
+        this.maxBackoffNanos = builder.maxBackoff.toNanos();
+        this.multiplier = builder.multiplier;
+        this.jitter = builder.jitter;
+        this.retryableStatuses = Set.copyOf(builder.retryableStatuses);
+        this.retryServerErrors = builder.retryServerErrors;
+    }
+
+    /**
+     * Creates a new builder for configuring a retry policy.
+     *
+     * @return a new {@code Builder}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Wraps a webhook so failed executions are retried according to this policy.
+     *
+     * @param webhook the webhook to wrap
+     * @return the retrying webhook
+     */
+    public Webhook wrap(Webhook webhook) {
+        return new RetryingWebhook(webhook);
+    }
+
+    /**
+     * Returns whether a response status should be retried.
+     *
+     * @param status the HTTP status code
+     * @return {@code true} if the status is retryable
+     */
+    public boolean isRetryable(int status) {
+        return retryableStatuses.contains(status) || (retryServerErrors && status >= 500 && status < 600);
+    }
+
+    /**
+     * Returns whether a failure should be retried.
+     *
+     * @param failure the exception thrown by the execution
+     * @return {@code true} if the failure is retryable
+     */
+    public boolean isRetryable(Throwable failure) {
+        return failure instanceof WebhookException && !(failure instanceof CircuitOpenException);
+    }
+
+    /**
+     * Computes the delay before the given retry.
+     *
+     * @param retry    the number of the retry, starting at 1
+     * @param response the response of the failed attempt, or {@code null} if it failed with an exception
+     * @return the delay in nanoseconds
+     */
+    long backoffNanos(int retry, HttpResponse<?> response) {
+        double backoff = Math.min(maxBackoffNanos, initialBackoffNanos * Math.pow(multiplier, retry - 1));
+        long delay = (long) (backoff * (1 - jitter * ThreadLocalRandom.current().nextDouble()));
+        if (response != null) {
+            long retryAfter = WebhookRateLimiter.parseRetryAfter(response.headers().firstValue("Retry-After"))
+                    .map(Duration::toNanos)
+                    .orElse(0L);
+            delay = Math.max(delay, Math.min(retryAfter, maxBackoffNanos));
+        }
+        return delay;
+    }
+
+    /**
+     * A webhook decorator that retries failed executions.
+     */
+    private final class RetryingWebhook implements Webhook {
+
+        private final Webhook delegate;
+
+        private RetryingWebhook(Webhook delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String getUrl() {
+            return delegate.getUrl();
+        }
+
+        @Override
+        public HttpResponse<String> execute() throws InterruptedException {
+            for (int attempt = 1; ; attempt++) {
+                HttpResponse<String> response;
+                try {
+                    response = delegate.execute();
+                } catch (RuntimeException e) {
+                    if (attempt >= maxAttempts || !isRetryable(e)) {
+                        throw e;
+                    }
+                    TimeUnit.NANOSECONDS.sleep(backoffNanos(attempt, null));
+                    continue;
+                }
+                if (attempt >= maxAttempts || !isRetryable(response.statusCode())) {
+                    return response;
+                }
+                TimeUnit.NANOSECONDS.sleep(backoffNanos(attempt, response));
+            }
+        }
+
+        @Override
+        public CompletableFuture<HttpResponse<String>> executeAsync() {
+            return attemptAsync(1);
+        }
+
+        private CompletableFuture<HttpResponse<String>> attemptAsync(int attempt) {
+            CompletableFuture<HttpResponse<String>> result;
+            try {
+                result = delegate.executeAsync();
+            } catch (RuntimeException e) {
+                result = CompletableFuture.failedFuture(e);
+            }
+            return result.handle((response, failure) -> {
+                Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                        ? failure.getCause()
+                        : failure;
+                if (attempt >= maxAttempts
+                        || (cause != null && !isRetryable(cause))
+                        || (cause == null && !isRetryable(response.statusCode()))) {
+                    return cause != null
+                            ? CompletableFuture.<HttpResponse<String>>failedFuture(cause)
+                            : CompletableFuture.completedFuture(response);
+                }
+                long delay = backoffNanos(attempt, response);
+                return CompletableFuture.supplyAsync(() -> null,
+                                CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS))
+                        .thenCompose(ignored -> attemptAsync(attempt + 1));
+            }).thenCompose(future -> future);
+        }
+    }
+
+    /**
+     * Builder class for {@link RetryPolicy} instances.
+     */
+    public static class Builder {
+
+        private int maxAttempts = 3;
+        private Duration initialBackoff = Duration.ofMillis(500);
+        private Duration maxBackoff = Duration.ofSeconds(30);
+        private double multiplier = 2;
+        private double jitter = 0.5;
+        private Set<Integer> retryableStatuses = Set.of(408, 429);
+        private boolean retryServerErrors = true;
+
+        private Builder() { }
+
+        /**
+         * Sets the maximum number of attempts, including the first execution.
+         *
+         * @param maxAttempts the maximum number of attempts
+         * @return this builder for method chaining
+         */
+        public Builder setMaxAttempts(int maxAttempts) {
+            if (maxAttempts < 1) {
+                throw new IllegalArgumentException("maxAttempts must be positive");
+            }
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * Sets the delay before the first retry.
+         *
+         * @param initialBackoff the initial backoff
+         * @return this builder for method chaining
+         */
+        public Builder setInitialBackoff(Duration initialBackoff) {
+            this.initialBackoff = initialBackoff;
+            return this;
+        }
+
+        /**
+         * Sets the upper bound of the backoff.
+         *
+         * @param maxBackoff the maximum backoff
+         * @return this builder for method chaining
+         */
+        public Builder setMaxBackoff(Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+            return this;
+        }
+
+        /**
+         * Sets the factor the backoff grows by with each retry.
+         *
+         * @param multiplier the backoff multiplier, at least 1
+         * @return this builder for method chaining
+         */
+        public Builder setMultiplier(double multiplier) {
+            if (!(multiplier >= 1)) {
+                throw new IllegalArgumentException("multiplier must be at least 1");
+            }
+            this.multiplier = multiplier;
+            return this;
+        }
+
+        /**
+         * Sets the jitter as the fraction of the backoff that is randomly removed, between 0 and 1.
+         *
+         * @param jitter the jitter fraction
+         * @return this builder for method chaining
+         */
+        public Builder setJitter(double jitter) {
+            if (!(jitter >= 0 && jitter <= 1)) {
+                throw new IllegalArgumentException("jitter must be between 0 and 1");
+            }
+            this.jitter = jitter;
+            return this;
+        }
+
+        /**
+         * Sets the individual status codes that are retried, in addition to server errors.
+         *
+         * @param statuses the retryable status codes
+         * @return this builder for method chaining
+         */
+        public Builder setRetryableStatuses(Set<Integer> statuses) {
+            this.retryableStatuses = statuses;
+            return this;
+        }
+
+        /**
+         * Sets whether all {@code 5xx} server errors are retried.
+         *
+         * @param retryServerErrors true to retry server errors, false otherwise
+         * @return this builder for method chaining
+         */
+        public Builder setRetryServerErrors(boolean retryServerErrors) {
+            this.retryServerErrors = retryServerErrors;
+            return this;
+        }
+
+        /**
+         * Creates the retry policy.
+         *
+         * @return the new {@code RetryPolicy}
+         */
+        public RetryPolicy build() {
+            return new RetryPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package de.scplabs.mstlib;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@code VirtualThreads} class creates the threads used by the virtual-thread execution mode.
+ * <p>
+ * The library is a multi-release JAR: on Java 21 and later a variant of this class creating virtual threads
+ * is loaded. This variant is used on older runtimes and falls back to daemon platform threads,
+ * so enabling the mode is always safe.
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() { }
+
+    /**
+     * Returns whether the runtime supports virtual threads.
+     *
+     * @return {@code true} if threads created by this class are virtual
+     */
+    public static boolean isSupported() {
+        return false;
+    }
+
+    /**
+     * Creates a thread factory naming its threads with the given prefix followed by a counter.
+     *
+     * @param prefix the thread name prefix
+     * @return a factory creating virtual threads, or daemon platform threads if virtual threads are not supported
+     */
+    public static ThreadFactory newThreadFactory(String prefix) {
+        AtomicInteger ids = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + ids.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Creates an executor running each task in its own thread.
+     *
+     * @param prefix the thread name prefix
+     * @return a thread-per-task executor using virtual threads, or a cached pool of daemon platform threads
+     *         if virtual threads are not supported
+     */
+    public static ExecutorService newExecutor(String prefix) {
+        return Executors.newCachedThreadPool(newThreadFactory(prefix));
+    }
+}
@@ -23,4 +23,13 @@ public interface Webhook {
      * @return a {@code CompletableFuture} with the HTTP response as {@code HttpResponse<String>}
      */
     CompletableFuture<HttpResponse<String>> executeAsync();
+
+    /**
+     * Returns the target URL of the webhook, used to apply per-channel policies such as rate limits.
+     *
+     * @return the target URL, or {@code null} if it is unknown
+     */
+    default String getUrl() {
+        return null;
+    }
 }
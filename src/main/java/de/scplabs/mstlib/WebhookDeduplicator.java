@@ -0,0 +1,268 @@
+package de.scplabs.mstlib;
+
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * The {@code WebhookDeduplicator} class suppresses byte-identical messages to the same URL within a time-to-live.
+ * <p>
+ * Each message is identified by a 128-bit key made of two xxHash64 values over the target URL and the
+ * encoded payload, so the payload itself is never retained. A duplicate of a message that was accepted
+ * within the TTL is not sent again; it returns the response of the original send, and a duplicate of a
+ * message still in flight waits for that send. Failed sends (exceptions and responses without a
+ * {@code 2xx} status) are forgotten, so a later duplicate is sent again.
+ * <p>
+ * Keys are kept in a least-recently-used map of bounded size, so memory stays fixed regardless of how
+ * many distinct messages pass through. Only {@link IncomingWebhook} instances carry a payload; wrap them
+ * before any retry or rate-limiting decorator:
+ * <pre>{@code
+ * Webhook webhook = retryPolicy.wrap(deduplicator.wrap(builder.build()));
+ * }</pre>
+ */
+public class WebhookDeduplicator {
+
+    private static final long SEED_HIGH = 0x6D73746C69624831L;
+    private static final long SEED_LOW = 0x6D73746C6962484CL;
+
+    private final long ttlNanos;
+    /** Keys by recency of use, guarded by {@code this}. */
+    private final Map<Key, Entry> entries;
+
+    private WebhookDeduplicator(Builder builder) {
+        this.ttlNanos = builder.ttl.toNanos();
+        int maximumSize = builder.maximumSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > maximumSize;
+            }
+        };
+    }
+
+    /**
+     * Creates a new builder for configuring a deduplicator.
+     *
+     * @return a new {@code Builder}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Wraps a webhook so duplicates of it are suppressed. Webhooks other than {@link IncomingWebhook}
+     * are returned unchanged, since their payload is unknown.
+     *
+     * @param webhook the webhook to wrap
+     * @return the deduplicating webhook
+     */
+    public Webhook wrap(Webhook webhook) {
+        if (webhook instanceof IncomingWebhook incoming) {
+            return new DeduplicatingWebhook(incoming, keyOf(incoming.getUrl(), incoming.payload()));
+        }
+        return webhook;
+    }
+
+    /**
+     * Returns whether a message with the given URL and payload was accepted or is in flight within the TTL.
+     *
+     * @param url     the webhook URL
+     * @param payload the encoded payload
+     * @return {@code true} if sending the message again would be suppressed
+     */
+    public boolean isDuplicate(String url, byte[] payload) {
+        Key key = keyOf(url, payload);
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            return entry != null && !entry.isExpired(System.nanoTime());
+        }
+    }
+
+    /**
+     * Returns the number of remembered messages, including expired ones not evicted yet.
+     *
+     * @return the number of cache entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Forgets all remembered messages.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    private static Key keyOf(String url, byte[] payload) {
+        byte[] urlBytes = url == null ? new byte[0] : url.getBytes(StandardCharsets.UTF_8);
+        long high = XxHash64.hash(payload, 0, payload.length, XxHash64.hash(urlBytes, 0, urlBytes.length, SEED_HIGH));
+        long low = XxHash64.hash(payload, 0, payload.length, XxHash64.hash(urlBytes, 0, urlBytes.length, SEED_LOW));
+        return new Key(high, low);
+    }
+
+    /**
+     * Registers a send for the key.
+     *
+     * @return the future of an earlier send if the message is a duplicate, otherwise {@code null}
+     *         after the given future was registered
+     */
+    private synchronized CompletableFuture<HttpResponse<String>> claim(Key key,
+                                                                      CompletableFuture<HttpResponse<String>> future) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(key);
+        if (entry != null && !entry.isExpired(now)) {
+            return entry.response;
+        }
+        entries.put(key, new Entry(future, now + ttlNanos));
+        return null;
+    }
+
+    private void complete(Key key, CompletableFuture<HttpResponse<String>> future,
+                          HttpResponse<String> response, Throwable failure) {
+        if (failure != null || response.statusCode() < 200 || response.statusCode() >= 300) {
+            synchronized (this) {
+                Entry entry = entries.get(key);
+                if (entry != null && entry.response == future) {
+                    entries.remove(key);
+                }
+            }
+        }
+        if (failure != null) {
+            future.completeExceptionally(failure);
+        } else {
+            future.complete(response);
+        }
+    }
+
+    /**
+     * The 128-bit identity of a message.
+     */
+    private record Key(long high, long low) { }
+
+    /**
+     * The response of a remembered message and the time it expires.
+     */
+    private record Entry(CompletableFuture<HttpResponse<String>> response, long expiresAt) {
+        boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+
+    /**
+     * A webhook decorator that sends its message only if it is not a duplicate.
+     */
+    private final class DeduplicatingWebhook implements Webhook {
+
+        private final Webhook delegate;
+        private final Key key;
+
+        private DeduplicatingWebhook(Webhook delegate, Key key) {
+            this.delegate = delegate;
+            this.key = key;
+        }
+
+        @Override
+        public String getUrl() {
+            return delegate.getUrl();
+        }
+
+        @Override
+        public HttpResponse<String> execute() throws InterruptedException {
+            CompletableFuture<HttpResponse<String>> future = new CompletableFuture<>();
+            CompletableFuture<HttpResponse<String>> original = claim(key, future);
+            if (original != null) {
+                try {
+                    return original.get();
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof RuntimeException runtime
+                            ? runtime
+                            : new WebhookException(getUrl(), "Sending webhook failed", e.getCause());
+                }
+            }
+            HttpResponse<String> response;
+            try {
+                response = delegate.execute();
+            } catch (Throwable e) {
+                // any throwable must release the claimed entry, or its duplicates would wait forever
+                complete(key, future, null, e);
+                throw e;
+            }
+            complete(key, future, response, null);
+            return response;
+        }
+
+        @Override
+        public CompletableFuture<HttpResponse<String>> executeAsync() {
+            CompletableFuture<HttpResponse<String>> future = new CompletableFuture<>();
+            CompletableFuture<HttpResponse<String>> original = claim(key, future);
+            if (original != null) {
+                // a copy, so callers cannot complete the shared future
+                return original.thenApply(response -> response);
+            }
+            CompletableFuture<HttpResponse<String>> sent;
+            try {
+                sent = delegate.executeAsync();
+            } catch (Throwable e) {
+                complete(key, future, null, e);
+                throw e;
+            }
+            sent.whenComplete((response, failure) -> complete(key, future, response,
+                    failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure));
+            return future.thenApply(response -> response);
+        }
+    }
+
+    /**
+     * Builder class for {@link WebhookDeduplicator} instances.
+     */
+    public static class Builder {
+
+        private Duration ttl = Duration.ofMinutes(10);
+        private int maximumSize = 10_000;
+
+        private Builder() { }
+
+        /**
+         * Sets how long a sent message suppresses its duplicates.
+         *
+         * @param ttl the time-to-live
+         * @return this builder for method chaining
+         */
+        public Builder setTtl(Duration ttl) {
+            if (ttl.isNegative() || ttl.isZero()) {
+                throw new IllegalArgumentException("ttl must be positive");
+            }
+            this.ttl = ttl;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of remembered messages. The least recently used are evicted first.
+         *
+         * @param maximumSize the maximum number of cache entries
+         * @return this builder for method chaining
+         */
+        public Builder setMaximumSize(int maximumSize) {
+            if (maximumSize < 1) {
+                throw new IllegalArgumentException("maximumSize must be positive");
+            }
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * Creates the deduplicator.
+         *
+         * @return the new {@code WebhookDeduplicator}
+         */
+        public WebhookDeduplicator build() {
+            return new WebhookDeduplicator(this);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package de.scplabs.mstlib;
+
+import java.net.http.HttpResponse;
+
+/**
+ * The {@code WebhookDelivery} class holds the outcome of sending one item consumed by a {@link WebhookProcessor}.
+ *
+ * @param <T> the type of the consumed items
+ */
+public final class WebhookDelivery<T> {
+
+    private final T item;
+    private final HttpResponse<String> response;
+    private final Throwable failure;
+
+    WebhookDelivery(T item, HttpResponse<String> response, Throwable failure) {
+        this.item = item;
+        this.response = response;
+        this.failure = failure;
+    }
+
+    /**
+     * Returns the consumed item the webhook was sent for.
+     *
+     * @return the item
+     */
+    public T getItem() {
+        return item;
+    }
+
+    /**
+     * Returns the HTTP response, or {@code null} if the send failed with an exception.
+     *
+     * @return the HTTP response
+     */
+    public HttpResponse<String> getResponse() {
+        return response;
+    }
+
+    /**
+     * Returns the exception the send failed with, or {@code null} if a response was received.
+     *
+     * @return the failure
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    /**
+     * Returns whether a response with a {@code 2xx} status was received.
+     *
+     * @return {@code true} if the webhook was delivered
+     */
+    public boolean isSuccess() {
+        return response != null && response.statusCode() >= 200 && response.statusCode() < 300;
+    }
+
+    @Override
+    public String toString() {
+        return "WebhookDelivery{item=" + item
+                + ", status=" + (response != null ? response.statusCode() : "-")
+                + ", failure=" + failure + "}";
+    }
+}
@@ -0,0 +1,428 @@
+package de.scplabs.mstlib;
+
+import de.scplabs.mstlib.cardobjects.Table;
+import de.scplabs.mstlib.options.FontWeights;
+import de.scplabs.mstlib.options.TextBlockStyles;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * The {@code WebhookDigest} class coalesces many events into a single summary card.
+ * <p>
+ * Events are collected for a time window that starts with the first event after a flush. They are
+ * grouped by a key; per group the digest keeps the number of events, the time of the last event and
+ * the summary of the latest event. When the window ends, or earlier when the event or group cap is
+ * reached, one card is emitted: a heading, a fact set with the totals and a table with one row per
+ * group, ordered by the number of events. During an incident this replaces hundreds of near-identical
+ * messages with one message per window, staying far below the throttling limits of Teams.
+ * <p>
+ * A digest that cannot be built or handed to the sink, or whose default send fails, is reported to the
+ * error handler as a {@link WebhookException}; without a handler, to the uncaught exception handler of
+ * the thread emitting it.
+ * <pre>{@code
+ * WebhookDigest<Alert> digest = WebhookDigest.builder(url, Alert::job)
+ *         .setSummary(Alert::message)
+ *         .setWindow(Duration.ofMinutes(1))
+ *         .setSink(dispatcher::offer)
+ *         .build();
+ * digest.add(alert);
+ * }</pre>
+ *
+ * @param <E> the type of the collected events
+ */
+public class WebhookDigest<E> implements AutoCloseable {
+
+    private static final AtomicInteger DIGEST_IDS = new AtomicInteger();
+
+    private final String url;
+    private final Function<? super E, String> key;
+    private final Function<? super E, String> summary;
+    private final String title;
+    private final long windowNanos;
+    private final int maxEvents;
+    private final int maxGroups;
+    private final DateTimeFormatter timeFormat;
+    private final Consumer<? super Webhook> sink;
+    private final Consumer<? super WebhookException> errorHandler;
+    private final WebhookTransport transport;
+    private final ScheduledExecutorService scheduler;
+    private final boolean ownScheduler;
+
+    /** The groups of the current window in insertion order, guarded by {@code this}. */
+    private Map<String, Group> groups = new LinkedHashMap<>();
+    private int events;
+    private Instant windowStart;
+    private ScheduledFuture<?> windowEnd;
+    private boolean closed;
+
+    private WebhookDigest(Builder<E> builder) {
+        this.url = builder.url;
+        this.key = builder.key;
+        this.summary = builder.summary;
+        this.title = builder.title;
+        this.windowNanos = builder.window.toNanos();
+        this.maxEvents = builder.maxEvents;
+        this.maxGroups = builder.maxGroups;
+        this.timeFormat = DateTimeFormatter.ofPattern("HH:mm:ss").withZone(builder.zone);
+        this.sink = builder.sink != null ? builder.sink : this::send;
+        this.errorHandler = builder.errorHandler;
+        this.transport = builder.transport;
+        this.ownScheduler = builder.scheduler == null;
+        this.scheduler = ownScheduler ? defaultScheduler() : builder.scheduler;
+    }
+
+    /**
+     * Creates a new builder for a digest sending to the given URL.
+     *
+     * @param url the target URL of the digest cards
+     * @param key the function returning the group key of an event
+     * @param <E> the type of the collected events
+     * @return a new {@code Builder}
+     */
+    public static <E> Builder<E> builder(String url, Function<? super E, String> key) {
+        return new Builder<>(url, Objects.requireNonNull(key, "key"));
+    }
+
+    /**
+     * Adds an event to the current window, starting a new window if none is open.
+     * Emits the digest immediately if the event or group cap is reached.
+     *
+     * @param event the event
+     * @throws IllegalStateException if the digest is closed
+     */
+    public void add(E event) {
+        String groupKey = String.valueOf(key.apply(event));
+        String text = summary.apply(event);
+        Instant now = Instant.now();
+        boolean full;
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Digest is closed");
+            }
+            if (windowStart == null) {
+                windowStart = now;
+                windowEnd = scheduler.schedule(this::flush, windowNanos, TimeUnit.NANOSECONDS);
+            }
+            Group group = groups.get(groupKey);
+            if (group == null) {
+                group = new Group(groupKey);
+                groups.put(groupKey, group);
+            }
+            group.count++;
+            group.lastSeen = now;
+            group.latest = text;
+            events++;
+            full = events >= maxEvents || groups.size() >= maxGroups;
+        }
+        if (full) {
+            flush();
+        }
+    }
+
+    /**
+     * Emits the events collected so far as one card and starts over. Does nothing if no events were collected.
+     */
+    public void flush() {
+        Map<String, Group> window;
+        int count;
+        Instant start;
+        synchronized (this) {
+            if (events == 0) {
+                return;
+            }
+            window = groups;
+            count = events;
+            start = windowStart;
+            groups = new LinkedHashMap<>();
+            events = 0;
+            windowStart = null;
+            windowEnd.cancel(false);
+            windowEnd = null;
+        }
+        try {
+            sink.accept(toCard(window, count, start, Instant.now()).buildSplit());
+        } catch (RuntimeException e) {
+            // flush() usually runs on the scheduler, which would discard the exception with the window
+            report(new WebhookException(url, "Emitting digest of " + count + " events failed", e));
+        }
+    }
+
+    /**
+     * Returns the number of events collected in the current window.
+     *
+     * @return the number of pending events
+     */
+    public synchronized int getPendingEvents() {
+        return events;
+    }
+
+    /**
+     * Emits the pending events and stops the digest. Later calls to {@link #add(Object)} fail.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        flush();
+        if (ownScheduler) {
+            scheduler.shutdown();
+        }
+    }
+
+    private void send(Webhook webhook) {
+        webhook.executeAsync().whenComplete((response, failure) -> {
+            if (failure != null) {
+                Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                        ? failure.getCause()
+                        : failure;
+                report(cause instanceof WebhookException e
+                        ? e
+                        : new WebhookException(url, "Sending digest failed", cause));
+            } else if (response.statusCode() < 200 || response.statusCode() >= 300) {
+                report(new WebhookException(url, "Sending digest failed with status " + response.statusCode(), null));
+            }
+        });
+    }
+
+    private void report(WebhookException exception) {
+        if (errorHandler != null) {
+            errorHandler.accept(exception);
+        } else {
+            Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, exception);
+        }
+    }
+
+    private IncomingWebhookBuilder toCard(Map<String, Group> window, int count, Instant start, Instant end) {
+        List<Group> sorted = new ArrayList<>(window.values());
+        // stable sort keeps groups with equal counts in order of appearance
+        sorted.sort((a, b) -> Integer.compare(b.count, a.count));
+
+        IncomingWebhookBuilder builder = new IncomingWebhookBuilder(url).setTransport(transport);
+        builder.addTextBlock(title)
+                .setStyle(TextBlockStyles.HEADING)
+                .setWeight(FontWeights.BOLDER)
+                .setWrap(true).prev()
+                .addFactSet()
+                .addFact("Events", String.valueOf(count))
+                .addFact("Groups", String.valueOf(sorted.size()))
+                .addFact("Window", timeFormat.format(start) + " - " + timeFormat.format(end));
+
+        Table<IncomingWebhookBuilder> table = builder.addTable()
+                .addColumns(2).addColumns(1).addColumns(1).addColumns(4);
+        addRow(table, "Group", "Count", "Last seen", "Latest");
+        for (Group group : sorted) {
+            addRow(table, group.key, String.valueOf(group.count), timeFormat.format(group.lastSeen), group.latest);
+        }
+        return builder;
+    }
+
+    private static void addRow(Table<IncomingWebhookBuilder> table, String... texts) {
+        Table.TableRow<Table<IncomingWebhookBuilder>> row = table.addRows();
+        for (String text : texts) {
+            row.addCell().addTextBlock(text == null ? "" : text).setWrap(true);
+        }
+    }
+
+    private static ScheduledExecutorService defaultScheduler() {
+        String name = "mstlib-digest-" + DIGEST_IDS.incrementAndGet();
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * The statistics of one group within a window.
+     */
+    private static final class Group {
+
+        private final String key;
+        private int count;
+        private Instant lastSeen;
+        private String latest;
+
+        private Group(String key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * Builder class for {@link WebhookDigest} instances.
+     *
+     * @param <E> the type of the collected events
+     */
+    public static class Builder<E> {
+
+        private final String url;
+        private final Function<? super E, String> key;
+        private Function<? super E, String> summary = String::valueOf;
+        private String title = "Alert digest";
+        private Duration window = Duration.ofMinutes(1);
+        private int maxEvents = 1000;
+        private int maxGroups = 100;
+        private ZoneId zone = ZoneId.systemDefault();
+        private Consumer<? super Webhook> sink;
+        private Consumer<? super WebhookException> errorHandler;
+        private WebhookTransport transport = WebhookTransport.getDefault();
+        private ScheduledExecutorService scheduler;
+
+        private Builder(String url, Function<? super E, String> key) {
+            this.url = url;
+            this.key = key;
+        }
+
+        /**
+         * Sets the function returning the text shown for the latest event of a group.
+         * Defaults to {@code String.valueOf(event)}.
+         *
+         * @param summary the summary function
+         * @return this builder for method chaining
+         */
+        public Builder<E> setSummary(Function<? super E, String> summary) {
+            this.summary = Objects.requireNonNull(summary, "summary");
+            return this;
+        }
+
+        /**
+         * Sets the heading of the digest card.
+         *
+         * @param title the heading
+         * @return this builder for method chaining
+         */
+        public Builder<E> setTitle(String title) {
+            this.title = title;
+            return this;
+        }
+
+        /**
+         * Sets how long events are collected before the digest is emitted.
+         *
+         * @param window the window duration
+         * @return this builder for method chaining
+         */
+        public Builder<E> setWindow(Duration window) {
+            if (window.isNegative() || window.isZero()) {
+                throw new IllegalArgumentException("window must be positive");
+            }
+            this.window = window;
+            return this;
+        }
+
+        /**
+         * Sets the number of events after which the digest is emitted before the window ends.
+         *
+         * @param maxEvents the event cap
+         * @return this builder for method chaining
+         */
+        public Builder<E> setMaxEvents(int maxEvents) {
+            if (maxEvents < 1) {
+                throw new IllegalArgumentException("maxEvents must be positive");
+            }
+            this.maxEvents = maxEvents;
+            return this;
+        }
+
+        /**
+         * Sets the number of groups after which the digest is emitted before the window ends.
+         * Each group is one table row, so this cap bounds the size of the card.
+         *
+         * @param maxGroups the group cap
+         * @return this builder for method chaining
+         */
+        public Builder<E> setMaxGroups(int maxGroups) {
+            if (maxGroups < 1) {
+                throw new IllegalArgumentException("maxGroups must be positive");
+            }
+            this.maxGroups = maxGroups;
+            return this;
+        }
+
+        /**
+         * Sets the time zone used to display times on the card. Defaults to the system time zone.
+         *
+         * @param zone the time zone
+         * @return this builder for method chaining
+         */
+        public Builder<E> setZone(ZoneId zone) {
+            this.zone = Objects.requireNonNull(zone, "zone");
+            return this;
+        }
+
+        /**
+         * Sets the consumer receiving each digest webhook, e.g. {@code dispatcher::offer}.
+         * Defaults to sending it with {@link Webhook#executeAsync()} and reporting failed sends to the error handler.
+         *
+         * @param sink the consumer of digest webhooks
+         * @return this builder for method chaining
+         */
+        public Builder<E> setSink(Consumer<? super Webhook> sink) {
+            this.sink = Objects.requireNonNull(sink, "sink");
+            return this;
+        }
+
+        /**
+         * Sets the handler of digests that could not be emitted, or {@code null} to pass them to the
+         * uncaught exception handler of the emitting thread.
+         *
+         * @param errorHandler the handler of failed digests
+         * @return this builder for method chaining
+         */
+        public Builder<E> setErrorHandler(Consumer<? super WebhookException> errorHandler) {
+            this.errorHandler = errorHandler;
+            return this;
+        }
+
+        /**
+         * Sets the transport used by the digest webhooks.
+         *
+         * @param transport the shared transport
+         * @return this builder for method chaining
+         */
+        public Builder<E> setTransport(WebhookTransport transport) {
+            this.transport = Objects.requireNonNull(transport, "transport");
+            return this;
+        }
+
+        /**
+         * Sets the scheduler ending the windows, or {@code null} to use a daemon thread owned by the digest.
+         *
+         * @param scheduler the scheduler
+         * @return this builder for method chaining
+         */
+        public Builder<E> setScheduler(ScheduledExecutorService scheduler) {
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        /**
+         * Creates the digest.
+         *
+         * @return the new {@code WebhookDigest}
+         */
+        public WebhookDigest<E> build() {
+            return new WebhookDigest<>(this);
+        }
+    }
+}
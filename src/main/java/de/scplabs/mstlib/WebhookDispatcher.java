@@ -0,0 +1,464 @@
+package de.scplabs.mstlib;
+
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code WebhookDispatcher} class sends webhooks in the background through a bounded queue
+ * drained by a fixed number of sender threads.
+ * <p>
+ * Producers hand over built webhooks and immediately receive a {@link CompletableFuture} for the
+ * response, so their latency does not depend on the latency of Teams. The queue bounds the number
+ * of pending sends; when it is full, {@link #offer(Webhook)} rejects the webhook and
+ * {@link #submit(Webhook)} waits for free space.
+ * <p>
+ * With a {@link WebhookRateLimiter}, a webhook whose URL has no permit available is put back into
+ * the queue until its lane is ready, so sender threads keep serving other URLs in the meantime.
+ * The parts of a {@link WebhookSequence} are sent one at a time, each with its own permit.
+ * <p>
+ * Each sender blocks for the full round trip of its send. With {@link Builder#setVirtualThreads(boolean)}
+ * the senders are virtual threads on Java 21 and later, so the number of senders, and with it the number
+ * of concurrent sends, can be raised to thousands without a matching number of platform threads.
+ */
+public class WebhookDispatcher implements AutoCloseable {
+
+    private static final AtomicInteger DISPATCHER_IDS = new AtomicInteger();
+
+    private final DelayQueue<Task> queue = new DelayQueue<>();
+    /** Free queue slots; a slot is taken on enqueue and returned when the webhook is picked for sending. */
+    private final Semaphore slots;
+    private final WebhookRateLimiter rateLimiter;
+    private final Thread[] senders;
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Object idleLock = new Object();
+    /** Number of accepted webhooks that are not completed yet, guarded by {@code idleLock}. */
+    private int pending;
+    /** Set once under {@code idleLock}, so no webhook is accepted after {@link #close()} or {@link #shutdownNow()}. */
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private WebhookDispatcher(Builder builder) {
+        this.slots = new Semaphore(builder.capacity);
+        this.rateLimiter = builder.rateLimiter;
+        this.senders = new Thread[builder.senders];
+        ThreadFactory threadFactory = builder.threadFactory != null
+                ? builder.threadFactory
+                : defaultThreadFactory(builder.virtualThreads);
+        for (int i = 0; i < senders.length; i++) {
+            senders[i] = threadFactory.newThread(this::runSender);
+            senders[i].start();
+        }
+    }
+
+    /**
+     * Creates a new builder for configuring a dispatcher.
+     *
+     * @return a new {@code Builder}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Enqueues a webhook without blocking.
+     *
+     * @param webhook the webhook to send
+     * @return a future completed with the response, or completed exceptionally with a
+     *         {@link RejectedExecutionException} if the queue is full or the dispatcher is closed
+     */
+    public CompletableFuture<HttpResponse<String>> offer(Webhook webhook) {
+        if (closed.get() || !slots.tryAcquire()) {
+            return rejected();
+        }
+        CompletableFuture<HttpResponse<String>> future = enqueue(webhook);
+        return future != null ? future : rejected();
+    }
+
+    /**
+     * Enqueues a webhook, waiting up to the given time for free space in the queue.
+     *
+     * @param webhook the webhook to send
+     * @param timeout the maximum time to wait
+     * @param unit    the unit of the timeout
+     * @return a future completed with the response, or completed exceptionally with a
+     *         {@link RejectedExecutionException} if no space became available or the dispatcher is closed
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    public CompletableFuture<HttpResponse<String>> offer(Webhook webhook, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        if (closed.get() || !slots.tryAcquire(timeout, unit)) {
+            return rejected();
+        }
+        CompletableFuture<HttpResponse<String>> future = enqueue(webhook);
+        return future != null ? future : rejected();
+    }
+
+    /**
+     * Enqueues a webhook, waiting for free space in the queue if necessary.
+     *
+     * @param webhook the webhook to send
+     * @return a future completed with the response
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     * @throws RejectedExecutionException if the dispatcher is closed
+     */
+    public CompletableFuture<HttpResponse<String>> submit(Webhook webhook) throws InterruptedException {
+        if (closed.get()) {
+            throw new RejectedExecutionException("Dispatcher is closed");
+        }
+        slots.acquire();
+        CompletableFuture<HttpResponse<String>> future = enqueue(webhook);
+        if (future == null) {
+            throw new RejectedExecutionException("Dispatcher is closed");
+        }
+        return future;
+    }
+
+    /**
+     * Returns the number of webhooks waiting in the queue, including webhooks waiting for their rate limit.
+     *
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Returns the number of webhooks that can be enqueued before the queue is full.
+     *
+     * @return the remaining capacity
+     */
+    public int getRemainingCapacity() {
+        return slots.availablePermits();
+    }
+
+    /**
+     * Returns the number of webhooks currently being sent.
+     *
+     * @return the number of in-flight sends
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Stops accepting webhooks, sends all webhooks already queued and waits for the sender threads to finish.
+     */
+    @Override
+    public void close() {
+        boolean interrupted = false;
+        synchronized (idleLock) {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            while (pending > 0) {
+                try {
+                    idleLock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        for (Thread sender : senders) {
+            sender.interrupt();
+        }
+        for (Thread sender : senders) {
+            while (true) {
+                try {
+                    sender.join();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        rejectRemaining();
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stops accepting webhooks, discards the queue and interrupts the sender threads.
+     *
+     * @return the webhooks that were queued but never sent
+     */
+    public List<Webhook> shutdownNow() {
+        synchronized (idleLock) {
+            closed.set(true);
+        }
+        List<Webhook> pendingWebhooks = rejectRemaining();
+        for (Thread sender : senders) {
+            sender.interrupt();
+        }
+        return pendingWebhooks;
+    }
+
+    /**
+     * Enqueues a webhook for which a slot was taken, or returns {@code null} and releases the slot
+     * if the dispatcher was closed in the meantime.
+     */
+    private CompletableFuture<HttpResponse<String>> enqueue(Webhook webhook) {
+        Task task = new Task(webhook, sequence.getAndIncrement(), System.nanoTime());
+        synchronized (idleLock) {
+            if (closed.get()) {
+                slots.release();
+                return null;
+            }
+            pending++;
+            WebhookMetrics.queued(1);
+            queue.add(task);
+        }
+        return task.future;
+    }
+
+    private static CompletableFuture<HttpResponse<String>> rejected() {
+        WebhookMetrics.instruments().rejected();
+        return CompletableFuture.failedFuture(new RejectedExecutionException("Dispatcher queue is full or closed"));
+    }
+
+    private List<Webhook> rejectRemaining() {
+        List<Webhook> pendingWebhooks = new ArrayList<>();
+        for (Task task : queue.toArray(new Task[0])) {
+            // a sender may have taken the task in the meantime
+            if (queue.remove(task)) {
+                if (!task.started) {
+                    WebhookMetrics.queued(-1);
+                    slots.release();
+                }
+                pendingWebhooks.add(task.webhook);
+                task.future.completeExceptionally(new RejectedExecutionException("Dispatcher is closed"));
+                completed();
+            }
+        }
+        return pendingWebhooks;
+    }
+
+    private void completed() {
+        synchronized (idleLock) {
+            if (--pending == 0) {
+                idleLock.notifyAll();
+            }
+        }
+    }
+
+    private void runSender() {
+        while (true) {
+            Task task;
+            try {
+                task = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (!task.future.isDone() && rateLimiter != null) {
+                String url = task.webhook.getUrl();
+                long wait = url == null ? 0 : rateLimiter.tryAcquire(url);
+                if (wait > 0) {
+                    // keep the slot and retry once the lane of the URL has a permit
+                    task.readyAt = System.nanoTime() + wait;
+                    queue.add(task);
+                    continue;
+                }
+            }
+            if (!task.started) {
+                task.started = true;
+                slots.release();
+                WebhookMetrics.queued(-1);
+                if (task.webhook instanceof WebhookSequence sequence) {
+                    sequence.restartIfDelivered();
+                }
+            }
+            boolean done = true;
+            try {
+                done = send(task);
+            } finally {
+                if (done) {
+                    completed();
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends the webhook of a task, or the next part if it is a sequence.
+     *
+     * @return {@code false} if the task was put back into the queue to send the remaining parts of a sequence
+     */
+    private boolean send(Task task) {
+        if (task.future.isDone()) {
+            // cancelled by the producer while queued
+            return true;
+        }
+        inFlight.incrementAndGet();
+        try {
+            HttpResponse<String> response;
+            if (task.webhook instanceof WebhookSequence sequence) {
+                response = sequence.executeNext();
+            } else {
+                response = task.webhook.execute();
+            }
+            if (rateLimiter != null && task.webhook.getUrl() != null) {
+                rateLimiter.onResponse(task.webhook.getUrl(), response);
+            }
+            if (task.webhook instanceof WebhookSequence sequence
+                    && WebhookSequence.isSuccess(response) && sequence.hasRemaining()) {
+                // the next part waits for its own permit
+                task.readyAt = System.nanoTime();
+                queue.add(task);
+                return false;
+            }
+            task.future.complete(response);
+        } catch (InterruptedException e) {
+            task.future.completeExceptionally(e);
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            task.future.completeExceptionally(e);
+        } catch (Throwable e) {
+            // an Error ends the sender thread, but the caller must not wait forever
+            task.future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.decrementAndGet();
+        }
+        return true;
+    }
+
+    private static ThreadFactory defaultThreadFactory(boolean virtualThreads) {
+        String prefix = "mstlib-dispatcher-" + DISPATCHER_IDS.incrementAndGet() + "-sender-";
+        if (virtualThreads) {
+            return VirtualThreads.newThreadFactory(prefix);
+        }
+        AtomicInteger senderIds = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + senderIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * A queued webhook together with the future of its response, ordered by the time it becomes ready.
+     */
+    private static final class Task implements Delayed {
+
+        private final Webhook webhook;
+        private final CompletableFuture<HttpResponse<String>> future = new CompletableFuture<>();
+        private final long sequence;
+        private volatile long readyAt;
+        /** Whether the task was picked for sending once and returned its queue slot. */
+        private volatile boolean started;
+
+        private Task(Webhook webhook, long sequence, long readyAt) {
+            this.webhook = webhook;
+            this.sequence = sequence;
+            this.readyAt = readyAt;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(readyAt - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            Task task = (Task) other;
+            int byTime = Long.compare(readyAt - task.readyAt, 0);
+            return byTime != 0 ? byTime : Long.compare(sequence, task.sequence);
+        }
+    }
+
+    /**
+     * Builder class for {@link WebhookDispatcher} instances.
+     */
+    public static class Builder {
+
+        private int capacity = 1024;
+        private int senders = 4;
+        private ThreadFactory threadFactory;
+        private WebhookRateLimiter rateLimiter;
+        private boolean virtualThreads;
+
+        private Builder() { }
+
+        /**
+         * Sets the maximum number of queued webhooks.
+         *
+         * @param capacity the queue capacity
+         * @return this builder for method chaining
+         */
+        public Builder setCapacity(int capacity) {
+            if (capacity < 1) {
+                throw new IllegalArgumentException("capacity must be positive");
+            }
+            this.capacity = capacity;
+            return this;
+        }
+
+        /**
+         * Sets the number of sender threads, which bounds the number of concurrent sends.
+         *
+         * @param senders the number of sender threads
+         * @return this builder for method chaining
+         */
+        public Builder setSenders(int senders) {
+            if (senders < 1) {
+                throw new IllegalArgumentException("senders must be positive");
+            }
+            this.senders = senders;
+            return this;
+        }
+
+        /**
+         * Sets the factory creating the sender threads, or {@code null} for the default daemon threads.
+         *
+         * @param threadFactory the thread factory
+         * @return this builder for method chaining
+         */
+        public Builder setThreadFactory(ThreadFactory threadFactory) {
+            this.threadFactory = threadFactory;
+            return this;
+        }
+
+        /**
+         * Sets whether the sender threads are virtual threads when no thread factory is set.
+         * On runtimes without virtual threads, daemon platform threads are used instead.
+         *
+         * @param virtualThreads true to use virtual threads, false otherwise
+         * @return this builder for method chaining
+         */
+        public Builder setVirtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+            return this;
+        }
+
+        /**
+         * Sets the rate limiter pacing the sends per URL, or {@code null} to send without pacing.
+         *
+         * @param rateLimiter the rate limiter
+         * @return this builder for method chaining
+         */
+        public Builder setRateLimiter(WebhookRateLimiter rateLimiter) {
+            this.rateLimiter = rateLimiter;
+            return this;
+        }
+
+        /**
+         * Creates the dispatcher and starts its sender threads.
+         *
+         * @return the new {@code WebhookDispatcher}
+         */
+        public WebhookDispatcher build() {
+            return new WebhookDispatcher(this);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package de.scplabs.mstlib;
+
+import java.io.Serial;
+
+/**
+ * Unchecked exception thrown when a webhook cannot be delivered, for example because of an I/O error.
+ */
+public class WebhookException extends RuntimeException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final String url;
+
+    /**
+     * Creates a new {@code WebhookException}.
+     *
+     * @param url     the target URL of the webhook, or {@code null} if unknown
+     * @param message the detail message
+     * @param cause   the cause, or {@code null}
+     */
+    public WebhookException(String url, String message, Throwable cause) {
+        super(message, cause);
+        this.url = url;
+    }
+
+    /**
+     * Returns the target URL of the webhook that failed.
+     *
+     * @return the webhook URL, or {@code null} if unknown
+     */
+    public String getUrl() {
+        return url;
+    }
+}
@@ -0,0 +1,193 @@
+package de.scplabs.mstlib;
+
+import de.scplabs.mstlib.metrics.Counter;
+import de.scplabs.mstlib.metrics.Histogram;
+import de.scplabs.mstlib.metrics.MetricsRegistry;
+
+import java.net.http.HttpResponse;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@code WebhookMetrics} class reports where time goes between building a card and receiving the response.
+ * <p>
+ * Metrics are disabled by default. Once a {@link MetricsRegistry} is installed with
+ * {@link #setRegistry(MetricsRegistry)}, the builder records how long building and serializing a card takes
+ * and how large the payload is, and {@link IncomingWebhook} records the latency and outcome of every send.
+ * Durations are recorded in nanoseconds.
+ * <pre>{@code
+ * SimpleMetricsRegistry registry = new SimpleMetricsRegistry();
+ * WebhookMetrics.setRegistry(registry);
+ * ...
+ * long p99 = registry.getHistogram(WebhookMetrics.SEND_DURATION).getValueAtPercentile(99);
+ * }</pre>
+ * To feed an existing metrics stack, implement {@link MetricsRegistry} on top of it.
+ */
+public final class WebhookMetrics {
+
+    /** Histogram of the time to build a webhook, including serialization. */
+    public static final String BUILD_DURATION = "mstlib.build.duration";
+    /** Histogram of the time to serialize a card to JSON. */
+    public static final String SERIALIZE_DURATION = "mstlib.serialize.duration";
+    /** Histogram of the encoded payload sizes in bytes, one per message of a split build. */
+    public static final String PAYLOAD_SIZE = "mstlib.build.payload.size";
+    /** Counter of builds that failed. */
+    public static final String BUILD_FAILURES = "mstlib.build.failures";
+    /** Histogram of the time from sending a request to receiving its response or failure. */
+    public static final String SEND_DURATION = "mstlib.send.duration";
+    /** Counter of sends answered with a {@code 2xx} status. */
+    public static final String SEND_SUCCESS = "mstlib.send.success";
+    /** Counter of sends answered with another status, including throttled sends. */
+    public static final String SEND_ERRORS = "mstlib.send.errors";
+    /** Counter of sends answered with {@code 429 Too Many Requests}. */
+    public static final String SEND_THROTTLED = "mstlib.send.throttled";
+    /** Counter of sends that failed without a response. */
+    public static final String SEND_FAILURES = "mstlib.send.failures";
+    /** Gauge of the requests currently in flight. */
+    public static final String SEND_IN_FLIGHT = "mstlib.send.inflight";
+    /** Gauge of the webhooks waiting in dispatcher queues. */
+    public static final String DISPATCHER_QUEUED = "mstlib.dispatcher.queued";
+    /** Counter of webhooks rejected by dispatchers. */
+    public static final String DISPATCHER_REJECTED = "mstlib.dispatcher.rejected";
+
+    /** Tracked regardless of the registry, so the gauges stay correct when it is replaced. */
+    private static final LongAdder IN_FLIGHT = new LongAdder();
+    private static final LongAdder QUEUED = new LongAdder();
+
+    private static volatile Instruments instruments = new Instruments(MetricsRegistry.noop(), false);
+
+    private WebhookMetrics() { }
+
+    /**
+     * Installs the registry receiving the metrics of all webhooks, or {@code null} to disable metrics.
+     *
+     * @param registry the metrics registry
+     */
+    public static void setRegistry(MetricsRegistry registry) {
+        if (registry == null) {
+            instruments = new Instruments(MetricsRegistry.noop(), false);
+            return;
+        }
+        registry.gauge(SEND_IN_FLIGHT, IN_FLIGHT::sum);
+        registry.gauge(DISPATCHER_QUEUED, QUEUED::sum);
+        instruments = new Instruments(registry, true);
+    }
+
+    /**
+     * Returns the installed registry.
+     *
+     * @return the metrics registry, a no-op registry if metrics are disabled
+     */
+    public static MetricsRegistry getRegistry() {
+        return instruments.registry;
+    }
+
+    static Instruments instruments() {
+        return instruments;
+    }
+
+    static void queued(int delta) {
+        QUEUED.add(delta);
+    }
+
+    /**
+     * The instruments of one registry, looked up once when the registry is installed.
+     */
+    static final class Instruments {
+
+        private final MetricsRegistry registry;
+        private final boolean enabled;
+        private final Histogram buildDuration;
+        private final Histogram serializeDuration;
+        private final Histogram payloadSize;
+        private final Counter buildFailures;
+        private final Histogram sendDuration;
+        private final Counter sendSuccess;
+        private final Counter sendErrors;
+        private final Counter sendThrottled;
+        private final Counter sendFailures;
+        private final Counter dispatcherRejected;
+
+        private Instruments(MetricsRegistry registry, boolean enabled) {
+            this.registry = Objects.requireNonNull(registry, "registry");
+            this.enabled = enabled;
+            this.buildDuration = registry.histogram(BUILD_DURATION);
+            this.serializeDuration = registry.histogram(SERIALIZE_DURATION);
+            this.payloadSize = registry.histogram(PAYLOAD_SIZE);
+            this.buildFailures = registry.counter(BUILD_FAILURES);
+            this.sendDuration = registry.histogram(SEND_DURATION);
+            this.sendSuccess = registry.counter(SEND_SUCCESS);
+            this.sendErrors = registry.counter(SEND_ERRORS);
+            this.sendThrottled = registry.counter(SEND_THROTTLED);
+            this.sendFailures = registry.counter(SEND_FAILURES);
+            this.dispatcherRejected = registry.counter(DISPATCHER_REJECTED);
+        }
+
+        /**
+         * Returns the start time of a measurement, or {@code 0} without reading the clock if metrics are disabled.
+         */
+        long start() {
+            return enabled ? System.nanoTime() : 0;
+        }
+
+        void serialized(long start) {
+            if (enabled) {
+                serializeDuration.record(System.nanoTime() - start);
+            }
+        }
+
+        void built(long start, int size) {
+            built(start);
+            payload(size);
+        }
+
+        void built(long start) {
+            if (enabled) {
+                buildDuration.record(System.nanoTime() - start);
+            }
+        }
+
+        void payload(int size) {
+            if (enabled) {
+                payloadSize.record(size);
+            }
+        }
+
+        void buildFailed() {
+            buildFailures.increment();
+        }
+
+        /**
+         * Marks a request as in flight and returns its start time.
+         */
+        long sendStarted() {
+            IN_FLIGHT.increment();
+            return start();
+        }
+
+        /**
+         * Marks a request as completed, with a {@code null} response if it failed.
+         */
+        void sendFinished(long start, HttpResponse<?> response) {
+            IN_FLIGHT.decrement();
+            if (!enabled) {
+                return;
+            }
+            sendDuration.record(System.nanoTime() - start);
+            if (response == null) {
+                sendFailures.increment();
+            } else if (response.statusCode() >= 200 && response.statusCode() < 300) {
+                sendSuccess.increment();
+            } else {
+                sendErrors.increment();
+                if (response.statusCode() == 429) {
+                    sendThrottled.increment();
+                }
+            }
+        }
+
+        void rejected() {
+            dispatcherRejected.increment();
+        }
+    }
+}
@@ -0,0 +1,622 @@
+package de.scplabs.mstlib;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.zip.CRC32C;
+
+/**
+ * The {@code WebhookOutbox} class persists webhooks before sending them, so delivery survives restarts.
+ * <p>
+ * Every message is appended with its URL to a log of memory-mapped segment files before it is sent,
+ * and an acknowledgement record is appended once Teams answered. When the outbox is opened, the log
+ * is scanned and all messages without acknowledgement are sent again. Appends only write sequentially
+ * to the mapped active segment; records carry a CRC32C checksum, so a record torn by a crash ends the scan
+ * of its segment instead of being replayed.
+ * <p>
+ * A message is acknowledged when it was answered with a status that is not worth retrying, i.e. anything
+ * but {@code 408}, {@code 429} and {@code 5xx}. Messages that failed or got a retryable status stay pending
+ * and are sent again by {@link #replay()} or on the next start, so combine the outbox with a
+ * {@link RetryPolicy} in the sender for retries within the process.
+ * <p>
+ * When the active segment is full, a new one is started. Segments are deleted from the oldest once all
+ * their messages are acknowledged; an old segment that is mostly acknowledged while the number of
+ * segments exceeds the limit is compacted by copying its pending messages to the active segment.
+ * <p>
+ * Mapped writes survive a crash of the process. To survive a crash of the operating system as well,
+ * enable {@link Builder#setForce(boolean)}, which flushes every append to the storage device.
+ * <pre>{@code
+ * WebhookOutbox outbox = WebhookOutbox.builder(Path.of("/var/lib/alerts/outbox"))
+ *         .setSender(webhook -> retryPolicy.wrap(webhook).executeAsync())
+ *         .open();
+ * outbox.send(builder.build());
+ * }</pre>
+ */
+public class WebhookOutbox implements AutoCloseable {
+
+    private static final int MAGIC = 0x4D53544F;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final byte ENTRY = 1;
+    private static final byte ACK = 2;
+    /** Type, sequence number, URL length and payload length. */
+    private static final int ENTRY_HEADER_SIZE = 1 + 8 + 4 + 4;
+    private static final int ACK_SIZE = 1 + 8 + 4;
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final boolean force;
+    private final Function<? super Webhook, ? extends CompletableFuture<HttpResponse<String>>> sender;
+    private final WebhookTransport transport;
+
+    /** Segments from oldest to newest; the last one is active. All state is guarded by {@code this}. */
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    /** Messages without acknowledgement by sequence number. */
+    private final Map<Long, Pending> pending = new TreeMap<>();
+    private final CRC32C crc = new CRC32C();
+    private long nextSequence;
+    private long nextSegmentId;
+    private boolean compacting;
+    private boolean closed;
+
+    private WebhookOutbox(Builder builder) throws IOException {
+        this.directory = builder.directory;
+        this.segmentSize = builder.segmentSize;
+        this.maxSegments = builder.maxSegments;
+        this.force = builder.force;
+        this.sender = builder.sender;
+        this.transport = builder.transport;
+        Files.createDirectories(directory);
+        recover();
+        // never append to a segment that may end with a torn record
+        roll(0);
+        compact();
+    }
+
+    /**
+     * Creates a new builder for an outbox storing its segments in the given directory.
+     *
+     * @param directory the directory of the segment files, created if necessary
+     * @return a new {@code Builder}
+     */
+    public static Builder builder(Path directory) {
+        return new Builder(Objects.requireNonNull(directory, "directory"));
+    }
+
+    /**
+     * Persists the webhook and sends it with the configured sender.
+     *
+     * @param webhook the webhook to deliver
+     * @return the future of the response
+     * @throws IllegalStateException if the outbox is closed
+     * @throws UncheckedIOException  if the webhook cannot be persisted
+     */
+    public CompletableFuture<HttpResponse<String>> send(IncomingWebhook webhook) {
+        Pending entry;
+        synchronized (this) {
+            ensureOpen();
+            entry = append(nextSequence, webhook.getUrl(), webhook.payload());
+            nextSequence++;
+            entry.inFlight = true;
+            compact();
+        }
+        return dispatch(entry, webhook);
+    }
+
+    /**
+     * Wraps a webhook so every execution is persisted and delivered through this outbox.
+     *
+     * @param webhook the webhook to wrap
+     * @return the persistent webhook
+     */
+    public Webhook wrap(IncomingWebhook webhook) {
+        return new OutboxWebhook(webhook);
+    }
+
+    /**
+     * Sends all pending messages that are not in flight, e.g. after the sender recovered from an outage.
+     * Called automatically when the outbox is opened.
+     *
+     * @return the number of messages sent again
+     */
+    public int replay() {
+        List<Pending> entries = new ArrayList<>();
+        List<IncomingWebhook> webhooks = new ArrayList<>();
+        synchronized (this) {
+            ensureOpen();
+            for (Pending entry : pending.values()) {
+                if (!entry.inFlight) {
+                    entry.inFlight = true;
+                    entries.add(entry);
+                    webhooks.add(read(entry));
+                }
+            }
+        }
+        for (int i = 0; i < entries.size(); i++) {
+            dispatch(entries.get(i), webhooks.get(i));
+        }
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of messages without acknowledgement.
+     *
+     * @return the number of pending messages
+     */
+    public synchronized int getPending() {
+        return pending.size();
+    }
+
+    /**
+     * Returns the number of segment files.
+     *
+     * @return the number of segments
+     */
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Closes the outbox. Pending messages stay in the log and are sent again when the outbox is reopened;
+     * acknowledgements of sends still in flight are discarded.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        segments.getLast().buffer.force();
+        segments.clear();
+        pending.clear();
+    }
+
+    private CompletableFuture<HttpResponse<String>> dispatch(Pending entry, IncomingWebhook webhook) {
+        CompletableFuture<HttpResponse<String>> response;
+        try {
+            response = sender.apply(webhook);
+        } catch (RuntimeException e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+        return response.whenComplete((r, e) -> {
+            if (r != null && !isRetryable(r.statusCode())) {
+                acknowledge(entry.sequence);
+            } else {
+                synchronized (this) {
+                    // compaction may have replaced the entry with a copy
+                    Pending current = pending.get(entry.sequence);
+                    if (current != null) {
+                        current.inFlight = false;
+                    }
+                }
+            }
+        });
+    }
+
+    private static boolean isRetryable(int status) {
+        return status == 408 || status == 429 || status >= 500;
+    }
+
+    private synchronized void acknowledge(long sequence) {
+        if (closed) {
+            return;
+        }
+        Pending entry = pending.get(sequence);
+        if (entry == null) {
+            return;
+        }
+        ByteBuffer record = ByteBuffer.allocate(ACK_SIZE);
+        record.put(ACK).putLong(sequence);
+        try {
+            write(record);
+        } catch (RuntimeException e) {
+            // the message stays pending and is sent again by replay()
+            entry.inFlight = false;
+            throw e;
+        }
+        pending.remove(sequence);
+        entry.segment.release(entry.size);
+        deleteAcknowledged();
+        compact();
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Outbox is closed");
+        }
+    }
+
+    // ---- log ----
+
+    private Pending append(long sequence, String url, byte[] payload) {
+        byte[] urlBytes = url.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(ENTRY_HEADER_SIZE + urlBytes.length + payload.length + 4);
+        record.put(ENTRY).putLong(sequence).putInt(urlBytes.length).putInt(payload.length)
+                .put(urlBytes).put(payload);
+        int offset = write(record);
+        Segment segment = segments.getLast();
+        Pending entry = new Pending(sequence, segment, offset, record.capacity());
+        segment.retain(entry.size);
+        pending.put(sequence, entry);
+        return entry;
+    }
+
+    /**
+     * Appends a record whose last four bytes are reserved for the checksum.
+     *
+     * @return the offset of the record in the active segment
+     */
+    private int write(ByteBuffer record) {
+        crc.reset();
+        crc.update(record.array(), 0, record.capacity() - 4);
+        record.putInt((int) crc.getValue());
+        while (segments.getLast().buffer.remaining() < record.capacity()) {
+            roll(record.capacity());
+        }
+        MappedByteBuffer buffer = segments.getLast().buffer;
+        int offset = buffer.position();
+        buffer.put(record.array());
+        if (force) {
+            buffer.force(offset, record.capacity());
+        }
+        return offset;
+    }
+
+    private IncomingWebhook read(Pending entry) {
+        ByteBuffer buffer = entry.segment.buffer.duplicate();
+        buffer.position(entry.offset + 1 + 8);
+        byte[] url = new byte[buffer.getInt()];
+        byte[] payload = new byte[buffer.getInt()];
+        buffer.get(url).get(payload);
+        return new IncomingWebhook(new String(url, StandardCharsets.UTF_8), payload, transport);
+    }
+
+    private void roll(int recordSize) {
+        if (!segments.isEmpty()) {
+            segments.getLast().buffer.force();
+        }
+        long id = nextSegmentId++;
+        Path path = directory.resolve(String.format("%s%020d%s", PREFIX, id, SUFFIX));
+        int size = Math.max(segmentSize, HEADER_SIZE + recordSize);
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Creating outbox segment failed", e);
+        }
+        buffer.putInt(MAGIC).putInt(VERSION);
+        segments.addLast(new Segment(path, buffer));
+        deleteAcknowledged();
+    }
+
+    /**
+     * Deletes the oldest segments as long as all their messages are acknowledged. Segments are deleted
+     * strictly in order, since a segment may hold acknowledgements of messages in older segments.
+     */
+    private void deleteAcknowledged() {
+        while (segments.size() > 1 && segments.getFirst().live == 0) {
+            delete(segments.removeFirst());
+        }
+    }
+
+    /**
+     * Copies the pending messages of the oldest segment to the active segment while there are too many
+     * segments and the oldest one is at most half live. Runs only after the current record was written
+     * and registered, since the copies are appended to the active segment and may start new segments.
+     */
+    private void compact() {
+        if (compacting) {
+            return;
+        }
+        compacting = true;
+        try {
+            while (segments.size() > maxSegments && segments.getFirst().liveBytes <= segmentSize / 2) {
+                Segment oldest = segments.getFirst();
+                List<Pending> moved = new ArrayList<>();
+                for (Pending entry : pending.values()) {
+                    if (entry.segment == oldest) {
+                        moved.add(entry);
+                    }
+                }
+                for (Pending entry : moved) {
+                    IncomingWebhook webhook = read(entry);
+                    Pending copy = append(entry.sequence, webhook.getUrl(), webhook.payload());
+                    copy.inFlight = entry.inFlight;
+                    oldest.release(entry.size);
+                }
+                deleteAcknowledged();
+            }
+        } finally {
+            compacting = false;
+        }
+    }
+
+    private static void delete(Segment segment) {
+        try {
+            Files.deleteIfExists(segment.path);
+        } catch (IOException e) {
+            // the segment holds no pending messages; it is deleted again on the next start
+        }
+    }
+
+    // ---- recovery ----
+
+    private void recover() throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            stream.forEach(paths::add);
+        }
+        paths.sort(null);
+        for (Path path : paths) {
+            String name = path.getFileName().toString();
+            long id;
+            try {
+                id = Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            nextSegmentId = Math.max(nextSegmentId, id + 1);
+            MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                continue;
+            }
+            Segment segment = new Segment(path, buffer);
+            segments.addLast(segment);
+            scan(segment);
+        }
+        deleteAcknowledged();
+        if (!segments.isEmpty() && segments.getFirst().live == 0) {
+            // only the newest segment is left and it holds no pending messages
+            delete(segments.removeFirst());
+        }
+    }
+
+    private void scan(Segment segment) {
+        ByteBuffer buffer = segment.buffer;
+        int position = HEADER_SIZE;
+        while (position < buffer.limit()) {
+            byte type = buffer.get(position);
+            int size;
+            if (type == ENTRY && position + ENTRY_HEADER_SIZE <= buffer.limit()) {
+                long length = 4L + buffer.getInt(position + 9) + buffer.getInt(position + 13);
+                if (buffer.getInt(position + 9) < 0 || buffer.getInt(position + 13) < 0
+                        || position + ENTRY_HEADER_SIZE + length > buffer.limit()) {
+                    return;
+                }
+                size = ENTRY_HEADER_SIZE + (int) length;
+            } else if (type == ACK && position + ACK_SIZE <= buffer.limit()) {
+                size = ACK_SIZE;
+            } else {
+                // zero-filled space after the last record, or a torn record
+                return;
+            }
+            if (!isIntact(buffer, position, size)) {
+                return;
+            }
+            long sequence = buffer.getLong(position + 1);
+            nextSequence = Math.max(nextSequence, sequence + 1);
+            if (type == ENTRY) {
+                Pending previous = pending.put(sequence, new Pending(sequence, segment, position, size));
+                if (previous != null) {
+                    // a copy written by compaction
+                    previous.segment.release(previous.size);
+                }
+                segment.retain(size);
+            } else {
+                Pending entry = pending.remove(sequence);
+                if (entry != null) {
+                    entry.segment.release(entry.size);
+                }
+            }
+            position += size;
+        }
+    }
+
+    private boolean isIntact(ByteBuffer buffer, int position, int size) {
+        ByteBuffer record = buffer.duplicate();
+        record.position(position).limit(position + size - 4);
+        crc.reset();
+        crc.update(record);
+        return (int) crc.getValue() == buffer.getInt(position + size - 4);
+    }
+
+    /**
+     * A segment file with the number and size of its pending messages.
+     */
+    private static final class Segment {
+
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        private int live;
+        private long liveBytes;
+
+        private Segment(Path path, MappedByteBuffer buffer) {
+            this.path = path;
+            this.buffer = buffer;
+        }
+
+        private void retain(int size) {
+            live++;
+            liveBytes += size;
+        }
+
+        private void release(int size) {
+            live--;
+            liveBytes -= size;
+        }
+    }
+
+    /**
+     * The location of a message without acknowledgement.
+     */
+    private static final class Pending {
+
+        private final long sequence;
+        private final Segment segment;
+        private final int offset;
+        private final int size;
+        private boolean inFlight;
+
+        private Pending(long sequence, Segment segment, int offset, int size) {
+            this.sequence = sequence;
+            this.segment = segment;
+            this.offset = offset;
+            this.size = size;
+        }
+    }
+
+    /**
+     * A webhook decorator that delivers its message through the outbox.
+     */
+    private final class OutboxWebhook implements Webhook {
+
+        private final IncomingWebhook delegate;
+
+        private OutboxWebhook(IncomingWebhook delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String getUrl() {
+            return delegate.getUrl();
+        }
+
+        @Override
+        public HttpResponse<String> execute() throws InterruptedException {
+            try {
+                return executeAsync().get();
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof RuntimeException runtime
+                        ? runtime
+                        : new WebhookException(getUrl(), "Sending webhook failed", e.getCause());
+            }
+        }
+
+        @Override
+        public CompletableFuture<HttpResponse<String>> executeAsync() {
+            return send(delegate);
+        }
+    }
+
+    /**
+     * Builder class for {@link WebhookOutbox} instances.
+     */
+    public static class Builder {
+
+        private final Path directory;
+        private int segmentSize = 8 * 1024 * 1024;
+        private int maxSegments = 4;
+        private boolean force;
+        private Function<? super Webhook, ? extends CompletableFuture<HttpResponse<String>>> sender =
+                Webhook::executeAsync;
+        private WebhookTransport transport = WebhookTransport.getDefault();
+
+        private Builder(Path directory) {
+            this.directory = directory;
+        }
+
+        /**
+         * Sets the size of the segment files. Defaults to 8 MiB.
+         *
+         * @param segmentSize the segment size in bytes
+         * @return this builder for method chaining
+         */
+        public Builder setSegmentSize(int segmentSize) {
+            if (segmentSize < 4096) {
+                throw new IllegalArgumentException("segmentSize must be at least 4096");
+            }
+            this.segmentSize = segmentSize;
+            return this;
+        }
+
+        /**
+         * Sets the number of segments above which mostly acknowledged segments are compacted. Defaults to 4.
+         *
+         * @param maxSegments the segment limit
+         * @return this builder for method chaining
+         */
+        public Builder setMaxSegments(int maxSegments) {
+            if (maxSegments < 1) {
+                throw new IllegalArgumentException("maxSegments must be positive");
+            }
+            this.maxSegments = maxSegments;
+            return this;
+        }
+
+        /**
+         * Sets whether every append is flushed to the storage device. Defaults to false.
+         *
+         * @param force true to flush every append, false to leave flushing to the operating system
+         * @return this builder for method chaining
+         */
+        public Builder setForce(boolean force) {
+            this.force = force;
+            return this;
+        }
+
+        /**
+         * Sets the function sending the persisted webhooks, e.g. {@code dispatcher::offer}.
+         * Defaults to {@link Webhook#executeAsync()}.
+         *
+         * @param sender the sending function
+         * @return this builder for method chaining
+         */
+        public Builder setSender(Function<? super Webhook, ? extends CompletableFuture<HttpResponse<String>>> sender) {
+            this.sender = Objects.requireNonNull(sender, "sender");
+            return this;
+        }
+
+        /**
+         * Sets the transport of the webhooks restored from the log.
+         *
+         * @param transport the shared transport
+         * @return this builder for method chaining
+         */
+        public Builder setTransport(WebhookTransport transport) {
+            this.transport = Objects.requireNonNull(transport, "transport");
+            return this;
+        }
+
+        /**
+         * Opens the outbox, recovering the log in the directory and sending all pending messages again.
+         *
+         * @return the open {@code WebhookOutbox}
+         * @throws UncheckedIOException if the directory or the log cannot be accessed
+         */
+        public WebhookOutbox open() {
+            WebhookOutbox outbox;
+            try {
+                outbox = new WebhookOutbox(this);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Opening outbox failed", e);
+            }
+            outbox.replay();
+            return outbox;
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package de.scplabs.mstlib;
+
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * The {@code WebhookProcessor} class connects reactive pipelines to Teams with backpressure.
+ * <p>
+ * As a {@link Flow.Subscriber} it consumes items, turns each one into a {@link Webhook} and sends it
+ * asynchronously. It requests only as many items as it may send concurrently, so a fast upstream is slowed
+ * down to the speed of Teams instead of piling up unbounded {@code executeAsync()} calls.
+ * <p>
+ * As a {@link Flow.Publisher} it publishes one {@link WebhookDelivery} per consumed item to subscribers that
+ * buffer up to the configured buffer size. Items are requested from the upstream only while every subscriber
+ * has room for their deliveries, so a slow subscriber slows down the upstream as well and no delivery is dropped.
+ * The publisher completes once the upstream has completed and all sends have finished.
+ * <pre>{@code
+ * WebhookProcessor<IncomingWebhookBuilder> processor = WebhookProcessor.forBuilders().build();
+ * publisher.subscribe(processor);
+ * processor.subscribe(resultSubscriber);
+ * }</pre>
+ *
+ * @param <T> the type of the consumed items
+ */
+public class WebhookProcessor<T> implements Flow.Processor<T, WebhookDelivery<T>> {
+
+    private final Function<? super T, ? extends Webhook> mapper;
+    private final int maxInFlight;
+    private final SubmissionPublisher<WebhookDelivery<T>> publisher;
+    /** Sends in flight plus one while the upstream has not terminated. */
+    private final AtomicInteger active = new AtomicInteger(1);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    /** Items requested from the upstream whose delivery was not published yet. */
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final int bufferSize;
+    /** The current downstream subscribers; changed together with the publisher while holding the list. */
+    private final List<Downstream<WebhookDelivery<T>>> downstreams = new CopyOnWriteArrayList<>();
+    /** Demand not yet requested from the upstream. */
+    private final AtomicLong demand = new AtomicLong();
+    /** Number of pending demand updates; only the caller raising it from zero calls {@code request}. */
+    private final AtomicInteger demandUpdates = new AtomicInteger();
+    private volatile Flow.Subscription subscription;
+    private volatile Throwable upstreamFailure;
+
+    private WebhookProcessor(Builder<T> builder) {
+        this.mapper = builder.mapper;
+        this.maxInFlight = builder.maxInFlight;
+        this.bufferSize = builder.bufferSize;
+        this.publisher = new SubmissionPublisher<>(builder.executor, builder.bufferSize);
+    }
+
+    /**
+     * Creates a builder for a processor consuming arbitrary items.
+     *
+     * @param mapper the function turning an item into the webhook to send
+     * @param <T>    the type of the consumed items
+     * @return a new {@code Builder}
+     */
+    public static <T> Builder<T> builder(Function<? super T, ? extends Webhook> mapper) {
+        return new Builder<>(Objects.requireNonNull(mapper, "mapper"));
+    }
+
+    /**
+     * Creates a builder for a processor consuming built webhooks.
+     *
+     * @return a new {@code Builder}
+     */
+    public static Builder<Webhook> forWebhooks() {
+        return builder(Function.identity());
+    }
+
+    /**
+     * Creates a builder for a processor consuming webhook builders, which are built right before sending.
+     *
+     * @return a new {@code Builder}
+     */
+    public static Builder<IncomingWebhookBuilder> forBuilders() {
+        return builder(IncomingWebhookBuilder::build);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (this.subscription != null) {
+            subscription.cancel();
+            return;
+        }
+        this.subscription = subscription;
+        fill();
+    }
+
+    @Override
+    public void onNext(T item) {
+        active.incrementAndGet();
+        inFlight.incrementAndGet();
+        CompletableFuture<HttpResponse<String>> future;
+        try {
+            Webhook webhook = mapper.apply(item);
+            future = webhook != null
+                    ? webhook.executeAsync()
+                    : CompletableFuture.failedFuture(new WebhookException(null, "Building webhook failed", null));
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        future.whenComplete((response, failure) -> {
+            Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                    ? failure.getCause()
+                    : failure;
+            inFlight.decrementAndGet();
+            publish(new WebhookDelivery<>(item, response, cause));
+            outstanding.decrementAndGet();
+            fill();
+            finished();
+        });
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        upstreamFailure = throwable;
+        finished();
+    }
+
+    @Override
+    public void onComplete() {
+        finished();
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super WebhookDelivery<T>> subscriber) {
+        Downstream<WebhookDelivery<T>> downstream = new Downstream<>(subscriber, this);
+        synchronized (downstreams) {
+            publisher.subscribe(downstream);
+            downstreams.add(downstream);
+        }
+    }
+
+    /**
+     * Cancels the upstream subscription and closes the publisher without waiting for sends in flight.
+     */
+    public void cancel() {
+        Flow.Subscription current = subscription;
+        if (current != null) {
+            current.cancel();
+        }
+        publisher.close();
+    }
+
+    /**
+     * Returns the number of sends currently in flight.
+     *
+     * @return the number of in-flight sends
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private void publish(WebhookDelivery<T> delivery) {
+        synchronized (downstreams) {
+            for (Downstream<WebhookDelivery<T>> downstream : downstreams) {
+                downstream.pending.incrementAndGet();
+            }
+            try {
+                // fill() keeps room for every outstanding delivery, so this does not block
+                publisher.submit(delivery);
+            } catch (IllegalStateException e) {
+                // closed by cancel() while the send was in flight
+            }
+        }
+    }
+
+    /**
+     * Requests items from the upstream while fewer than {@code maxInFlight} are outstanding and the
+     * downstream buffers have room for the deliveries of all outstanding items.
+     */
+    private void fill() {
+        if (subscription == null) {
+            return;
+        }
+        int current;
+        while ((current = outstanding.get()) < maxInFlight && current + maximumPending() < bufferSize) {
+            if (outstanding.compareAndSet(current, current + 1)) {
+                request(1);
+            }
+        }
+    }
+
+    /**
+     * Adds demand and passes it to the upstream. Sends complete on many threads at once, while
+     * {@link Flow.Subscription#request(long)} must be called serially, so one caller at a time drains
+     * the accumulated demand.
+     */
+    private void request(long n) {
+        demand.addAndGet(n);
+        if (demandUpdates.getAndIncrement() != 0) {
+            return;
+        }
+        do {
+            long requested = demand.getAndSet(0);
+            if (requested > 0) {
+                subscription.request(requested);
+            }
+        } while (demandUpdates.decrementAndGet() != 0);
+    }
+
+    private void finished() {
+        if (active.decrementAndGet() == 0) {
+            Throwable failure = upstreamFailure;
+            if (failure != null) {
+                publisher.closeExceptionally(failure);
+            } else {
+                publisher.close();
+            }
+        }
+    }
+
+    private int maximumPending() {
+        int maximum = 0;
+        for (Downstream<?> downstream : downstreams) {
+            maximum = Math.max(maximum, downstream.pending.get());
+        }
+        return maximum;
+    }
+
+    private void removed(Downstream<?> downstream) {
+        if (downstreams.remove(downstream)) {
+            fill();
+        }
+    }
+
+    /**
+     * A downstream subscriber counting the deliveries published to it but not consumed yet. Each consumed
+     * delivery frees room in its buffer, so the processor may request more items.
+     */
+    private static final class Downstream<D> implements Flow.Subscriber<D> {
+
+        private final Flow.Subscriber<? super D> delegate;
+        private final WebhookProcessor<?> processor;
+        private final AtomicInteger pending = new AtomicInteger();
+
+        private Downstream(Flow.Subscriber<? super D> delegate, WebhookProcessor<?> processor) {
+            this.delegate = delegate;
+            this.processor = processor;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            delegate.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                    subscription.request(n);
+                }
+
+                @Override
+                public void cancel() {
+                    subscription.cancel();
+                    processor.removed(Downstream.this);
+                }
+            });
+        }
+
+        @Override
+        public void onNext(D item) {
+            boolean consumed = false;
+            try {
+                delegate.onNext(item);
+                consumed = true;
+            } finally {
+                if (consumed) {
+                    pending.decrementAndGet();
+                    processor.fill();
+                } else {
+                    // the publisher cancels a subscriber whose onNext throws
+                    processor.removed(this);
+                }
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            processor.removed(this);
+            delegate.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            processor.removed(this);
+            delegate.onComplete();
+        }
+    }
+
+    /**
+     * Builder class for {@link WebhookProcessor} instances.
+     *
+     * @param <T> the type of the consumed items
+     */
+    public static class Builder<T> {
+
+        private final Function<? super T, ? extends Webhook> mapper;
+        private int maxInFlight = 16;
+        private int bufferSize = Flow.defaultBufferSize();
+        private Executor executor = ForkJoinPool.commonPool();
+
+        private Builder(Function<? super T, ? extends Webhook> mapper) {
+            this.mapper = mapper;
+        }
+
+        /**
+         * Sets the maximum number of concurrent sends, which is also the most items requested upfront.
+         *
+         * @param maxInFlight the maximum number of concurrent sends
+         * @return this builder for method chaining
+         */
+        public Builder<T> setMaxInFlight(int maxInFlight) {
+            if (maxInFlight < 1) {
+                throw new IllegalArgumentException("maxInFlight must be positive");
+            }
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * Sets the number of deliveries buffered per downstream subscriber. Items are requested from the
+         * upstream only while the deliveries of all outstanding items fit.
+         *
+         * @param bufferSize the buffer size
+         * @return this builder for method chaining
+         */
+        public Builder<T> setBufferSize(int bufferSize) {
+            if (bufferSize < 1) {
+                throw new IllegalArgumentException("bufferSize must be positive");
+            }
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * Sets the executor delivering results to downstream subscribers.
+         *
+         * @param executor the executor
+         * @return this builder for method chaining
+         */
+        public Builder<T> setExecutor(Executor executor) {
+            this.executor = Objects.requireNonNull(executor, "executor");
+            return this;
+        }
+
+        /**
+         * Creates the processor.
+         *
+         * @return the new {@code WebhookProcessor}
+         */
+        public WebhookProcessor<T> build() {
+            return new WebhookProcessor<>(this);
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package de.scplabs.mstlib;
+
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The {@code WebhookRateLimiter} class paces sends per webhook URL with a token bucket.
+ * <p>
+ * Every URL has its own lane, so a throttled channel never delays sends to other channels.
+ * The defaults stay below the throttling limits Teams documents for incoming webhooks
+ * (4 requests per second, 60 requests per 30 seconds). When Teams answers with
+ * {@code 429 Too Many Requests} or {@code 503 Service Unavailable}, the lane of that URL is paused
+ * for the duration given by the {@code Retry-After} header, up to a configurable maximum.
+ * <p>
+ * A lane whose bucket is full and which is not paused behaves like a new one, so such idle lanes are
+ * evicted once the number of lanes has doubled since the last eviction.
+ */
+public class WebhookRateLimiter {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    /** The longest pause, so deadlines stay comparable with {@link System#nanoTime()} differences. */
+    private static final long MAX_PAUSE_NANOS = Long.MAX_VALUE >> 1;
+    private static final int MIN_SWEEP_SIZE = 64;
+
+    private final int burst;
+    private final double permitsPerNano;
+    private final long defaultRetryAfterNanos;
+    private final long maxRetryAfterNanos;
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+    /** The number of lanes above which idle lanes are evicted. */
+    private volatile int sweepSize = MIN_SWEEP_SIZE;
+
+    private WebhookRateLimiter(Builder builder) {
+        this.burst = builder.burst;
+        this.permitsPerNano = builder.permitsPerSecond / NANOS_PER_SECOND;
+        this.maxRetryAfterNanos = toNanos(builder.maxRetryAfter);
+        this.defaultRetryAfterNanos = Math.min(toNanos(builder.defaultRetryAfter), maxRetryAfterNanos);
+    }
+
+    /**
+     * Creates a new builder for configuring a rate limiter.
+     *
+     * @return a new {@code Builder}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Takes a permit for the given URL if one is available.
+     *
+     * @param url the webhook URL
+     * @return {@code 0} if a permit was taken, otherwise the nanoseconds until a permit becomes available
+     */
+    public long tryAcquire(String url) {
+        long wait;
+        do {
+            wait = lane(url).tryAcquire(System.nanoTime());
+        } while (wait < 0);
+        return wait;
+    }
+
+    /**
+     * Waits until a permit for the given URL is available and takes it.
+     *
+     * @param url the webhook URL
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    public void acquire(String url) throws InterruptedException {
+        long wait;
+        while ((wait = tryAcquire(url)) > 0) {
+            LockSupport.parkNanos(this, wait);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    /**
+     * Inspects a response and pauses the lane of the URL if Teams throttled the request.
+     * The pause is limited to the maximum {@code Retry-After} of the builder.
+     *
+     * @param url      the webhook URL
+     * @param response the response received for the URL
+     */
+    public void onResponse(String url, HttpResponse<?> response) {
+        int status = response.statusCode();
+        if (status != 429 && status != 503) {
+            return;
+        }
+        long pause = parseRetryAfter(response.headers().firstValue("Retry-After"))
+                .map(delay -> Math.min(toNanos(delay), maxRetryAfterNanos))
+                .orElse(defaultRetryAfterNanos);
+        pause(url, pause);
+    }
+
+    /**
+     * Pauses the lane of the given URL.
+     *
+     * @param url      the webhook URL
+     * @param duration the pause duration
+     */
+    public void pause(String url, Duration duration) {
+        pause(url, toNanos(duration));
+    }
+
+    /**
+     * Returns the remaining pause of the lane of the given URL.
+     *
+     * @param url the webhook URL
+     * @return the remaining pause, or {@link Duration#ZERO} if the lane is not paused
+     */
+    public Duration getPause(String url) {
+        Lane lane = lanes.get(url);
+        return lane == null ? Duration.ZERO : Duration.ofNanos(lane.remainingPause(System.nanoTime()));
+    }
+
+    /**
+     * Wraps a webhook so its executions are paced by this limiter.
+     *
+     * @param webhook the webhook to wrap
+     * @return the rate-limited webhook
+     */
+    public Webhook wrap(Webhook webhook) {
+        return new RateLimitedWebhook(webhook);
+    }
+
+    /**
+     * Parses a {@code Retry-After} header given either in seconds or as an HTTP date.
+     *
+     * @param value the header value
+     * @return the delay, or an empty optional if the header is missing or invalid
+     */
+    static Optional<Duration> parseRetryAfter(Optional<String> value) {
+        if (value.isEmpty()) {
+            return Optional.empty();
+        }
+        String retryAfter = value.get().trim();
+        try {
+            return Optional.of(Duration.ofSeconds(Math.max(0, Long.parseLong(retryAfter))));
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime date = ZonedDateTime.parse(retryAfter, DateTimeFormatter.RFC_1123_DATE_TIME);
+                Duration delay = Duration.between(ZonedDateTime.now(date.getZone()), date);
+                return Optional.of(delay.isNegative() ? Duration.ZERO : delay);
+            } catch (DateTimeParseException ignored) {
+                return Optional.empty();
+            }
+        }
+    }
+
+    private void pause(String url, long nanos) {
+        long pause = Math.min(Math.max(0, nanos), MAX_PAUSE_NANOS);
+        while (!lane(url).pause(System.nanoTime(), pause)) {
+            // the lane was evicted concurrently, so pause its replacement
+        }
+    }
+
+    private Lane lane(String url) {
+        Lane lane = lanes.get(url);
+        if (lane != null) {
+            return lane;
+        }
+        lane = lanes.computeIfAbsent(url, u -> new Lane(System.nanoTime()));
+        if (lanes.size() > sweepSize) {
+            sweep();
+        }
+        return lane;
+    }
+
+    /**
+     * Evicts the idle lanes and raises the size of the next sweep to twice the remaining number of lanes.
+     */
+    private synchronized void sweep() {
+        if (lanes.size() <= sweepSize) {
+            return;
+        }
+        long now = System.nanoTime();
+        lanes.forEach((url, lane) -> {
+            if (lane.evictIfIdle(now)) {
+                lanes.remove(url, lane);
+            }
+        });
+        sweepSize = Math.max(MIN_SWEEP_SIZE, lanes.size() * 2);
+    }
+
+    private static long toNanos(Duration duration) {
+        if (duration.isNegative()) {
+            return 0;
+        }
+        try {
+            return Math.min(duration.toNanos(), MAX_PAUSE_NANOS);
+        } catch (ArithmeticException e) {
+            return MAX_PAUSE_NANOS;
+        }
+    }
+
+    /**
+     * The token bucket of a single URL.
+     */
+    private final class Lane {
+
+        private double tokens;
+        private long refilledAt;
+        private long pausedUntil;
+        /** Set once the lane was removed from the map; callers then retry with a new lane. */
+        private boolean evicted;
+
+        private Lane(long now) {
+            this.tokens = burst;
+            this.refilledAt = now;
+            this.pausedUntil = now;
+        }
+
+        /**
+         * Takes a permit, returning {@code 0}, the nanoseconds until one is available, or {@code -1} if evicted.
+         */
+        synchronized long tryAcquire(long now) {
+            if (evicted) {
+                return -1;
+            }
+            if (now - pausedUntil < 0) {
+                return pausedUntil - now;
+            }
+            tokens = Math.min(burst, tokens + (now - refilledAt) * permitsPerNano);
+            refilledAt = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((1 - tokens) / permitsPerNano));
+        }
+
+        synchronized boolean pause(long now, long nanos) {
+            if (evicted) {
+                return false;
+            }
+            if (now + nanos - pausedUntil > 0) {
+                pausedUntil = now + nanos;
+            }
+            tokens = 0;
+            refilledAt = pausedUntil;
+            return true;
+        }
+
+        synchronized boolean evictIfIdle(long now) {
+            if (now - pausedUntil >= 0 && tokens + (now - refilledAt) * permitsPerNano >= burst) {
+                evicted = true;
+            }
+            return evicted;
+        }
+
+        synchronized long remainingPause(long now) {
+            return Math.max(0, pausedUntil - now);
+        }
+    }
+
+    /**
+     * A webhook decorator that waits for a permit before each execution.
+     */
+    private final class RateLimitedWebhook implements Webhook {
+
+        private final Webhook delegate;
+
+        private RateLimitedWebhook(Webhook delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String getUrl() {
+            return delegate.getUrl();
+        }
+
+        @Override
+        public HttpResponse<String> execute() throws InterruptedException {
+            String url = getUrl();
+            if (url == null) {
+                return delegate.execute();
+            }
+            acquire(url);
+            HttpResponse<String> response = delegate.execute();
+            onResponse(url, response);
+            return response;
+        }
+
+        @Override
+        public CompletableFuture<HttpResponse<String>> executeAsync() {
+            String url = getUrl();
+            if (url == null) {
+                return delegate.executeAsync();
+            }
+            return acquireAsync(url)
+                    .thenCompose(ignored -> delegate.executeAsync())
+                    .thenApply(response -> {
+                        onResponse(url, response);
+                        return response;
+                    });
+        }
+
+        private CompletableFuture<Void> acquireAsync(String url) {
+            long wait = tryAcquire(url);
+            if (wait == 0) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return CompletableFuture.supplyAsync(() -> null,
+                            CompletableFuture.delayedExecutor(wait, TimeUnit.NANOSECONDS))
+                    .thenCompose(ignored -> acquireAsync(url));
+        }
+    }
+
+    /**
+     * Builder class for {@link WebhookRateLimiter} instances.
+     */
+    public static class Builder {
+
+        private int burst = 4;
+        private double permitsPerSecond = 1.5;
+        private Duration defaultRetryAfter = Duration.ofSeconds(5);
+        private Duration maxRetryAfter = Duration.ofMinutes(5);
+
+        private Builder() { }
+
+        /**
+         * Sets the number of sends a URL may burst before pacing starts.
+         *
+         * @param burst the bucket size
+         * @return this builder for method chaining
+         */
+        public Builder setBurst(int burst) {
+            if (burst < 1) {
+                throw new IllegalArgumentException("burst must be positive");
+            }
+            this.burst = burst;
+            return this;
+        }
+
+        /**
+         * Sets the sustained number of sends per second and URL.
+         *
+         * @param permitsPerSecond the refill rate
+         * @return this builder for method chaining
+         */
+        public Builder setPermitsPerSecond(double permitsPerSecond) {
+            if (!(permitsPerSecond > 0)) {
+                throw new IllegalArgumentException("permitsPerSecond must be positive");
+            }
+            this.permitsPerSecond = permitsPerSecond;
+            return this;
+        }
+
+        /**
+         * Sets the pause applied when a throttled response carries no valid {@code Retry-After} header.
+         *
+         * @param defaultRetryAfter the default pause
+         * @return this builder for method chaining
+         */
+        public Builder setDefaultRetryAfter(Duration defaultRetryAfter) {
+            this.defaultRetryAfter = defaultRetryAfter;
+            return this;
+        }
+
+        /**
+         * Sets the longest pause taken from a {@code Retry-After} header. Longer delays, which would
+         * block a channel for hours or days, are shortened to this maximum. Defaults to 5 minutes.
+         *
+         * @param maxRetryAfter the maximum pause
+         * @return this builder for method chaining
+         */
+        public Builder setMaxRetryAfter(Duration maxRetryAfter) {
+            if (maxRetryAfter.isNegative() || maxRetryAfter.isZero()) {
+                throw new IllegalArgumentException("maxRetryAfter must be positive");
+            }
+            this.maxRetryAfter = maxRetryAfter;
+            return this;
+        }
+
+        /**
+         * Creates the rate limiter.
+         *
+         * @return the new {@code WebhookRateLimiter}
+         */
+        public WebhookRateLimiter build() {
+            return new WebhookRateLimiter(this);
+        }
+    }
+}
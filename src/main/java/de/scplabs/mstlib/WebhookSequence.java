@@ -0,0 +1,139 @@
+package de.scplabs.mstlib;
+
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@code WebhookSequence} class sends several webhooks one after another, e.g. the parts of a card
+ * that was split by {@link IncomingWebhookBuilder#buildSplit()}.
+ * <p>
+ * Each part is sent only after the previous one was accepted, so the messages arrive in order.
+ * The sequence stops at the first response without a {@code 2xx} status or the first exception.
+ * <p>
+ * The sequence remembers which parts were accepted. Executing it again, for example through a
+ * {@link RetryPolicy}, resumes at the first part that was not delivered, so no part is sent twice.
+ * Once all parts were delivered, the next execution sends the whole sequence again.
+ * A sequence must not be executed concurrently.
+ */
+public class WebhookSequence implements Webhook {
+
+    private final List<Webhook> parts;
+    /** Number of leading parts that were accepted. */
+    private final AtomicInteger delivered = new AtomicInteger();
+
+    /**
+     * Constructs a new {@code WebhookSequence}.
+     *
+     * @param parts the webhooks to send in order, at least one
+     */
+    public WebhookSequence(List<? extends Webhook> parts) {
+        if (parts.isEmpty()) {
+            throw new IllegalArgumentException("parts must not be empty");
+        }
+        this.parts = List.copyOf(parts);
+    }
+
+    /**
+     * Returns the webhooks of this sequence.
+     *
+     * @return the parts in sending order
+     */
+    public List<Webhook> getParts() {
+        return parts;
+    }
+
+    /**
+     * Returns the number of leading parts that were accepted since the sequence was last sent completely.
+     *
+     * @return the number of delivered parts
+     */
+    public int getDeliveredParts() {
+        return delivered.get();
+    }
+
+    /**
+     * Returns the target URL of the first part.
+     *
+     * @return the target URL
+     */
+    @Override
+    public String getUrl() {
+        return parts.get(0).getUrl();
+    }
+
+    /**
+     * Sends the parts in order, starting at the first part that was not delivered yet.
+     *
+     * @return the response of the last part sent, i.e. the first failed response or the response of the last part
+     * @throws InterruptedException if the execution thread is interrupted
+     */
+    @Override
+    public HttpResponse<String> execute() throws InterruptedException {
+        restartIfDelivered();
+        HttpResponse<String> response;
+        do {
+            response = executeNext();
+        } while (isSuccess(response) && hasRemaining());
+        return response;
+    }
+
+    /**
+     * Sends the parts in order without blocking, starting at the first part that was not delivered yet.
+     *
+     * @return a future completed with the response of the last part sent
+     */
+    @Override
+    public CompletableFuture<HttpResponse<String>> executeAsync() {
+        restartIfDelivered();
+        return executeRemainingAsync();
+    }
+
+    private CompletableFuture<HttpResponse<String>> executeRemainingAsync() {
+        int index = delivered.get();
+        return parts.get(index).executeAsync().thenCompose(response -> {
+            if (!isSuccess(response)) {
+                return CompletableFuture.completedFuture(response);
+            }
+            delivered.set(index + 1);
+            return hasRemaining() ? executeRemainingAsync() : CompletableFuture.completedFuture(response);
+        });
+    }
+
+    /**
+     * Starts over if all parts were delivered by the previous execution.
+     */
+    void restartIfDelivered() {
+        delivered.compareAndSet(parts.size(), 0);
+    }
+
+    /**
+     * Sends the first part that was not delivered yet. Used by {@link WebhookDispatcher} to rate limit
+     * every part on its own.
+     *
+     * @return the response of the part
+     * @throws InterruptedException if the execution thread is interrupted
+     */
+    HttpResponse<String> executeNext() throws InterruptedException {
+        int index = delivered.get();
+        HttpResponse<String> response = parts.get(index).execute();
+        if (isSuccess(response)) {
+            delivered.set(index + 1);
+        }
+        return response;
+    }
+
+    /**
+     * Returns whether parts remain to be sent.
+     *
+     * @return {@code true} if not all parts were delivered
+     */
+    boolean hasRemaining() {
+        return delivered.get() < parts.size();
+    }
+
+    static boolean isSuccess(HttpResponse<?> response) {
+        return response.statusCode() >= 200 && response.statusCode() < 300;
+    }
+}
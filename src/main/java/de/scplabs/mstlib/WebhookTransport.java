@@ -0,0 +1,222 @@
+package de.scplabs.mstlib;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * The {@code WebhookTransport} class holds the long-lived {@link HttpClient} used to send webhooks.
+ * <p>
+ * Transports are shared: one transport (and therefore one client, connection pool and selector thread)
+ * exists per distinct configuration, and all {@link IncomingWebhook} instances built with that
+ * configuration reuse its warm connections. Transports with a custom executor are not shared, since the
+ * executor's lifecycle belongs to the caller; keep a reference to such a transport to reuse it.
+ * <p>
+ * The client prefers HTTP/2 and keeps idle connections alive between sends; the idle timeout is
+ * controlled by the JDK system property {@code jdk.httpclient.keepalive.timeout}.
+ * <p>
+ * With {@link Builder#setVirtualThreads(boolean)} the client runs its asynchronous tasks on virtual threads
+ * (Java 21 and later), so a large number of concurrent sends does not require a large platform thread pool.
+ */
+public final class WebhookTransport {
+
+    /** Maximum number of parsed URIs kept per transport. */
+    private static final int MAX_CACHED_URIS = 1024;
+    /** Transports shared by configuration, excluding those with a custom executor. */
+    private static final Map<Config, WebhookTransport> SHARED = new ConcurrentHashMap<>();
+
+    private final Config config;
+    private final HttpClient client;
+    private final Map<String, URI> uris = new ConcurrentHashMap<>();
+
+    private WebhookTransport(Config config) {
+        this.config = config;
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(config.version())
+                .followRedirects(HttpClient.Redirect.NEVER);
+        if (config.connectTimeout() != null) {
+            builder.connectTimeout(config.connectTimeout());
+        }
+        if (config.executor() != null) {
+            builder.executor(config.executor());
+        } else if (config.virtualThreads()) {
+            builder.executor(VirtualThreads.newExecutor("mstlib-http-"));
+        }
+        this.client = builder.build();
+    }
+
+    /**
+     * Returns the shared transport with the default configuration.
+     *
+     * @return the default transport
+     */
+    public static WebhookTransport getDefault() {
+        return builder().build();
+    }
+
+    /**
+     * Creates a new builder for configuring a transport.
+     *
+     * @return a new {@code Builder}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the underlying HTTP client.
+     *
+     * @return the shared {@code HttpClient}
+     */
+    public HttpClient getClient() {
+        return client;
+    }
+
+    /**
+     * Returns the timeout applied to each request, or {@code null} if none is set.
+     *
+     * @return the request timeout
+     */
+    public Duration getRequestTimeout() {
+        return config.requestTimeout();
+    }
+
+    /**
+     * Returns whether the client runs its asynchronous tasks on virtual threads.
+     *
+     * @return {@code true} if virtual threads are used
+     */
+    public boolean isVirtualThreads() {
+        return config.executor() == null && config.virtualThreads() && VirtualThreads.isSupported();
+    }
+
+    /**
+     * Resolves the given URL to a {@link URI}, reusing previously parsed instances.
+     *
+     * @param url the webhook URL
+     * @return the parsed URI
+     */
+    public URI resolve(String url) {
+        URI uri = uris.get(url);
+        if (uri == null) {
+            if (uris.size() >= MAX_CACHED_URIS) {
+                uris.clear();
+            }
+            uri = URI.create(url);
+            uris.put(url, uri);
+        }
+        return uri;
+    }
+
+    /**
+     * Creates a request builder for the given URI with the transport's request timeout applied.
+     *
+     * @param uri the target URI
+     * @return a new {@code HttpRequest.Builder}
+     */
+    HttpRequest.Builder newRequest(URI uri) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json");
+        if (config.requestTimeout() != null) {
+            builder.timeout(config.requestTimeout());
+        }
+        return builder;
+    }
+
+    /**
+     * Configuration key identifying a shared transport.
+     */
+    private record Config(HttpClient.Version version, Duration connectTimeout, Duration requestTimeout,
+                          Executor executor, boolean virtualThreads) { }
+
+    /**
+     * Builder class for {@link WebhookTransport} instances.
+     * Builders with equal settings return the same shared transport.
+     */
+    public static class Builder {
+
+        private HttpClient.Version version = HttpClient.Version.HTTP_2;
+        private Duration connectTimeout = Duration.ofSeconds(10);
+        private Duration requestTimeout = Duration.ofSeconds(30);
+        private Executor executor;
+        private boolean virtualThreads;
+
+        private Builder() { }
+
+        /**
+         * Sets the preferred HTTP version. Defaults to HTTP/2 with fallback to HTTP/1.1.
+         *
+         * @param version the HTTP version
+         * @return this builder for method chaining
+         */
+        public Builder setVersion(HttpClient.Version version) {
+            this.version = Objects.requireNonNull(version, "version");
+            return this;
+        }
+
+        /**
+         * Sets the connect timeout, or {@code null} to wait indefinitely.
+         *
+         * @param connectTimeout the connect timeout
+         * @return this builder for method chaining
+         */
+        public Builder setConnectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        /**
+         * Sets the timeout for each request, or {@code null} to wait indefinitely.
+         *
+         * @param requestTimeout the request timeout
+         * @return this builder for method chaining
+         */
+        public Builder setRequestTimeout(Duration requestTimeout) {
+            this.requestTimeout = requestTimeout;
+            return this;
+        }
+
+        /**
+         * Sets the executor used for asynchronous tasks of the client,
+         * or {@code null} to use the client's default executor.
+         *
+         * @param executor the executor
+         * @return this builder for method chaining
+         */
+        public Builder setExecutor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Sets whether the client runs its asynchronous tasks on virtual threads when no executor is set.
+         * On runtimes without virtual threads, daemon platform threads are used instead.
+         *
+         * @param virtualThreads true to use virtual threads, false otherwise
+         * @return this builder for method chaining
+         */
+        public Builder setVirtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+            return this;
+        }
+
+        /**
+         * Returns the shared transport for this configuration, creating it on first use.
+         * If a custom executor is set, a new unshared transport is returned.
+         *
+         * @return the {@code WebhookTransport}
+         */
+        public WebhookTransport build() {
+            Config config = new Config(version, connectTimeout, requestTimeout, executor, virtualThreads);
+            if (executor != null) {
+                return new WebhookTransport(config);
+            }
+            return SHARED.computeIfAbsent(config, WebhookTransport::new);
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package de.scplabs.mstlib.cardobjects;
 
-import com.fasterxml.jackson.annotation.JsonInclude;
-import com.fasterxml.jackson.annotation.JsonProperty;
+import de.scplabs.mstlib.json.JsonToken;
+import de.scplabs.mstlib.json.JsonWriter;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Abstract base class for card container objects that can hold multiple child elements.
@@ -12,9 +14,8 @@ import java.util.List;
  * @param <T>    the parent type
  * @param <SELF> the concrete type of the container (for fluent API)
  */
-@JsonInclude(JsonInclude.Include.NON_DEFAULT)
 public abstract class CardContainerObject<T extends CardParent<?>, SELF extends CardContainerObject<T, SELF>> extends CardObject<T, SELF> {
-    @JsonProperty(required = true)
+    private static final JsonToken ITEMS = JsonToken.of("items");
     private List<Object> items = new ArrayList<>();
     public List<Object> getItems() {
         return items;
@@ -30,6 +31,25 @@ public abstract class CardContainerObject<T extends CardParent<?>, SELF extends
         super(parent, type);
     }
 
+    @Override
+    protected void writeProperties(JsonWriter out) {
+        super.writeProperties(out);
+        writeItems(out, ITEMS, items);
+    }
+
+    /**
+     * Adds a frozen element to this container. The element is written from its cached bytes.
+     *
+     * @param element the frozen element
+     * @return this object for method chaining
+     */
+    @SuppressWarnings("unchecked")
+    public SELF add(FrozenElement element) {
+        invalidate();
+        items.add(Objects.requireNonNull(element, "element"));
+        return (SELF) this;
+    }
+
     /**
      * Adds a new ColumnSet to this container.
      *
@@ -37,6 +57,7 @@ public abstract class CardContainerObject<T extends CardParent<?>, SELF extends
      */
     @SuppressWarnings("unchecked")
     public ColumnSet<SELF> addColumnSet() {
+        invalidate();
         ColumnSet<SELF> columnSet = new ColumnSet<>((SELF) this);
         items.add(columnSet);
         return columnSet;
@@ -49,6 +70,7 @@ public abstract class CardContainerObject<T extends CardParent<?>, SELF extends
      */
     @SuppressWarnings("unchecked")
     public Container<SELF> addContainer() {
+        invalidate();
         Container<SELF> container = new Container<>((SELF) this);
         items.add(container);
         return container;
@@ -61,6 +83,7 @@ public abstract class CardContainerObject<T extends CardParent<?>, SELF extends
      */
     @SuppressWarnings("unchecked")
     public FactSet<SELF> addFactSet() {
+        invalidate();
         FactSet<SELF> factSet = new FactSet<>((SELF) this);
         items.add(factSet);
         return factSet;
@@ -74,6 +97,7 @@ public abstract class CardContainerObject<T extends CardParent<?>, SELF extends
      */
     @SuppressWarnings("unchecked")
     public Image<SELF> addImage(String url) {
+        invalidate();
         Image<SELF> im = new Image<>((SELF) this, url);
         items.add(im);
         return im;
@@ -86,6 +110,7 @@ public abstract class CardContainerObject<T extends CardParent<?>, SELF extends
      */
     @SuppressWarnings("unchecked")
     public ImageSet<SELF> addImageSet() {
+        invalidate();
         ImageSet<SELF> imSet = new ImageSet<>((SELF) this);
         items.add(imSet);
         return imSet;
@@ -98,11 +123,27 @@ public abstract class CardContainerObject<T extends CardParent<?>, SELF extends
      */
     @SuppressWarnings("unchecked")
     public Table<SELF> addTable() {
+        invalidate();
         Table<SELF> table = new Table<>((SELF) this);
         items.add(table);
         return table;
     }
 
+    /**
+     * Adds a new StreamingTable to this container whose rows are read from an iterator when the card is written.
+     *
+     * @param rows the row values
+     * @param <R>  the type of the row values
+     * @return the created StreamingTable
+     */
+    @SuppressWarnings("unchecked")
+    public <R> StreamingTable<SELF, R> addStreamingTable(Iterator<? extends R> rows) {
+        invalidate();
+        StreamingTable<SELF, R> table = new StreamingTable<>((SELF) this, rows, null);
+        items.add(table);
+        return table;
+    }
+
     /**
      * Adds a new TextBlock to this container.
      *
@@ -111,6 +152,7 @@ public abstract class CardContainerObject<T extends CardParent<?>, SELF extends
      */
     @SuppressWarnings("unchecked")
     public TextBlock<SELF> addTextBlock(String text) {
+        invalidate();
         TextBlock<SELF> tb = new TextBlock<>((SELF) this, text);
         items.add(tb);
         return tb;
@@ -123,6 +165,7 @@ public abstract class CardContainerObject<T extends CardParent<?>, SELF extends
      */
     @SuppressWarnings("unchecked")
     public Media<SELF> addMedia() {
+        invalidate();
         Media<SELF> media = new Media<>((SELF) this);
         items.add(media);
         return media;
@@ -135,6 +178,7 @@ public abstract class CardContainerObject<T extends CardParent<?>, SELF extends
      */
     @SuppressWarnings("unchecked")
     public RichTextBlock<SELF> addRichTextBlock() {
+        invalidate();
         RichTextBlock<SELF> tb = new RichTextBlock<>((SELF) this);
         items.add(tb);
         return tb;
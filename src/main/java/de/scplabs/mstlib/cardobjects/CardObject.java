@@ -1,18 +1,52 @@
 package de.scplabs.mstlib.cardobjects;
 
-import com.fasterxml.jackson.annotation.JsonInclude;
-import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import de.scplabs.mstlib.json.JsonToken;
+import de.scplabs.mstlib.json.JsonWritable;
+import de.scplabs.mstlib.json.JsonWriter;
 import de.scplabs.mstlib.options.BlockElementHeight;
 import de.scplabs.mstlib.options.Spacing;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
 /**
  * Abstract base class for all card objects that can be part of an adaptive card.
+ * <p>
+ * Optional properties are written only if they were set explicitly. Each card object tracks its set
+ * properties in a bitmask, so writing does not compare property values against their defaults.
+ * Jackson serializes card objects through the same {@link JsonWriter} encoding.
  *
  * @param <T>    the parent type
  * @param <SELF> the concrete type of the card object (for fluent API)
  */
-@JsonInclude(JsonInclude.Include.NON_DEFAULT)
-public abstract class CardObject<T extends CardParent<?>, SELF extends CardObject<T, SELF>> implements CardParent<T> {
+public abstract class CardObject<T extends CardParent<?>, SELF extends CardObject<T, SELF>>
+        implements CardParent<T>, JsonWritable, JsonSerializable {
+    private static final JsonToken TYPE = JsonToken.of("type");
+    private static final JsonToken HEIGHT = JsonToken.of("height");
+    private static final JsonToken SEPARATOR = JsonToken.of("separator");
+    private static final JsonToken SPACING = JsonToken.of("spacing");
+    private static final JsonToken VISIBLE = JsonToken.of("visible");
+    private static final JsonToken DATA = JsonToken.of("$data");
+
+    private static final int HAS_HEIGHT = 1;
+    private static final int HAS_SEPARATOR = 1 << 1;
+    private static final int HAS_SPACING = 1 << 2;
+    private static final int HAS_VISIBLE = 1 << 3;
+    /**
+     * The first presence bit available to subclasses. A subclass numbers its own properties
+     * {@code FIRST_PROPERTY}, {@code FIRST_PROPERTY << 1} and so on.
+     */
+    protected static final int FIRST_PROPERTY = 1 << 4;
+
     /**
      * The parent object of this card object.
      */
@@ -25,18 +59,24 @@ public abstract class CardObject<T extends CardParent<?>, SELF extends CardObjec
      */
     public T prev() { return parent; }
 
-    @JsonProperty(required = true)
     private String type;
 
     private BlockElementHeight height = BlockElementHeight.AUTO;
     private boolean separator = false;
     private Spacing spacing = Spacing.DEFAULT;
+    private String data;
     private boolean isVisible = true;
+    /** The presence bits of the properties that were set explicitly. */
+    private int present;
+
+    /** The encoded JSON of this element, or {@code null} if it changed since it was last written. */
+    private volatile byte[] fragment;
 
     public String getType() { return type; }
     public String getHeight() { return height.toString(); }
     public boolean isSeparator() { return separator; }
     public String getSpacing() { return spacing.toString(); }
+    public String getData() { return data; }
     public boolean isVisible() { return isVisible; }
 
     /**
@@ -50,6 +90,212 @@ public abstract class CardObject<T extends CardParent<?>, SELF extends CardObjec
         this.type = type;
     }
 
+    /**
+     * Creates an immutable snapshot of this element and its children, encoded once.
+     * The snapshot can be shared between threads and added to other cards without serializing again.
+     *
+     * @return the frozen element
+     */
+    public FrozenElement freeze() {
+        return FrozenElement.of(this);
+    }
+
+    /**
+     * Writes this card element as a JSON object. Properties that were not set are omitted.
+     *
+     * @param out the writer to write to
+     */
+    @Override
+    public void writeJson(JsonWriter out) {
+        byte[] cached = fragment;
+        if (cached != null) {
+            out.rawValue(cached);
+            return;
+        }
+        out.beginObject();
+        int start = out.size() - 1;
+        writeMembers(out, this::writeProperties);
+        fragment = out.toByteArray(start);
+    }
+
+    /**
+     * Writes this card element as a JSON object whose properties are written by the given function.
+     * Used to write variants of an element, such as the parts of a split element.
+     *
+     * @param out        the writer to write to
+     * @param properties the function writing the properties
+     */
+    protected void writeJson(JsonWriter out, Consumer<JsonWriter> properties) {
+        out.beginObject();
+        writeMembers(out, properties);
+    }
+
+    private void writeMembers(JsonWriter out, Consumer<JsonWriter> properties) {
+        properties.accept(out);
+        if (isSet(HAS_VISIBLE)) {
+            out.field(VISIBLE, isVisible);
+        }
+        writeTrailingProperties(out);
+        out.endObject();
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        JsonWriter out = new JsonWriter();
+        writeJson(out);
+        gen.writeRawValue(new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+            throws IOException {
+        serialize(gen, serializers);
+    }
+
+    /**
+     * Marks a property as set explicitly, so it is written, and discards the cached encoding.
+     * Setters call this method instead of {@link #invalidate()}.
+     *
+     * @param property the presence bit of the property
+     */
+    protected final void set(int property) {
+        present |= property;
+        invalidate();
+    }
+
+    /**
+     * Returns whether a property was set explicitly.
+     *
+     * @param property the presence bit of the property
+     * @return {@code true} if the property is written
+     */
+    protected final boolean isSet(int property) {
+        return (present & property) != 0;
+    }
+
+    /**
+     * Discards the cached encoding of this element and of all elements containing it.
+     * <p>
+     * Each element caches its encoded JSON when it is written, so writing a card again only encodes
+     * the elements that changed in the meantime. All setters and {@code add} methods call this method;
+     * call it after modifying a collection returned by a getter.
+     */
+    public void invalidate() {
+        fragment = null;
+        if (parent instanceof CardObject<?, ?> owner) {
+            owner.invalidate();
+        }
+    }
+
+    /**
+     * Writes the properties of this card element. Subclasses call this method first
+     * and then append their own properties.
+     *
+     * @param out the writer to write to
+     */
+    protected void writeProperties(JsonWriter out) {
+        if (type != null) {
+            out.field(TYPE, type);
+        }
+        writeHeight(out);
+        if (isSet(HAS_SEPARATOR)) {
+            out.field(SEPARATOR, separator);
+        }
+        if (isSet(HAS_SPACING)) {
+            out.field(SPACING, spacing);
+        }
+        if (data != null) {
+            out.field(DATA, data);
+        }
+    }
+
+    /**
+     * Writes the properties that follow {@code visible}. Subclasses override this method for properties
+     * whose JSON name differs from the field name, which the Jackson path of earlier versions wrote last.
+     *
+     * @param out the writer to write to
+     */
+    protected void writeTrailingProperties(JsonWriter out) {
+    }
+
+    /**
+     * Writes the height property of this card element.
+     *
+     * @param out the writer to write to
+     */
+    protected void writeHeight(JsonWriter out) {
+        if (isSet(HAS_HEIGHT)) {
+            out.field(HEIGHT, height);
+        }
+    }
+
+    /**
+     * Writes a list of card elements as a JSON array field, omitting empty lists.
+     *
+     * @param out   the writer to write to
+     * @param name  the field name
+     * @param items the elements to write
+     */
+    protected static void writeItems(JsonWriter out, JsonToken name, List<?> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        out.name(name).beginArray();
+        for (Object item : items) {
+            out.value(item);
+        }
+        out.endArray();
+    }
+
+    /**
+     * Writes a string field unless it equals the default value.
+     *
+     * @param out          the writer to write to
+     * @param name         the field name
+     * @param value        the value
+     * @param defaultValue the default value
+     */
+    protected static void writeString(JsonWriter out, JsonToken name, String value, String defaultValue) {
+        if (!Objects.equals(value, defaultValue)) {
+            out.field(name, value);
+        }
+    }
+
+    /**
+     * Partitions items into consecutive ranges whose encoded size stays within a limit.
+     * Every range holds at least one item, even if that item alone exceeds the limit.
+     *
+     * @param items    the items to partition
+     * @param baseSize the encoded size of a part without any items
+     * @param maxSize  the maximum encoded size of a part
+     * @param encoder  the function writing a single item
+     * @param <E>      the item type
+     * @return the ranges in order
+     */
+    protected static <E> List<List<E>> partition(List<E> items, int baseSize, int maxSize,
+                                                 BiConsumer<JsonWriter, E> encoder) {
+        List<List<E>> parts = new ArrayList<>();
+        JsonWriter out = new JsonWriter();
+        int start = 0;
+        int size = baseSize;
+        for (int i = 0; i < items.size(); i++) {
+            out.reset();
+            encoder.accept(out, items.get(i));
+            // one byte for the separating comma
+            int itemSize = out.size() + 1;
+            if (i > start && size + itemSize > maxSize) {
+                parts.add(items.subList(start, i));
+                start = i;
+                size = baseSize;
+            }
+            size += itemSize;
+        }
+        if (start < items.size()) {
+            parts.add(items.subList(start, items.size()));
+        }
+        return parts;
+    }
+
     /**
      * Sets the height of this card element.
      *
@@ -58,6 +304,7 @@ public abstract class CardObject<T extends CardParent<?>, SELF extends CardObjec
      */
     @SuppressWarnings("unchecked")
     public SELF setHeight(BlockElementHeight height) {
+        set(HAS_HEIGHT);
         this.height = height;
         return (SELF) this;
     }
@@ -70,6 +317,7 @@ public abstract class CardObject<T extends CardParent<?>, SELF extends CardObjec
      */
     @SuppressWarnings("unchecked")
     public SELF setSeparator(boolean separator) {
+        set(HAS_SEPARATOR);
         this.separator = separator;
         return (SELF) this;
     }
@@ -82,10 +330,25 @@ public abstract class CardObject<T extends CardParent<?>, SELF extends CardObjec
      */
     @SuppressWarnings("unchecked")
     public SELF setSpacing(Spacing spacing) {
+        set(HAS_SPACING);
         this.spacing = spacing;
         return (SELF) this;
     }
 
+    /**
+     * Sets the data binding of this element, e.g. {@code "${rows}"}. A {@code CardTemplate} repeats
+     * an element inside an array once for each entry of the bound data.
+     *
+     * @param data the data binding expression
+     * @return this object for method chaining
+     */
+    @SuppressWarnings("unchecked")
+    public SELF setData(String data) {
+        invalidate();
+        this.data = data;
+        return (SELF) this;
+    }
+
     /**
      * Sets whether this element is visible.
      *
@@ -94,6 +357,7 @@ public abstract class CardObject<T extends CardParent<?>, SELF extends CardObjec
      */
     @SuppressWarnings("unchecked")
     public SELF setVisible(boolean visible) {
+        set(HAS_VISIBLE);
         isVisible = visible;
         return (SELF) this;
     }
@@ -1,6 +1,7 @@
 package de.scplabs.mstlib.cardobjects;
 
-import com.fasterxml.jackson.annotation.JsonInclude;
+import de.scplabs.mstlib.json.JsonToken;
+import de.scplabs.mstlib.json.JsonWriter;
 import de.scplabs.mstlib.options.BackGroundImage;
 import de.scplabs.mstlib.options.ContainerStyle;
 import de.scplabs.mstlib.options.VerticalContentAlignment;
@@ -10,8 +11,21 @@ import de.scplabs.mstlib.options.VerticalContentAlignment;
  *
  * @param <T> the parent type
  */
-@JsonInclude(JsonInclude.Include.NON_DEFAULT)
 public class Column<T extends CardParent<?>> extends CardContainerObject<T, Column<T>> {
+    private static final JsonToken BACKGROUND_IMAGE = JsonToken.of("backgroundImage");
+    private static final JsonToken BLEED = JsonToken.of("bleed");
+    private static final JsonToken MIN_HEIGHT = JsonToken.of("minHeight");
+    private static final JsonToken RTL = JsonToken.of("rtl");
+    private static final JsonToken STYLE = JsonToken.of("style");
+    private static final JsonToken VERTICAL_CONTENT_ALIGNMENT = JsonToken.of("verticalContentAlignment");
+    private static final JsonToken WIDTH = JsonToken.of("width");
+
+    private static final int HAS_BLEED = FIRST_PROPERTY;
+    private static final int HAS_MIN_HEIGHT = FIRST_PROPERTY << 1;
+    private static final int HAS_RTL = FIRST_PROPERTY << 2;
+    private static final int HAS_STYLE = FIRST_PROPERTY << 3;
+    private static final int HAS_VERTICAL_CONTENT_ALIGNMENT = FIRST_PROPERTY << 4;
+    private static final int HAS_WIDTH = FIRST_PROPERTY << 5;
 
     private BackGroundImage<Column<T>> backgroundImage;
     private boolean bleed = false;
@@ -45,6 +59,32 @@ public class Column<T extends CardParent<?>> extends CardContainerObject<T, Colu
         super(parent, "Column");
     }
 
+    @Override
+    protected void writeProperties(JsonWriter out) {
+        super.writeProperties(out);
+        if (backgroundImage != null) {
+            out.name(BACKGROUND_IMAGE).value(backgroundImage);
+        }
+        if (isSet(HAS_BLEED)) {
+            out.field(BLEED, bleed);
+        }
+        if (isSet(HAS_MIN_HEIGHT)) {
+            out.field(MIN_HEIGHT, minHeight);
+        }
+        if (isSet(HAS_RTL)) {
+            out.field(RTL, rtl);
+        }
+        if (isSet(HAS_STYLE)) {
+            out.field(STYLE, style);
+        }
+        if (isSet(HAS_VERTICAL_CONTENT_ALIGNMENT)) {
+            out.field(VERTICAL_CONTENT_ALIGNMENT, verticalContentAlignment);
+        }
+        if (isSet(HAS_WIDTH)) {
+            out.field(WIDTH, width);
+        }
+    }
+
     /**
      * Adds a background image to this column.
      *
@@ -52,6 +92,7 @@ public class Column<T extends CardParent<?>> extends CardContainerObject<T, Colu
      * @return the created BackGroundImage object
      */
     public BackGroundImage<Column<T>> addBackgroundImage(String url) {
+        invalidate();
         this.backgroundImage = new BackGroundImage<>(this, url);
         return backgroundImage;
     }
@@ -63,6 +104,7 @@ public class Column<T extends CardParent<?>> extends CardContainerObject<T, Colu
      * @return this column for method chaining
      */
     public Column<T> setBleed(boolean bleed) {
+        set(HAS_BLEED);
         this.bleed = bleed;
         return this;
     }
@@ -74,6 +116,7 @@ public class Column<T extends CardParent<?>> extends CardContainerObject<T, Colu
      * @return this column for method chaining
      */
     public Column<T> setMinHeight(String minHeight) {
+        set(HAS_MIN_HEIGHT);
         this.minHeight = minHeight;
         return this;
     }
@@ -85,6 +128,7 @@ public class Column<T extends CardParent<?>> extends CardContainerObject<T, Colu
      * @return this column for method chaining
      */
     public Column<T> setRtl(boolean rtl) {
+        set(HAS_RTL);
         this.rtl = rtl;
         return this;
     }
@@ -96,6 +140,7 @@ public class Column<T extends CardParent<?>> extends CardContainerObject<T, Colu
      * @return this column for method chaining
      */
     public Column<T> setStyle(ContainerStyle style) {
+        set(HAS_STYLE);
         this.style = style;
         return this;
     }
@@ -107,6 +152,7 @@ public class Column<T extends CardParent<?>> extends CardContainerObject<T, Colu
      * @return this column for method chaining
      */
     public Column<T> setVerticalContentAlignment(VerticalContentAlignment verticalContentAlignment) {
+        set(HAS_VERTICAL_CONTENT_ALIGNMENT);
         this.verticalContentAlignment = verticalContentAlignment;
         return this;
     }
@@ -118,6 +164,7 @@ public class Column<T extends CardParent<?>> extends CardContainerObject<T, Colu
      * @return this column for method chaining
      */
     public Column<T> setWidth(String width) {
+        set(HAS_WIDTH);
         this.width = width;
         return this;
     }
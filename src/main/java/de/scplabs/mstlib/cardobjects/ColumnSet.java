@@ -1,9 +1,11 @@
 package de.scplabs.mstlib.cardobjects;
 
-import com.fasterxml.jackson.annotation.JsonInclude;
+import de.scplabs.mstlib.json.JsonToken;
+import de.scplabs.mstlib.json.JsonWriter;
 import de.scplabs.mstlib.options.ContainerStyle;
 import de.scplabs.mstlib.options.HorizontalAlignments;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -12,10 +14,19 @@ import java.util.List;
  *
  * @param <T> the parent type
  */
-@JsonInclude(JsonInclude.Include.NON_DEFAULT)
 public class ColumnSet<T extends CardParent<?>> extends CardSetObject<T, ColumnSet<T>> {
+    private static final JsonToken COLUMNS = JsonToken.of("columns");
+    private static final JsonToken STYLE = JsonToken.of("style");
+    private static final JsonToken BLEED = JsonToken.of("bleed");
+    private static final JsonToken MIN_HEIGHT = JsonToken.of("minHeight");
+    private static final JsonToken HORIZONTAL_ALIGNMENT = JsonToken.of("horizontalAlignment");
 
-    private List<Column<ColumnSet<T>>> columns;
+    private static final int HAS_STYLE = FIRST_PROPERTY;
+    private static final int HAS_BLEED = FIRST_PROPERTY << 1;
+    private static final int HAS_MIN_HEIGHT = FIRST_PROPERTY << 2;
+    private static final int HAS_HORIZONTAL_ALIGNMENT = FIRST_PROPERTY << 3;
+
+    private final List<Column<ColumnSet<T>>> columns = new ArrayList<>();
     private ContainerStyle style = ContainerStyle.DEFAULT;
     private boolean bleed = false;
     private String minHeight = "";
@@ -43,12 +54,31 @@ public class ColumnSet<T extends CardParent<?>> extends CardSetObject<T, ColumnS
         super(parent, "ColumnSet");
     }
 
+    @Override
+    protected void writeProperties(JsonWriter out) {
+        super.writeProperties(out);
+        writeItems(out, COLUMNS, columns);
+        if (isSet(HAS_STYLE)) {
+            out.field(STYLE, style);
+        }
+        if (isSet(HAS_BLEED)) {
+            out.field(BLEED, bleed);
+        }
+        if (isSet(HAS_MIN_HEIGHT)) {
+            out.field(MIN_HEIGHT, minHeight);
+        }
+        if (isSet(HAS_HORIZONTAL_ALIGNMENT)) {
+            out.field(HORIZONTAL_ALIGNMENT, horizontalAlignment);
+        }
+    }
+
     /**
      * Adds a new Column with the specified parent.
      *
      * @return the created column for method chaining
      */
     public Column<ColumnSet<T>> addColumn() {
+        invalidate();
         Column<ColumnSet<T>> column = new Column<>(this);
         columns.add(column);
         return column;
@@ -61,6 +91,7 @@ public class ColumnSet<T extends CardParent<?>> extends CardSetObject<T, ColumnS
      * @return this column set for method chaining
      */
     public ColumnSet<T> setStyle(ContainerStyle style) {
+        set(HAS_STYLE);
         this.style = style;
         return this;
     }
@@ -72,6 +103,7 @@ public class ColumnSet<T extends CardParent<?>> extends CardSetObject<T, ColumnS
      * @return this column set for method chaining
      */
     public ColumnSet<T> setBleed(boolean bleed) {
+        set(HAS_BLEED);
         this.bleed = bleed;
         return this;
     }
@@ -83,6 +115,7 @@ public class ColumnSet<T extends CardParent<?>> extends CardSetObject<T, ColumnS
      * @return this column set for method chaining
      */
     public ColumnSet<T> setMinHeight(String minHeight) {
+        set(HAS_MIN_HEIGHT);
         this.minHeight = minHeight;
         return this;
     }
@@ -94,6 +127,7 @@ public class ColumnSet<T extends CardParent<?>> extends CardSetObject<T, ColumnS
      * @return this column set for method chaining
      */
     public ColumnSet<T> setHorizontalAlignment(HorizontalAlignments horizontalAlignment) {
+        set(HAS_HORIZONTAL_ALIGNMENT);
         this.horizontalAlignment = horizontalAlignment;
         return this;
     }
@@ -1,17 +1,41 @@
 package de.scplabs.mstlib.cardobjects;
 
+import de.scplabs.mstlib.json.JsonToken;
+import de.scplabs.mstlib.json.JsonWritable;
+import de.scplabs.mstlib.json.JsonWriter;
+
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
 
 /**
  * Represents a set of facts in an adaptive card, allowing multiple key-value pairs (facts)
  * to be grouped together and displayed in a structured format.
+ * <p>
+ * Facts are stored in parallel arrays of titles, values and data bindings rather than as one object
+ * per fact, so fact sets with hundreds of entries are cheap to build and are written straight from
+ * the arrays. {@link #getFacts()} returns a list view creating {@link Fact} records on access.
  *
  * @param <T> the parent type
  */
-public class FactSet<T extends CardParent<?>> extends CardSetObject<T, FactSet<T>> {
+public class FactSet<T extends CardParent<?>> extends CardSetObject<T, FactSet<T>> implements Splittable {
+    private static final JsonToken FACTS = JsonToken.of("facts");
+    private static final JsonToken TITLE = JsonToken.of("title");
+    private static final JsonToken VALUE = JsonToken.of("value");
+    private static final JsonToken DATA = JsonToken.of("$data");
+
+    private static final String[] EMPTY = new String[0];
 
-    private final List<Fact> facts = new ArrayList<>();
+    private String[] titles = EMPTY;
+    private String[] values = EMPTY;
+    /** The data bindings, or {@code null} as long as no fact has one. */
+    private String[] data;
+    private int size;
+    private final FactList facts = new FactList();
 
     public List<Fact> getFacts() { return facts; }
 
@@ -31,6 +55,57 @@ public class FactSet<T extends CardParent<?>> extends CardSetObject<T, FactSet<T
         super(parent, "FactSet");
     }
 
+    @Override
+    protected void writeProperties(JsonWriter out) {
+        writeProperties(out, 0, size);
+    }
+
+    private void writeProperties(JsonWriter out, int from, int to) {
+        super.writeProperties(out);
+        if (from >= to) {
+            return;
+        }
+        out.name(FACTS).beginArray();
+        for (int i = from; i < to; i++) {
+            writeFact(out, titles[i], values[i], data == null ? null : data[i]);
+        }
+        out.endArray();
+    }
+
+    private static void writeFact(JsonWriter out, String title, String value, String data) {
+        out.beginObject()
+                .field(TITLE, title)
+                .field(VALUE, value);
+        if (data != null) {
+            out.field(DATA, data);
+        }
+        out.endObject();
+    }
+
+    /**
+     * Splits this fact set into fact sets holding consecutive ranges of its facts.
+     *
+     * @param maxSize the maximum encoded size of a part in bytes
+     * @return the parts in order
+     */
+    @Override
+    public List<JsonWritable> split(int maxSize) {
+        JsonWriter measure = new JsonWriter();
+        writeJson(measure, out -> writeProperties(out, 0, 0));
+        // the empty fact set omits the facts array: ,"facts":[]
+        int baseSize = measure.size() + 11;
+        List<JsonWritable> parts = new ArrayList<>();
+        int from = 0;
+        for (List<Fact> range : partition(facts, baseSize, maxSize,
+                (out, fact) -> writeFact(out, fact.title(), fact.value(), fact.data()))) {
+            int start = from;
+            int end = from + range.size();
+            parts.add(out -> writeJson(out, o -> writeProperties(o, start, end)));
+            from = end;
+        }
+        return parts.isEmpty() ? List.of(this) : parts;
+    }
+
     /**
      * Adds a new fact to this fact set.
      *
@@ -39,15 +114,195 @@ public class FactSet<T extends CardParent<?>> extends CardSetObject<T, FactSet<T
      * @return this fact set for method chaining
      */
     public FactSet<T> addFact(String title, String value) {
-        facts.add(new Fact(title, value));
+        invalidate();
+        insert(size, title, value, null);
         return this;
     }
 
+    /**
+     * Adds a fact for each entry of a map, in its iteration order.
+     *
+     * @param facts the titles (keys) and values of the facts
+     * @return this fact set for method chaining
+     */
+    public FactSet<T> addFacts(Map<String, String> facts) {
+        invalidate();
+        this.facts.modified();
+        ensureCapacity(size + facts.size());
+        for (Map.Entry<String, String> fact : facts.entrySet()) {
+            titles[size] = fact.getKey();
+            values[size] = fact.getValue();
+            size++;
+        }
+        return this;
+    }
+
+    /**
+     * Adds a fact for each pair of title and value at the same position.
+     *
+     * @param titles the titles (keys) of the facts
+     * @param values the values of the facts
+     * @return this fact set for method chaining
+     * @throws IllegalArgumentException if the arrays differ in length
+     */
+    public FactSet<T> addFacts(String[] titles, String[] values) {
+        if (titles.length != values.length) {
+            throw new IllegalArgumentException("titles and values must have the same length");
+        }
+        invalidate();
+        facts.modified();
+        ensureCapacity(size + titles.length);
+        System.arraycopy(titles, 0, this.titles, size, titles.length);
+        System.arraycopy(values, 0, this.values, size, values.length);
+        size += titles.length;
+        return this;
+    }
+
+    /**
+     * Adds a fact that a {@code CardTemplate} repeats once for each entry of the bound data,
+     * e.g. {@code addRepeatedFact("${facts}", "${key}", "${value}")}.
+     *
+     * @param data  the data binding expression
+     * @param title the title (key) of the fact
+     * @param value the value of the fact
+     * @return this fact set for method chaining
+     */
+    public FactSet<T> addRepeatedFact(String data, String title, String value) {
+        invalidate();
+        insert(size, title, value, data);
+        return this;
+    }
+
+    /**
+     * Replaces the fact at the given position, keeping its data binding.
+     *
+     * @param index the position of the fact
+     * @param title the new title (key) of the fact
+     * @param value the new value of the fact
+     * @return this fact set for method chaining
+     * @throws IndexOutOfBoundsException if there is no fact at the position
+     */
+    public FactSet<T> setFact(int index, String title, String value) {
+        Objects.checkIndex(index, size);
+        invalidate();
+        titles[index] = title;
+        values[index] = value;
+        return this;
+    }
+
+    private void insert(int index, String title, String value, String binding) {
+        facts.modified();
+        ensureCapacity(size + 1);
+        System.arraycopy(titles, index, titles, index + 1, size - index);
+        System.arraycopy(values, index, values, index + 1, size - index);
+        if (data != null) {
+            System.arraycopy(data, index, data, index + 1, size - index);
+            data[index] = null;
+        }
+        titles[index] = title;
+        values[index] = value;
+        size++;
+        if (binding != null) {
+            setData(index, binding);
+        }
+    }
+
+    private void setData(int index, String binding) {
+        if (data == null) {
+            if (binding == null) {
+                return;
+            }
+            data = new String[titles.length];
+        }
+        data[index] = binding;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > titles.length) {
+            int length = Math.max(capacity, Math.max(8, titles.length + (titles.length >> 1)));
+            titles = Arrays.copyOf(titles, length);
+            values = Arrays.copyOf(values, length);
+            if (data != null) {
+                data = Arrays.copyOf(data, length);
+            }
+        }
+    }
+
+    /**
+     * A list view of the facts. Changes through the view are written to the arrays and invalidate the fact set.
+     */
+    private final class FactList extends AbstractList<Fact> implements RandomAccess {
+
+        /**
+         * Records a structural change made through the fact set, so iterators over the view fail fast.
+         */
+        void modified() {
+            modCount++;
+        }
+
+        @Override
+        public Fact get(int index) {
+            Objects.checkIndex(index, size);
+            return new Fact(titles[index], values[index], data == null ? null : data[index]);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Fact set(int index, Fact fact) {
+            Fact previous = get(index);
+            invalidate();
+            titles[index] = fact.title();
+            values[index] = fact.value();
+            setData(index, fact.data());
+            return previous;
+        }
+
+        @Override
+        public void add(int index, Fact fact) {
+            Objects.checkIndex(index, size + 1);
+            invalidate();
+            insert(index, fact.title(), fact.value(), fact.data());
+        }
+
+        @Override
+        public Fact remove(int index) {
+            Fact previous = get(index);
+            invalidate();
+            modCount++;
+            System.arraycopy(titles, index + 1, titles, index, size - index - 1);
+            System.arraycopy(values, index + 1, values, index, size - index - 1);
+            if (data != null) {
+                System.arraycopy(data, index + 1, data, index, size - index - 1);
+                data[size - 1] = null;
+            }
+            size--;
+            titles[size] = null;
+            values[size] = null;
+            return previous;
+        }
+    }
+
     /**
      * Represents a single fact as a key-value pair.
      *
      * @param title the title (key) of the fact
      * @param value the value of the fact
+     * @param data  the data binding expression repeating the fact, or {@code null}
      */
-    public record Fact(String title, String value) { }
+    public record Fact(String title, String value, String data) {
+
+        /**
+         * Creates a fact without data binding.
+         *
+         * @param title the title (key) of the fact
+         * @param value the value of the fact
+         */
+        public Fact(String title, String value) {
+            this(title, value, null);
+        }
+    }
 }
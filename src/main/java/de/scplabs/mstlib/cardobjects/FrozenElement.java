@@ -0,0 +1,97 @@
+package de.scplabs.mstlib.cardobjects;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import de.scplabs.mstlib.json.JsonWritable;
+import de.scplabs.mstlib.json.JsonWriter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * An immutable snapshot of a card element, holding its encoded JSON.
+ * <p>
+ * A frozen element is created with {@link CardObject#freeze()}. It has no parent, can be shared freely
+ * between threads and can be added to any number of cards or containers; writing it only copies the
+ * cached bytes. Later changes to the element it was frozen from do not affect the snapshot.
+ */
+public final class FrozenElement implements JsonWritable, JsonSerializable {
+
+    private final byte[] json;
+
+    private FrozenElement(byte[] json) {
+        this.json = json;
+    }
+
+    /**
+     * Freezes the current state of a JSON value.
+     *
+     * @param value the value to freeze, e.g. a card element
+     * @return the frozen snapshot, or the value itself if it is already frozen
+     */
+    public static FrozenElement of(JsonWritable value) {
+        if (value instanceof FrozenElement frozen) {
+            return frozen;
+        }
+        JsonWriter out = new JsonWriter();
+        value.writeJson(out);
+        return new FrozenElement(out.toByteArray());
+    }
+
+    /**
+     * Returns the size of the encoded JSON in bytes.
+     *
+     * @return the encoded size
+     */
+    public int size() {
+        return json.length;
+    }
+
+    /**
+     * Returns a copy of the encoded JSON.
+     *
+     * @return the UTF-8 encoded JSON
+     */
+    public byte[] toByteArray() {
+        return json.clone();
+    }
+
+    @Override
+    public void writeJson(JsonWriter out) {
+        out.rawValue(json);
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        gen.writeRawValue(toString());
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+            throws IOException {
+        serialize(gen, serializers);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof FrozenElement other && Arrays.equals(json, other.json);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(json);
+    }
+
+    /**
+     * Returns the encoded JSON.
+     *
+     * @return the JSON text
+     */
+    @Override
+    public String toString() {
+        return new String(json, StandardCharsets.UTF_8);
+    }
+}
@@ -1,6 +1,7 @@
 package de.scplabs.mstlib.cardobjects;
 
-import com.fasterxml.jackson.annotation.JsonInclude;
+import de.scplabs.mstlib.json.JsonToken;
+import de.scplabs.mstlib.json.JsonWriter;
 import de.scplabs.mstlib.options.BlockElementHeight;
 import de.scplabs.mstlib.options.HorizontalAlignments;
 import de.scplabs.mstlib.options.ImageSize;
@@ -11,8 +12,23 @@ import de.scplabs.mstlib.options.ImageStyle;
  *
  * @param <T> the parent type
  */
-@JsonInclude(JsonInclude.Include.NON_DEFAULT)
 public class Image<T extends CardParent<?>> extends CardObject<T, Image<T>> {
+    private static final JsonToken URL = JsonToken.of("url");
+    private static final JsonToken ALT_TEXT = JsonToken.of("altText");
+    private static final JsonToken BACKGROUND_COLOR = JsonToken.of("backgroundColor");
+    private static final JsonToken HEIGHT = JsonToken.of("height");
+    private static final JsonToken HORIZONTAL_ALIGNMENT = JsonToken.of("horizontalAlignment");
+    private static final JsonToken SIZE = JsonToken.of("size");
+    private static final JsonToken STYLE = JsonToken.of("style");
+    private static final JsonToken WIDTH = JsonToken.of("width");
+
+    private static final int HAS_ALT_TEXT = FIRST_PROPERTY;
+    private static final int HAS_BACKGROUND_COLOR = FIRST_PROPERTY << 1;
+    private static final int HAS_HEIGHT = FIRST_PROPERTY << 2;
+    private static final int HAS_HORIZONTAL_ALIGNMENT = FIRST_PROPERTY << 3;
+    private static final int HAS_SIZE = FIRST_PROPERTY << 4;
+    private static final int HAS_STYLE = FIRST_PROPERTY << 5;
+    private static final int HAS_WIDTH = FIRST_PROPERTY << 6;
 
     private String url;
     private String altText = "";
@@ -51,6 +67,49 @@ public class Image<T extends CardParent<?>> extends CardObject<T, Image<T>> {
         this.url = url;
     }
 
+    @Override
+    protected void writeProperties(JsonWriter out) {
+        super.writeProperties(out);
+        writeString(out, URL, url, null);
+        if (isSet(HAS_ALT_TEXT)) {
+            out.field(ALT_TEXT, altText);
+        }
+        if (isSet(HAS_BACKGROUND_COLOR)) {
+            out.field(BACKGROUND_COLOR, backgroundColor);
+        }
+        if (isSet(HAS_HORIZONTAL_ALIGNMENT)) {
+            out.field(HORIZONTAL_ALIGNMENT, horizontalAlignment);
+        }
+        if (isSet(HAS_SIZE)) {
+            out.field(SIZE, size);
+        }
+        if (isSet(HAS_STYLE)) {
+            out.field(STYLE, style);
+        }
+        if (isSet(HAS_WIDTH)) {
+            out.field(WIDTH, width);
+        }
+    }
+
+    @Override
+    protected void writeHeight(JsonWriter out) {
+        if (isSet(HAS_HEIGHT)) {
+            out.field(HEIGHT, height);
+        }
+    }
+
+    /**
+     * Sets the URL of the image.
+     *
+     * @param url the URL of the image
+     * @return this image for method chaining
+     */
+    public Image<T> setUrl(String url) {
+        invalidate();
+        this.url = url;
+        return this;
+    }
+
     /**
      * Sets the alternative text for the image.
      *
@@ -58,6 +117,7 @@ public class Image<T extends CardParent<?>> extends CardObject<T, Image<T>> {
      * @return this image for method chaining
      */
     public Image<T> setAltText(String altText) {
+        set(HAS_ALT_TEXT);
         this.altText = altText;
         return this;
     }
@@ -69,6 +129,7 @@ public class Image<T extends CardParent<?>> extends CardObject<T, Image<T>> {
      * @return this image for method chaining
      */
     public Image<T> setBackgroundColor(String backgroundColor) {
+        set(HAS_BACKGROUND_COLOR);
         this.backgroundColor = backgroundColor;
         return this;
     }
@@ -80,6 +141,7 @@ public class Image<T extends CardParent<?>> extends CardObject<T, Image<T>> {
      * @return this image for method chaining
      */
     public Image<T> setHeight(String height) {
+        set(HAS_HEIGHT);
         this.height = height;
         return this;
     }
@@ -102,6 +164,7 @@ public class Image<T extends CardParent<?>> extends CardObject<T, Image<T>> {
      * @return this image for method chaining
      */
     public Image<T> setHorizontalAlignment(HorizontalAlignments horizontalAlignment) {
+        set(HAS_HORIZONTAL_ALIGNMENT);
         this.horizontalAlignment = horizontalAlignment;
         return this;
     }
@@ -113,6 +176,7 @@ public class Image<T extends CardParent<?>> extends CardObject<T, Image<T>> {
      * @return this image for method chaining
      */
     public Image<T> setSize(ImageSize size) {
+        set(HAS_SIZE);
         this.size = size;
         return this;
     }
@@ -124,6 +188,7 @@ public class Image<T extends CardParent<?>> extends CardObject<T, Image<T>> {
      * @return this image for method chaining
      */
     public Image<T> setStyle(ImageStyle style) {
+        set(HAS_STYLE);
         this.style = style;
         return this;
     }
@@ -135,6 +200,7 @@ public class Image<T extends CardParent<?>> extends CardObject<T, Image<T>> {
      * @return this image for method chaining
      */
     public Image<T> setWidth(String width) {
+        set(HAS_WIDTH);
         this.width = width;
         return this;
     }
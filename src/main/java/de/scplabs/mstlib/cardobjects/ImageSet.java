@@ -1,7 +1,7 @@
 package de.scplabs.mstlib.cardobjects;
 
-import com.fasterxml.jackson.annotation.JsonInclude;
-import com.fasterxml.jackson.annotation.JsonProperty;
+import de.scplabs.mstlib.json.JsonToken;
+import de.scplabs.mstlib.json.JsonWriter;
 import de.scplabs.mstlib.options.ImageSetStyle;
 import de.scplabs.mstlib.options.ImageSize;
 
@@ -14,10 +14,14 @@ import java.util.List;
  *
  * @param <T> the parent type
  */
-@JsonInclude(JsonInclude.Include.NON_DEFAULT)
 public class ImageSet<T extends CardParent<?>> extends CardSetObject<T, ImageSet<T>> {
+    private static final JsonToken IMAGES = JsonToken.of("images");
+    private static final JsonToken IMAGE_SIZE = JsonToken.of("imageSize");
+    private static final JsonToken STYLE = JsonToken.of("style");
+
+    private static final int HAS_IMAGE_SIZE = FIRST_PROPERTY;
+    private static final int HAS_STYLE = FIRST_PROPERTY << 1;
 
-    @JsonProperty(required = true)
     private List<Image<ImageSet<T>>> images = new ArrayList<>();
     private ImageSize imageSize = ImageSize.MEDIUM;
     private ImageSetStyle style = ImageSetStyle.DEFAULT;
@@ -42,6 +46,18 @@ public class ImageSet<T extends CardParent<?>> extends CardSetObject<T, ImageSet
         super(parent, "ImageSet");
     }
 
+    @Override
+    protected void writeProperties(JsonWriter out) {
+        super.writeProperties(out);
+        writeItems(out, IMAGES, images);
+        if (isSet(HAS_IMAGE_SIZE)) {
+            out.field(IMAGE_SIZE, imageSize);
+        }
+        if (isSet(HAS_STYLE)) {
+            out.field(STYLE, style);
+        }
+    }
+
     /**
      * Adds a new image to this image set.
      *
@@ -49,6 +65,7 @@ public class ImageSet<T extends CardParent<?>> extends CardSetObject<T, ImageSet
      * @return the created Image object
      */
     public Image<ImageSet<T>> addImage(String url) {
+        invalidate();
         Image<ImageSet<T>> image = new Image<>(this, url);
         images.add(image);
         return image;
@@ -61,6 +78,7 @@ public class ImageSet<T extends CardParent<?>> extends CardSetObject<T, ImageSet
      * @return this image set for method chaining
      */
     public ImageSet<T> setImageSize(ImageSize imageSize) {
+        set(HAS_IMAGE_SIZE);
         this.imageSize = imageSize;
         return this;
     }
@@ -72,6 +90,7 @@ public class ImageSet<T extends CardParent<?>> extends CardSetObject<T, ImageSet
      * @return this image set for method chaining
      */
     public ImageSet<T> setStyle(ImageSetStyle style) {
+        set(HAS_STYLE);
         this.style = style;
         return this;
     }
@@ -1,7 +1,8 @@
 package de.scplabs.mstlib.cardobjects;
 
-import com.fasterxml.jackson.annotation.JsonInclude;
-import com.fasterxml.jackson.annotation.JsonProperty;
+import de.scplabs.mstlib.json.JsonToken;
+import de.scplabs.mstlib.json.JsonWritable;
+import de.scplabs.mstlib.json.JsonWriter;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -12,10 +13,18 @@ import java.util.List;
  *
  * @param <T> the parent type
  */
-@JsonInclude(JsonInclude.Include.NON_DEFAULT)
 public class Media<T extends CardParent<?>> extends CardSetObject<T, Media<T>> {
+    private static final JsonToken SOURCES = JsonToken.of("sources");
+    private static final JsonToken POSTER = JsonToken.of("poster");
+    private static final JsonToken ALT_TEXT = JsonToken.of("altText");
+    private static final JsonToken CAPTION_SOURCES = JsonToken.of("captionSources");
+    private static final JsonToken URL = JsonToken.of("url");
+    private static final JsonToken MIME_TYPE = JsonToken.of("mimeType");
+    private static final JsonToken LABEL = JsonToken.of("label");
+
+    private static final int HAS_POSTER = FIRST_PROPERTY;
+    private static final int HAS_ALT_TEXT = FIRST_PROPERTY << 1;
 
-    @JsonProperty(required = true)
     private final List<MediaSource> sources = new ArrayList<>();
     private String poster = "";
     private String altText = "";
@@ -42,6 +51,19 @@ public class Media<T extends CardParent<?>> extends CardSetObject<T, Media<T>> {
         super(parent, "Media");
     }
 
+    @Override
+    protected void writeProperties(JsonWriter out) {
+        super.writeProperties(out);
+        writeItems(out, SOURCES, sources);
+        if (isSet(HAS_POSTER)) {
+            out.field(POSTER, poster);
+        }
+        if (isSet(HAS_ALT_TEXT)) {
+            out.field(ALT_TEXT, altText);
+        }
+        writeItems(out, CAPTION_SOURCES, captionSources);
+    }
+
     /**
      * Adds a new media source with the specified URL.
      *
@@ -49,6 +71,7 @@ public class Media<T extends CardParent<?>> extends CardSetObject<T, Media<T>> {
      * @return this media object for method chaining
      */
     public Media<T> addSource(String url) {
+        invalidate();
         MediaSource source = new MediaSource(url);
         sources.add(source);
         return this;
@@ -62,6 +85,7 @@ public class Media<T extends CardParent<?>> extends CardSetObject<T, Media<T>> {
      * @return this media object for method chaining
      */
     public Media<T> addSource(String url, String mimeType) {
+        invalidate();
         MediaSource source = new MediaSource(url, mimeType);
         sources.add(source);
         return this;
@@ -74,6 +98,7 @@ public class Media<T extends CardParent<?>> extends CardSetObject<T, Media<T>> {
      * @return this media object for method chaining
      */
     public Media<T> setPoster(String poster) {
+        set(HAS_POSTER);
         this.poster = poster;
         return this;
     }
@@ -85,6 +110,7 @@ public class Media<T extends CardParent<?>> extends CardSetObject<T, Media<T>> {
      * @return this media object for method chaining
      */
     public Media<T> setAltText(String altText) {
+        set(HAS_ALT_TEXT);
         this.altText = altText;
         return this;
     }
@@ -98,6 +124,7 @@ public class Media<T extends CardParent<?>> extends CardSetObject<T, Media<T>> {
      * @return this media object for method chaining
      */
     public Media<T> addCaptionSource(String mimeType, String url, String label) {
+        invalidate();
         CaptionSource captionSource = new CaptionSource(mimeType, url, label);
         captionSources.add(captionSource);
         return this;
@@ -107,8 +134,7 @@ public class Media<T extends CardParent<?>> extends CardSetObject<T, Media<T>> {
     /**
      * Represents a single media source with a URL and optional MIME type.
      */
-    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
-    public static class MediaSource {
+    public static class MediaSource implements JsonWritable {
         private String url = "";
         private String mimeType = "";
 
@@ -139,12 +165,20 @@ public class Media<T extends CardParent<?>> extends CardSetObject<T, Media<T>> {
             this.url = url;
             this.mimeType = mimeType;
         }
+
+        @Override
+        public void writeJson(JsonWriter out) {
+            out.beginObject();
+            writeString(out, URL, url, "");
+            writeString(out, MIME_TYPE, mimeType, "");
+            out.endObject();
+        }
     }
 
     /**
      * Represents a caption source for the media, such as subtitles or captions.
      */
-    public static class CaptionSource {
+    public static class CaptionSource implements JsonWritable {
         private String mimeType = "";
         private String url = "";
         private String label = "";
@@ -170,5 +204,14 @@ public class Media<T extends CardParent<?>> extends CardSetObject<T, Media<T>> {
             this.url = url;
             this.label = label;
         }
+
+        @Override
+        public void writeJson(JsonWriter out) {
+            out.beginObject()
+                    .field(MIME_TYPE, mimeType)
+                    .field(URL, url)
+                    .field(LABEL, label)
+                    .endObject();
+        }
     }
 }
@@ -1,6 +1,7 @@
 package de.scplabs.mstlib.cardobjects;
 
-import com.fasterxml.jackson.annotation.JsonInclude;
+import de.scplabs.mstlib.json.JsonToken;
+import de.scplabs.mstlib.json.JsonWriter;
 import de.scplabs.mstlib.options.HorizontalAlignments;
 
 import java.util.ArrayList;
@@ -12,8 +13,11 @@ import java.util.List;
  *
  * @param <T> the parent type
  */
-@JsonInclude(JsonInclude.Include.NON_DEFAULT)
 public class RichTextBlock<T extends CardParent<?>> extends CardSetObject<T, RichTextBlock<T>> {
+    private static final JsonToken INLINES = JsonToken.of("inlines");
+    private static final JsonToken HORIZONTAL_ALIGNMENT = JsonToken.of("horizontalAlignment");
+
+    private static final int HAS_HORIZONTAL_ALIGNMENT = FIRST_PROPERTY;
 
     private List<TextRun<RichTextBlock<T>>> inlines = new ArrayList<>();
     private HorizontalAlignments horizontalAlignment = HorizontalAlignments.LEFT;
@@ -37,6 +41,15 @@ public class RichTextBlock<T extends CardParent<?>> extends CardSetObject<T, Ric
         super(parent, "RichTextBlock");
     }
 
+    @Override
+    protected void writeProperties(JsonWriter out) {
+        super.writeProperties(out);
+        writeItems(out, INLINES, inlines);
+        if (isSet(HAS_HORIZONTAL_ALIGNMENT)) {
+            out.field(HORIZONTAL_ALIGNMENT, horizontalAlignment);
+        }
+    }
+
     /**
      * Adds a new text run (inline) with the specified text to this rich text block.
      *
@@ -44,6 +57,7 @@ public class RichTextBlock<T extends CardParent<?>> extends CardSetObject<T, Ric
      * @return the created TextRun object
      */
     public TextRun<RichTextBlock<T>> addInline(String text) {
+        invalidate();
         TextRun<RichTextBlock<T>> inline = new TextRun<>(this, text);
         inlines.add(inline);
         return inline;
@@ -56,6 +70,7 @@ public class RichTextBlock<T extends CardParent<?>> extends CardSetObject<T, Ric
      * @return this rich text block for method chaining
      */
     public RichTextBlock<T> setHorizontalAlignment(HorizontalAlignments horizontalAlignment) {
+        set(HAS_HORIZONTAL_ALIGNMENT);
         this.horizontalAlignment = horizontalAlignment;
         return this;
     }
@@ -0,0 +1,21 @@
+package de.scplabs.mstlib.cardobjects;
+
+import de.scplabs.mstlib.json.JsonWritable;
+
+import java.util.List;
+
+/**
+ * Implemented by card elements whose content can be divided across several messages
+ * when a card exceeds the payload limit of Teams.
+ */
+public interface Splittable {
+
+    /**
+     * Splits this element into parts that each encode to at most the given number of bytes, where possible.
+     * Every part is a copy of this element holding a consecutive range of its content.
+     *
+     * @param maxSize the maximum encoded size of a part in bytes
+     * @return the parts in order; a single part if the content cannot be divided further
+     */
+    List<JsonWritable> split(int maxSize);
+}
@@ -0,0 +1,413 @@
+package de.scplabs.mstlib.cardobjects;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import de.scplabs.mstlib.json.JsonToken;
+import de.scplabs.mstlib.json.JsonWritable;
+import de.scplabs.mstlib.json.JsonWriter;
+import de.scplabs.mstlib.options.ContainerStyle;
+import de.scplabs.mstlib.options.HorizontalAlignments;
+import de.scplabs.mstlib.options.VerticalContentAlignment;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * A table element whose rows are read from an iterator while the card is written, instead of being
+ * held as {@link Table.TableRow} objects.
+ * <p>
+ * The columns form a row template: each column has a {@link TableColumnFormat} and a function extracting
+ * its value from a row. When the card is written for the first time, every row is formatted and encoded
+ * straight into the output, so no cell, text block or list is created per row. The iterator is consumed
+ * by that first write; the table keeps only its encoded bytes and the offsets of the rows, which later
+ * writes repeat and {@link #split(int)} divides. The table can no longer be changed once it was written.
+ * <p>
+ * Memory therefore does not grow with per-row objects, but it still grows with the number of rows:
+ * the encoded bytes are held by the table, and the payload of the built webhook holds them as well.
+ * <p>
+ * If the iterator or a value function throws while the table is written, the rows read so far are lost
+ * and the table is marked as failed; every later write throws an {@link IllegalStateException}.
+ * <pre>{@code
+ * builder.addStreamingTable(hosts.stream())
+ *         .addColumn(TableColumnFormat.of("Host"), Host::name)
+ *         .addColumn(TableColumnFormat.of("Load").setAlignment(HorizontalAlignments.RIGHT), Host::load);
+ * }</pre>
+ *
+ * @param <T> the parent type
+ * @param <R> the type of the row values
+ */
+public class StreamingTable<T extends CardParent<?>, R> extends CardObject<T, StreamingTable<T, R>>
+        implements Splittable {
+    private static final JsonToken COLUMNS = JsonToken.of("columns");
+    private static final JsonToken ROWS = JsonToken.of("rows");
+    private static final JsonToken FIRST_ROW_AS_HEADER = JsonToken.of("firstRowAsHeader");
+    private static final JsonToken SHOW_GRID_LINES = JsonToken.of("showGridLines");
+    private static final JsonToken GRID_STYLE = JsonToken.of("gridStyle");
+    private static final JsonToken HORIZONTAL_CELL_CONTENT_ALIGNMENT = JsonToken.of("horizontalCellContentAlignment");
+    private static final JsonToken VERTICAL_CELL_CONTENT_ALIGNMENT = JsonToken.of("verticalCellContentAlignment");
+    private static final JsonToken WIDTH = JsonToken.of("width");
+    private static final JsonToken TYPE = JsonToken.of("type");
+    private static final JsonToken CELLS = JsonToken.of("cells");
+    private static final JsonToken ITEMS = JsonToken.of("items");
+    private static final JsonToken TEXT = JsonToken.of("text");
+    private static final JsonToken TABLE_ROW = JsonToken.of("TableRow");
+    private static final JsonToken TABLE_CELL = JsonToken.of("TableCell");
+    private static final JsonToken TEXT_BLOCK = JsonToken.of("TextBlock");
+
+    private static final int HAS_FIRST_ROW_AS_HEADER = FIRST_PROPERTY;
+    private static final int HAS_SHOW_GRID_LINES = FIRST_PROPERTY << 1;
+    private static final int HAS_GRID_STYLE = FIRST_PROPERTY << 2;
+    private static final int HAS_HORIZONTAL_CELL_CONTENT_ALIGNMENT = FIRST_PROPERTY << 3;
+    private static final int HAS_VERTICAL_CELL_CONTENT_ALIGNMENT = FIRST_PROPERTY << 4;
+
+    private final Iterator<? extends R> rows;
+    private final AutoCloseable onClose;
+    private final List<TableColumnFormat> formats = new ArrayList<>();
+    private final List<Function<? super R, ?>> values = new ArrayList<>();
+    private boolean firstRowAsHeader = true;
+    private boolean showGridLines = true;
+    private ContainerStyle gridStyle = ContainerStyle.DEFAULT;
+    private HorizontalAlignments horizontalCellContentAlignment = HorizontalAlignments.LEFT;
+    private VerticalContentAlignment verticalCellContentAlignment = VerticalContentAlignment.TOP;
+
+    /** The encoded table, or {@code null} if it was not written yet. */
+    private volatile byte[] encoded;
+    /** Whether the first write failed after consuming part of the iterator. */
+    private volatile boolean failed;
+    /** The offset of the first row and the end offsets of all rows within {@link #encoded}. */
+    private int rowsStart;
+    private int[] rowEnds = new int[0];
+    private int rowCount;
+    private boolean headerRow;
+
+    /**
+     * Constructs a new StreamingTable reading its rows from an iterator.
+     *
+     * @param parent  the parent object
+     * @param rows    the row values, consumed when the table is written
+     * @param onClose closed after the rows were consumed, e.g. the stream backing the iterator, or {@code null}
+     */
+    public StreamingTable(T parent, Iterator<? extends R> rows, AutoCloseable onClose) {
+        super(parent, "Table");
+        this.rows = Objects.requireNonNull(rows, "rows");
+        this.onClose = onClose;
+    }
+
+    /**
+     * Returns the number of rows written, including the header row, or 0 if the table was not written yet.
+     *
+     * @return the number of written rows
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns whether the rows were read and encoded, after which the table can no longer be changed.
+     *
+     * @return {@code true} if the table was written
+     */
+    public boolean isWritten() {
+        return encoded != null;
+    }
+
+    @Override
+    public void writeJson(JsonWriter out) {
+        byte[] cached = encoded;
+        if (cached != null) {
+            out.rawValue(cached);
+            return;
+        }
+        synchronized (this) {
+            if (encoded == null) {
+                checkNotFailed();
+                int[] start = new int[1];
+                try {
+                    writeJson(out, o -> {
+                        start[0] = o.size() - 1;
+                        writeProperties(o, start[0]);
+                    });
+                } catch (RuntimeException | Error e) {
+                    // the iterator is partly consumed and closed, so the rows cannot be written again
+                    failed = true;
+                    rowsStart = 0;
+                    rowEnds = new int[0];
+                    rowCount = 0;
+                    throw e;
+                }
+                encoded = out.toByteArray(start[0]);
+                return;
+            }
+        }
+        out.rawValue(encoded);
+    }
+
+    private void writeProperties(JsonWriter out, int start) {
+        super.writeProperties(out);
+        if (!formats.isEmpty()) {
+            out.name(COLUMNS).beginArray();
+            for (TableColumnFormat format : formats) {
+                out.beginObject().field(WIDTH, String.valueOf(format.getWidth()));
+                if (format.getAlignment() != null) {
+                    out.field(HORIZONTAL_CELL_CONTENT_ALIGNMENT, format.getAlignment());
+                }
+                out.endObject();
+            }
+            out.endArray();
+        }
+        try {
+            writeRows(out, start);
+        } finally {
+            if (onClose != null) {
+                try {
+                    onClose.close();
+                } catch (Exception e) {
+                    throw new IllegalStateException("Closing the table rows failed", e);
+                }
+            }
+        }
+        if (isSet(HAS_FIRST_ROW_AS_HEADER)) {
+            out.field(FIRST_ROW_AS_HEADER, firstRowAsHeader);
+        }
+        if (isSet(HAS_SHOW_GRID_LINES)) {
+            out.field(SHOW_GRID_LINES, showGridLines);
+        }
+        if (isSet(HAS_GRID_STYLE)) {
+            out.field(GRID_STYLE, gridStyle);
+        }
+        if (isSet(HAS_HORIZONTAL_CELL_CONTENT_ALIGNMENT)) {
+            out.field(HORIZONTAL_CELL_CONTENT_ALIGNMENT, horizontalCellContentAlignment);
+        }
+        if (isSet(HAS_VERTICAL_CELL_CONTENT_ALIGNMENT)) {
+            out.field(VERTICAL_CELL_CONTENT_ALIGNMENT, verticalCellContentAlignment);
+        }
+    }
+
+    private void writeRows(JsonWriter out, int start) {
+        headerRow = firstRowAsHeader && formats.stream().anyMatch(format -> format.getHeader() != null);
+        if (!headerRow && !rows.hasNext()) {
+            return;
+        }
+        out.name(ROWS).beginArray();
+        rowsStart = out.size() - start;
+        String[] texts = new String[formats.size()];
+        if (headerRow) {
+            for (int i = 0; i < texts.length; i++) {
+                String header = formats.get(i).getHeader();
+                texts[i] = header == null ? "" : header;
+            }
+            writeRow(out, texts, start);
+        }
+        while (rows.hasNext()) {
+            R row = rows.next();
+            for (int i = 0; i < texts.length; i++) {
+                texts[i] = formats.get(i).format(values.get(i).apply(row));
+            }
+            writeRow(out, texts, start);
+        }
+        out.endArray();
+    }
+
+    private void writeRow(JsonWriter out, String[] texts, int start) {
+        out.beginObject().field(TYPE, TABLE_ROW);
+        if (texts.length > 0) {
+            out.name(CELLS).beginArray();
+            for (String text : texts) {
+                out.beginObject().field(TYPE, TABLE_CELL)
+                        .name(ITEMS).beginArray()
+                        .beginObject().field(TYPE, TEXT_BLOCK);
+                if (!text.isEmpty()) {
+                    out.field(TEXT, text);
+                }
+                out.endObject().endArray().endObject();
+            }
+            out.endArray();
+        }
+        out.endObject();
+        if (rowCount == rowEnds.length) {
+            rowEnds = Arrays.copyOf(rowEnds, Math.max(16, rowCount * 2));
+        }
+        rowEnds[rowCount++] = out.size() - start;
+    }
+
+    /**
+     * Splits the written table into tables holding consecutive ranges of its rows, writing it first if needed.
+     * If the first row is a header, it is repeated at the top of every part.
+     *
+     * @param maxSize the maximum encoded size of a part in bytes
+     * @return the parts in order
+     */
+    @Override
+    public List<JsonWritable> split(int maxSize) {
+        byte[] json = toByteArray();
+        int headerRows = headerRow ? 1 : 0;
+        if (rowCount <= headerRows) {
+            return List.of(this);
+        }
+        int rowsEnd = rowEnds[rowCount - 1];
+        int headerEnd = headerRows == 0 ? rowsStart : rowEnds[0];
+        int baseSize = headerEnd + (json.length - rowsEnd);
+        List<JsonWritable> parts = new ArrayList<>();
+        int first = headerRows;
+        int size = baseSize;
+        for (int i = headerRows; i < rowCount; i++) {
+            int rowSize = rowEnds[i] - rowStart(i);
+            // one byte for the separating comma, unless the row is the first of the array
+            int added = (i == first && headerRows == 0 ? 0 : 1) + rowSize;
+            if (i > first && size + added > maxSize) {
+                parts.add(part(json, headerEnd, first, i));
+                first = i;
+                size = baseSize + (headerRows == 0 ? 0 : 1) + rowSize;
+            } else {
+                size += added;
+            }
+        }
+        parts.add(part(json, headerEnd, first, rowCount));
+        return parts;
+    }
+
+    private int rowStart(int row) {
+        return row == 0 ? rowsStart : rowEnds[row - 1] + 1;
+    }
+
+    /**
+     * Copies the table with the header and the given range of rows.
+     */
+    private JsonWritable part(byte[] json, int headerEnd, int from, int to) {
+        int rowsFrom = rowStart(from);
+        int rowsTo = rowEnds[to - 1];
+        int rowsEnd = rowEnds[rowCount - 1];
+        boolean comma = headerEnd > rowsStart;
+        byte[] part = new byte[headerEnd + (comma ? 1 : 0) + (rowsTo - rowsFrom) + (json.length - rowsEnd)];
+        System.arraycopy(json, 0, part, 0, headerEnd);
+        int pos = headerEnd;
+        if (comma) {
+            part[pos++] = ',';
+        }
+        System.arraycopy(json, rowsFrom, part, pos, rowsTo - rowsFrom);
+        pos += rowsTo - rowsFrom;
+        System.arraycopy(json, rowsEnd, part, pos, json.length - rowsEnd);
+        return out -> out.rawValue(part);
+    }
+
+    private byte[] toByteArray() {
+        byte[] cached = encoded;
+        if (cached == null) {
+            writeJson(new JsonWriter());
+            cached = encoded;
+        }
+        return cached;
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        gen.writeRawValue(new String(toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+            throws IOException {
+        serialize(gen, serializers);
+    }
+
+    /**
+     * Adds a column to the row template.
+     *
+     * @param format the format of the column
+     * @param value  the function extracting the value of the column from a row
+     * @return this table for method chaining
+     */
+    public StreamingTable<T, R> addColumn(TableColumnFormat format, Function<? super R, ?> value) {
+        checkNotWritten();
+        invalidate();
+        formats.add(Objects.requireNonNull(format, "format"));
+        values.add(Objects.requireNonNull(value, "value"));
+        return this;
+    }
+
+    /**
+     * Sets whether the first row should be treated as a header. If set, a header row with the column
+     * headers is written before the rows.
+     *
+     * @param firstRowAsHeader true if the first row is a header, false otherwise
+     * @return this table for method chaining
+     */
+    public StreamingTable<T, R> setFirstRowAsHeader(boolean firstRowAsHeader) {
+        checkNotWritten();
+        set(HAS_FIRST_ROW_AS_HEADER);
+        this.firstRowAsHeader = firstRowAsHeader;
+        return this;
+    }
+
+    /**
+     * Sets whether grid lines should be shown in the table.
+     *
+     * @param showGridLines true to show grid lines, false otherwise
+     * @return this table for method chaining
+     */
+    public StreamingTable<T, R> setShowGridLines(boolean showGridLines) {
+        checkNotWritten();
+        set(HAS_SHOW_GRID_LINES);
+        this.showGridLines = showGridLines;
+        return this;
+    }
+
+    /**
+     * Sets the style of the table grid.
+     *
+     * @param gridStyle the grid style
+     * @return this table for method chaining
+     */
+    public StreamingTable<T, R> setGridStyle(ContainerStyle gridStyle) {
+        checkNotWritten();
+        set(HAS_GRID_STYLE);
+        this.gridStyle = gridStyle;
+        return this;
+    }
+
+    /**
+     * Sets the horizontal alignment of cell content.
+     *
+     * @param horizontalCellContentAlignment the horizontal alignment
+     * @return this table for method chaining
+     */
+    public StreamingTable<T, R> setHorizontalCellContentAlignment(HorizontalAlignments horizontalCellContentAlignment) {
+        checkNotWritten();
+        set(HAS_HORIZONTAL_CELL_CONTENT_ALIGNMENT);
+        this.horizontalCellContentAlignment = horizontalCellContentAlignment;
+        return this;
+    }
+
+    /**
+     * Sets the vertical alignment of cell content.
+     *
+     * @param verticalCellContentAlignment the vertical alignment
+     * @return this table for method chaining
+     */
+    public StreamingTable<T, R> setVerticalCellContentAlignment(VerticalContentAlignment verticalCellContentAlignment) {
+        checkNotWritten();
+        set(HAS_VERTICAL_CELL_CONTENT_ALIGNMENT);
+        this.verticalCellContentAlignment = verticalCellContentAlignment;
+        return this;
+    }
+
+    private void checkNotWritten() {
+        checkNotFailed();
+        if (encoded != null) {
+            throw new IllegalStateException("Table rows were already written");
+        }
+    }
+
+    private void checkNotFailed() {
+        if (failed) {
+            throw new IllegalStateException("Table rows could not be written and the iterator was consumed");
+        }
+    }
+}
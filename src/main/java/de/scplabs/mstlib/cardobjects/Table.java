@@ -1,10 +1,15 @@
 package de.scplabs.mstlib.cardobjects;
 
-import com.fasterxml.jackson.annotation.JsonInclude;
+import de.scplabs.mstlib.json.JsonToken;
+import de.scplabs.mstlib.json.JsonWritable;
+import de.scplabs.mstlib.json.JsonWriter;
 import de.scplabs.mstlib.options.ContainerStyle;
 import de.scplabs.mstlib.options.HorizontalAlignments;
 import de.scplabs.mstlib.options.VerticalContentAlignment;
 
+import java.lang.reflect.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -14,11 +19,26 @@ import java.util.List;
  *
  * @param <T> the parent type
  */
-@JsonInclude(JsonInclude.Include.NON_DEFAULT)
-public class Table<T extends CardParent<?>> extends CardObject<T, Table<T>> {
+public class Table<T extends CardParent<?>> extends CardObject<T, Table<T>> implements Splittable {
+    private static final JsonToken COLUMNS = JsonToken.of("columns");
+    private static final JsonToken ROWS = JsonToken.of("rows");
+    private static final JsonToken FIRST_ROW_AS_HEADER = JsonToken.of("firstRowAsHeader");
+    private static final JsonToken SHOW_GRID_LINES = JsonToken.of("showGridLines");
+    private static final JsonToken GRID_STYLE = JsonToken.of("gridStyle");
+    private static final JsonToken HORIZONTAL_CELL_CONTENT_ALIGNMENT = JsonToken.of("horizontalCellContentAlignment");
+    private static final JsonToken VERTICAL_CELL_CONTENT_ALIGNMENT = JsonToken.of("verticalCellContentAlignment");
+    private static final JsonToken WIDTH = JsonToken.of("width");
+    private static final JsonToken CELLS = JsonToken.of("cells");
+    private static final JsonToken STYLE = JsonToken.of("style");
+
+    private static final int HAS_FIRST_ROW_AS_HEADER = FIRST_PROPERTY;
+    private static final int HAS_SHOW_GRID_LINES = FIRST_PROPERTY << 1;
+    private static final int HAS_GRID_STYLE = FIRST_PROPERTY << 2;
+    private static final int HAS_HORIZONTAL_CELL_CONTENT_ALIGNMENT = FIRST_PROPERTY << 3;
+    private static final int HAS_VERTICAL_CELL_CONTENT_ALIGNMENT = FIRST_PROPERTY << 4;
 
     private final List<TableColumnDefinition> columns = new ArrayList<>();
-    private final List<TableRow<Table<T>>> rows = new ArrayList<>();
+    private final ArrayList<TableRow<Table<T>>> rows = new ArrayList<>();
     private boolean firstRowAsHeader = true;
     private boolean showGridLines = true;
     private ContainerStyle gridStyle = ContainerStyle.DEFAULT;
@@ -49,6 +69,67 @@ public class Table<T extends CardParent<?>> extends CardObject<T, Table<T>> {
         super(parent, "Table");
     }
 
+    @Override
+    protected void writeProperties(JsonWriter out) {
+        writeProperties(out, rows);
+    }
+
+    private void writeProperties(JsonWriter out, List<TableRow<Table<T>>> rows) {
+        super.writeProperties(out);
+        if (!columns.isEmpty()) {
+            out.name(COLUMNS).beginArray();
+            for (TableColumnDefinition column : columns) {
+                out.beginObject().field(WIDTH, column.width());
+                if (column.horizontalCellContentAlignment() != null) {
+                    out.field(HORIZONTAL_CELL_CONTENT_ALIGNMENT, column.horizontalCellContentAlignment());
+                }
+                out.endObject();
+            }
+            out.endArray();
+        }
+        writeItems(out, ROWS, rows);
+        if (isSet(HAS_FIRST_ROW_AS_HEADER)) {
+            out.field(FIRST_ROW_AS_HEADER, firstRowAsHeader);
+        }
+        if (isSet(HAS_SHOW_GRID_LINES)) {
+            out.field(SHOW_GRID_LINES, showGridLines);
+        }
+        if (isSet(HAS_GRID_STYLE)) {
+            out.field(GRID_STYLE, gridStyle);
+        }
+        if (isSet(HAS_HORIZONTAL_CELL_CONTENT_ALIGNMENT)) {
+            out.field(HORIZONTAL_CELL_CONTENT_ALIGNMENT, horizontalCellContentAlignment);
+        }
+        if (isSet(HAS_VERTICAL_CELL_CONTENT_ALIGNMENT)) {
+            out.field(VERTICAL_CELL_CONTENT_ALIGNMENT, verticalCellContentAlignment);
+        }
+    }
+
+    /**
+     * Splits this table into tables holding consecutive ranges of its rows.
+     * If the first row is a header, it is repeated at the top of every part.
+     *
+     * @param maxSize the maximum encoded size of a part in bytes
+     * @return the parts in order
+     */
+    @Override
+    public List<JsonWritable> split(int maxSize) {
+        int headerRows = firstRowAsHeader && !rows.isEmpty() ? 1 : 0;
+        List<TableRow<Table<T>>> header = rows.subList(0, headerRows);
+        JsonWriter measure = new JsonWriter();
+        writeJson(measure, out -> writeProperties(out, header));
+        // without rows the table omits the rows array: ,"rows":[]
+        int baseSize = measure.size() + (header.isEmpty() ? 10 : 0);
+        List<JsonWritable> parts = new ArrayList<>();
+        for (List<TableRow<Table<T>>> range : partition(rows.subList(headerRows, rows.size()), baseSize, maxSize,
+                (out, row) -> row.writeJson(out))) {
+            List<TableRow<Table<T>>> partRows = new ArrayList<>(header);
+            partRows.addAll(range);
+            parts.add(out -> writeJson(out, o -> writeProperties(o, partRows)));
+        }
+        return parts.isEmpty() ? List.of(this) : parts;
+    }
+
     /**
      * Adds a new column definition with the specified width.
      *
@@ -56,6 +137,7 @@ public class Table<T extends CardParent<?>> extends CardObject<T, Table<T>> {
      * @return this table for method chaining
      */
     public Table<T> addColumns(int width) {
+        invalidate();
         this.columns.add(new TableColumnDefinition(String.valueOf(width)));
         return this;
     }
@@ -66,11 +148,148 @@ public class Table<T extends CardParent<?>> extends CardObject<T, Table<T>> {
      * @return the created TableRow object
      */
     public TableRow<Table<T>> addRows() {
+        invalidate();
         TableRow<Table<T>> row = new TableRow<>(this);
         rows.add(row);
         return row;
     }
 
+    /**
+     * Adds all rows of a query result, deriving the columns from its metadata.
+     *
+     * @param resultSet the query result, read from its current position to the end
+     * @return this table for method chaining
+     * @throws SQLException if the result cannot be read
+     * @see TableColumnFormat#of(java.sql.ResultSetMetaData)
+     * @see #addRows(ResultSet, List)
+     */
+    public Table<T> addRows(ResultSet resultSet) throws SQLException {
+        return addRows(resultSet, TableColumnFormat.of(resultSet.getMetaData()));
+    }
+
+    /**
+     * Adds all rows of a query result, formatting the values of each column with the given format.
+     * If the table has no columns yet, a column definition is added per format, and if it has no rows yet
+     * and the first row is a header, a header row with the column headers is added first.
+     *
+     * @param resultSet the query result, read from its current position to the end
+     * @param formats   the formats of the result columns in order
+     * @return this table for method chaining
+     * @throws SQLException if the result cannot be read
+     */
+    public Table<T> addRows(ResultSet resultSet, List<TableColumnFormat> formats) throws SQLException {
+        startLoad(formats);
+        String[] texts = new String[formats.size()];
+        while (resultSet.next()) {
+            for (int i = 0; i < texts.length; i++) {
+                texts[i] = formats.get(i).format(resultSet.getObject(i + 1));
+            }
+            appendRow(texts);
+        }
+        return this;
+    }
+
+    /**
+     * Adds a row per array of values, formatting the values of each column with the given format.
+     * Columns and the header row are added as described for {@link #addRows(ResultSet, List)}.
+     *
+     * @param formats the formats of the columns in order
+     * @param values  the rows, each holding one value per column
+     * @return this table for method chaining
+     * @throws IllegalArgumentException if a row has fewer values than there are columns
+     */
+    public Table<T> addRows(List<TableColumnFormat> formats, List<Object[]> values) {
+        startLoad(formats);
+        rows.ensureCapacity(rows.size() + values.size());
+        String[] texts = new String[formats.size()];
+        for (Object[] row : values) {
+            if (row.length < texts.length) {
+                throw new IllegalArgumentException("row has " + row.length + " values, expected " + texts.length);
+            }
+            for (int i = 0; i < texts.length; i++) {
+                texts[i] = formats.get(i).format(row[i]);
+            }
+            appendRow(texts);
+        }
+        return this;
+    }
+
+    /**
+     * Adds rows from column-oriented data, formatting the values of each column with the given format.
+     * Each column is an array, of objects or of a primitive type, or a {@link List}; all columns must have
+     * the same length. Columns and the header row are added as described for {@link #addRows(ResultSet, List)}.
+     *
+     * @param formats the formats of the columns in order
+     * @param columns the column values, one array or list per format
+     * @return this table for method chaining
+     * @throws IllegalArgumentException if the number of columns does not match or their lengths differ
+     */
+    public Table<T> addRowsFromColumns(List<TableColumnFormat> formats, Object... columns) {
+        if (columns.length != formats.size()) {
+            throw new IllegalArgumentException("expected " + formats.size() + " columns, got " + columns.length);
+        }
+        int length = -1;
+        for (Object column : columns) {
+            int columnLength = column instanceof List<?> list ? list.size() : Array.getLength(column);
+            if (length >= 0 && columnLength != length) {
+                throw new IllegalArgumentException("columns must have the same length");
+            }
+            length = columnLength;
+        }
+        startLoad(formats);
+        rows.ensureCapacity(rows.size() + Math.max(length, 0));
+        String[] texts = new String[columns.length];
+        for (int r = 0; r < length; r++) {
+            for (int i = 0; i < texts.length; i++) {
+                Object value = columns[i] instanceof List<?> list ? list.get(r) : Array.get(columns[i], r);
+                texts[i] = formats.get(i).format(value);
+            }
+            appendRow(texts);
+        }
+        return this;
+    }
+
+    /**
+     * Adds the column definitions and the header row for a bulk load, unless the table already has them,
+     * and invalidates the table once for the whole load.
+     */
+    private void startLoad(List<TableColumnFormat> formats) {
+        if (!columns.isEmpty() && columns.size() != formats.size()) {
+            throw new IllegalArgumentException("table has " + columns.size() + " columns, got " + formats.size()
+                    + " formats");
+        }
+        invalidate();
+        if (columns.isEmpty()) {
+            for (TableColumnFormat format : formats) {
+                HorizontalAlignments alignment = format.getAlignment();
+                columns.add(new TableColumnDefinition(String.valueOf(format.getWidth()),
+                        alignment == null ? null : alignment.toString()));
+            }
+        }
+        if (firstRowAsHeader && rows.isEmpty() && formats.stream().anyMatch(format -> format.getHeader() != null)) {
+            String[] headers = new String[formats.size()];
+            for (int i = 0; i < headers.length; i++) {
+                String header = formats.get(i).getHeader();
+                headers[i] = header == null ? "" : header;
+            }
+            appendRow(headers);
+        }
+    }
+
+    /**
+     * Appends a row with one text block per cell.
+     * {@link #startLoad(List)} invalidates the table once for the whole load.
+     */
+    private void appendRow(String[] texts) {
+        TableRow<Table<T>> row = new TableRow<>(this, texts.length);
+        for (String text : texts) {
+            TableCell<TableRow<Table<T>>> cell = new TableCell<>(row);
+            cell.getItems().add(new TextBlock<>(cell, text));
+            row.cells.add(cell);
+        }
+        rows.add(row);
+    }
+
     /**
      * Sets whether the first row should be treated as a header.
      *
@@ -78,6 +297,7 @@ public class Table<T extends CardParent<?>> extends CardObject<T, Table<T>> {
      * @return this table for method chaining
      */
     public Table<T> setFirstRowAsHeader(boolean firstRowAsHeader) {
+        set(HAS_FIRST_ROW_AS_HEADER);
         this.firstRowAsHeader = firstRowAsHeader;
         return this;
     }
@@ -89,6 +309,7 @@ public class Table<T extends CardParent<?>> extends CardObject<T, Table<T>> {
      * @return this table for method chaining
      */
     public Table<T> setShowGridLines(boolean showGridLines) {
+        set(HAS_SHOW_GRID_LINES);
         this.showGridLines = showGridLines;
         return this;
     }
@@ -100,6 +321,7 @@ public class Table<T extends CardParent<?>> extends CardObject<T, Table<T>> {
      * @return this table for method chaining
      */
     public Table<T> setGridStyle(ContainerStyle gridStyle) {
+        set(HAS_GRID_STYLE);
         this.gridStyle = gridStyle;
         return this;
     }
@@ -111,6 +333,7 @@ public class Table<T extends CardParent<?>> extends CardObject<T, Table<T>> {
      * @return this table for method chaining
      */
     public Table<T> setHorizontalCellContentAlignment(HorizontalAlignments horizontalCellContentAlignment) {
+        set(HAS_HORIZONTAL_CELL_CONTENT_ALIGNMENT);
         this.horizontalCellContentAlignment = horizontalCellContentAlignment;
         return this;
     }
@@ -122,26 +345,40 @@ public class Table<T extends CardParent<?>> extends CardObject<T, Table<T>> {
      * @return this table for method chaining
      */
     public Table<T> setVerticalCellContentAlignment(VerticalContentAlignment verticalCellContentAlignment) {
+        set(HAS_VERTICAL_CELL_CONTENT_ALIGNMENT);
         this.verticalCellContentAlignment = verticalCellContentAlignment;
         return this;
     }
 
     /**
-     * Represents a column definition for the table, specifying the width.
+     * Represents a column definition for the table, specifying the width and optionally the cell content alignment.
      *
-     * @param width the width of the column
+     * @param width                          the width of the column
+     * @param horizontalCellContentAlignment the horizontal alignment of the cell content, or {@code null}
+     *                                       to use the alignment of the table
      */
-    public record TableColumnDefinition(String width) { }
+    public record TableColumnDefinition(String width, String horizontalCellContentAlignment) {
+
+        /**
+         * Creates a column definition with the given width.
+         *
+         * @param width the width of the column
+         */
+        public TableColumnDefinition(String width) {
+            this(width, null);
+        }
+    }
 
     /**
      * Represents a row in the table, containing a list of cells and an optional style.
      *
      * @param <T> the parent type, must implement CardParent
      */
-    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
     public static class TableRow<T extends CardParent<?>> extends CardObject<T, TableRow<T>> {
 
-        private final List<TableCell<TableRow<T>>> cells = new ArrayList<>();
+        private static final int HAS_STYLE = FIRST_PROPERTY;
+
+        private final List<TableCell<TableRow<T>>> cells;
         private ContainerStyle style = ContainerStyle.DEFAULT;
 
         public List<TableCell<TableRow<T>>> getCells() { return cells; }
@@ -152,6 +389,7 @@ public class Table<T extends CardParent<?>> extends CardObject<T, Table<T>> {
          */
         protected TableRow() {
             super(null, null);
+            this.cells = new ArrayList<>();
         }
 
         /**
@@ -161,6 +399,21 @@ public class Table<T extends CardParent<?>> extends CardObject<T, Table<T>> {
          */
         protected TableRow(T parent) {
             super(parent, "TableRow");
+            this.cells = new ArrayList<>();
+        }
+
+        private TableRow(T parent, int cellCapacity) {
+            super(parent, "TableRow");
+            this.cells = new ArrayList<>(cellCapacity);
+        }
+
+        @Override
+        protected void writeProperties(JsonWriter out) {
+            super.writeProperties(out);
+            writeItems(out, CELLS, cells);
+            if (isSet(HAS_STYLE)) {
+                out.field(STYLE, style);
+            }
         }
 
         /**
@@ -169,6 +422,7 @@ public class Table<T extends CardParent<?>> extends CardObject<T, Table<T>> {
          * @return the created TableCell object
          */
         public TableCell<TableRow<T>> addCell() {
+            invalidate();
             TableCell<TableRow<T>> cell = new TableCell<>(this);
             cells.add(cell);
             return cell;
@@ -181,6 +435,7 @@ public class Table<T extends CardParent<?>> extends CardObject<T, Table<T>> {
          * @return this row for method chaining
          */
         public TableRow<T> setStyle(ContainerStyle style) {
+            set(HAS_STYLE);
             this.style = style;
             return this;
         }
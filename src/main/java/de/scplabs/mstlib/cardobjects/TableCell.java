@@ -1,7 +1,7 @@
 package de.scplabs.mstlib.cardobjects;
 
-import com.fasterxml.jackson.annotation.JsonInclude;
-import com.fasterxml.jackson.annotation.JsonProperty;
+import de.scplabs.mstlib.json.JsonToken;
+import de.scplabs.mstlib.json.JsonWriter;
 import de.scplabs.mstlib.options.BackGroundImage;
 import de.scplabs.mstlib.options.ContainerStyle;
 import de.scplabs.mstlib.options.VerticalContentAlignment;
@@ -12,15 +12,25 @@ import de.scplabs.mstlib.options.VerticalContentAlignment;
  *
  * @param <T> the parent type
  */
-@JsonInclude(JsonInclude.Include.NON_DEFAULT)
 public class TableCell<T extends CardParent<?>> extends CardContainerObject<T, TableCell<T>> {
+    private static final JsonToken STYLE = JsonToken.of("style");
+    private static final JsonToken VERTICAL_ALIGNMENT = JsonToken.of("verticalAlignment");
+    private static final JsonToken BLEED = JsonToken.of("bleed");
+    private static final JsonToken BACKGROUND_IMAGE = JsonToken.of("backgroundImage");
+    private static final JsonToken MIN_HEIGHT = JsonToken.of("minHeight");
+    private static final JsonToken RTL = JsonToken.of("rtl?");
+
+    private static final int HAS_STYLE = FIRST_PROPERTY;
+    private static final int HAS_VERTICAL_ALIGNMENT = FIRST_PROPERTY << 1;
+    private static final int HAS_BLEED = FIRST_PROPERTY << 2;
+    private static final int HAS_MIN_HEIGHT = FIRST_PROPERTY << 3;
+    private static final int HAS_RTL = FIRST_PROPERTY << 4;
 
     private ContainerStyle style = ContainerStyle.DEFAULT;
     private VerticalContentAlignment verticalAlignment = VerticalContentAlignment.TOP;
     private boolean bleed = false;
     private BackGroundImage<TableCell<T>> backgroundImage;
     private String minHeight = "";
-    @JsonProperty("rtl?")
     private boolean rtl = false;
 
     public String getStyle() { return style.toString(); }
@@ -46,6 +56,33 @@ public class TableCell<T extends CardParent<?>> extends CardContainerObject<T, T
         super(parent, "TableCell");
     }
 
+    @Override
+    protected void writeProperties(JsonWriter out) {
+        super.writeProperties(out);
+        if (isSet(HAS_STYLE)) {
+            out.field(STYLE, style);
+        }
+        if (isSet(HAS_VERTICAL_ALIGNMENT)) {
+            out.field(VERTICAL_ALIGNMENT, verticalAlignment);
+        }
+        if (isSet(HAS_BLEED)) {
+            out.field(BLEED, bleed);
+        }
+        if (backgroundImage != null) {
+            out.name(BACKGROUND_IMAGE).value(backgroundImage);
+        }
+        if (isSet(HAS_MIN_HEIGHT)) {
+            out.field(MIN_HEIGHT, minHeight);
+        }
+    }
+
+    @Override
+    protected void writeTrailingProperties(JsonWriter out) {
+        if (isSet(HAS_RTL)) {
+            out.field(RTL, rtl);
+        }
+    }
+
     /**
      * Sets the style of the cell.
      *
@@ -53,6 +90,7 @@ public class TableCell<T extends CardParent<?>> extends CardContainerObject<T, T
      * @return this cell for method chaining
      */
     public TableCell<T> setStyle(ContainerStyle style) {
+        set(HAS_STYLE);
         this.style = style;
         return this;
     }
@@ -64,6 +102,7 @@ public class TableCell<T extends CardParent<?>> extends CardContainerObject<T, T
      * @return this cell for method chaining
      */
     public TableCell<T> setVerticalAlignment(VerticalContentAlignment verticalAlignment) {
+        set(HAS_VERTICAL_ALIGNMENT);
         this.verticalAlignment = verticalAlignment;
         return this;
     }
@@ -75,6 +114,7 @@ public class TableCell<T extends CardParent<?>> extends CardContainerObject<T, T
      * @return this cell for method chaining
      */
     public TableCell<T> setBleed(boolean bleed) {
+        set(HAS_BLEED);
         this.bleed = bleed;
         return this;
     }
@@ -86,6 +126,7 @@ public class TableCell<T extends CardParent<?>> extends CardContainerObject<T, T
      * @return the created BackGroundImage object
      */
     public BackGroundImage<TableCell<T>> addBackgroundImage(String url) {
+        invalidate();
         this.backgroundImage = new BackGroundImage<>(this, url);
         return this.backgroundImage;
     }
@@ -97,6 +138,7 @@ public class TableCell<T extends CardParent<?>> extends CardContainerObject<T, T
      * @return this cell for method chaining
      */
     public TableCell<T> setMinHeight(String minHeight) {
+        set(HAS_MIN_HEIGHT);
         this.minHeight = minHeight;
         return this;
     }
@@ -108,6 +150,7 @@ public class TableCell<T extends CardParent<?>> extends CardContainerObject<T, T
      * @return this cell for method chaining
      */
     public TableCell<T> setRtl(boolean rtl) {
+        set(HAS_RTL);
         this.rtl = rtl;
         return this;
     }
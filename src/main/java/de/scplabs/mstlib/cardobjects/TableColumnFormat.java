@@ -0,0 +1,143 @@
+package de.scplabs.mstlib.cardobjects;
+
+import de.scplabs.mstlib.options.HorizontalAlignments;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Describes how the values of one column are loaded into a {@link Table} by its bulk loaders:
+ * the header text, the relative width, the cell content alignment and the function formatting a value.
+ * The format is applied once per column, so rows are populated without per-cell configuration.
+ */
+public class TableColumnFormat {
+
+    private final String header;
+    private int width = 1;
+    private HorizontalAlignments alignment;
+    private Function<Object, String> formatter = String::valueOf;
+
+    /**
+     * Constructs a new TableColumnFormat.
+     *
+     * @param header the header text, or {@code null} for a column without header
+     */
+    protected TableColumnFormat(String header) {
+        this.header = header;
+    }
+
+    /**
+     * Creates the format of a column with the given header.
+     *
+     * @param header the header text, or {@code null} for a column without header
+     * @return the column format
+     */
+    public static TableColumnFormat of(String header) {
+        return new TableColumnFormat(header);
+    }
+
+    /**
+     * Derives the column formats from the metadata of a query result. The headers are the column labels;
+     * numeric columns are right-aligned and text columns are twice as wide as the others.
+     *
+     * @param metaData the result set metadata
+     * @return the column formats in column order
+     * @throws SQLException if the metadata cannot be read
+     */
+    public static List<TableColumnFormat> of(ResultSetMetaData metaData) throws SQLException {
+        int count = metaData.getColumnCount();
+        List<TableColumnFormat> formats = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            TableColumnFormat format = new TableColumnFormat(metaData.getColumnLabel(i));
+            switch (metaData.getColumnType(i)) {
+                case Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT,
+                        Types.REAL, Types.FLOAT, Types.DOUBLE, Types.NUMERIC, Types.DECIMAL ->
+                        format.setAlignment(HorizontalAlignments.RIGHT);
+                case Types.CHAR, Types.VARCHAR, Types.LONGVARCHAR, Types.NCHAR, Types.NVARCHAR,
+                        Types.LONGNVARCHAR, Types.CLOB, Types.NCLOB -> format.setWidth(2);
+                default -> { }
+            }
+            formats.add(format);
+        }
+        return formats;
+    }
+
+    public String getHeader() { return header; }
+    public int getWidth() { return width; }
+    public HorizontalAlignments getAlignment() { return alignment; }
+
+    /**
+     * Sets the relative width of the column. Defaults to 1.
+     *
+     * @param width the relative width
+     * @return this format for method chaining
+     */
+    public TableColumnFormat setWidth(int width) {
+        if (width < 1) {
+            throw new IllegalArgumentException("width must be positive");
+        }
+        this.width = width;
+        return this;
+    }
+
+    /**
+     * Sets the horizontal alignment of the cell content of the column,
+     * or {@code null} to use the alignment of the table.
+     *
+     * @param alignment the horizontal alignment
+     * @return this format for method chaining
+     */
+    public TableColumnFormat setAlignment(HorizontalAlignments alignment) {
+        this.alignment = alignment;
+        return this;
+    }
+
+    /**
+     * Sets the function formatting the non-null values of the column. Defaults to {@code String.valueOf}.
+     *
+     * @param formatter the formatting function
+     * @return this format for method chaining
+     */
+    public TableColumnFormat setFormatter(Function<Object, String> formatter) {
+        this.formatter = Objects.requireNonNull(formatter, "formatter");
+        return this;
+    }
+
+    /**
+     * Sets the function formatting the non-null values of the column, which must be instances of the given type,
+     * e.g. {@code setFormatter(Number.class, n -> "%.2f".formatted(n.doubleValue()))}.
+     *
+     * @param type      the type of the values
+     * @param formatter the formatting function
+     * @param <V>       the type of the values
+     * @return this format for method chaining
+     */
+    public <V> TableColumnFormat setFormatter(Class<V> type, Function<? super V, String> formatter) {
+        Objects.requireNonNull(type, "type");
+        Objects.requireNonNull(formatter, "formatter");
+        this.formatter = value -> {
+            if (!type.isInstance(value)) {
+                throw new IllegalArgumentException("Column " + header + " expects " + type.getName()
+                        + " values, got " + value.getClass().getName());
+            }
+            return formatter.apply(type.cast(value));
+        };
+        return this;
+    }
+
+    /**
+     * Formats a value of the column.
+     *
+     * @param value the value
+     * @return the formatted text, an empty string for {@code null}
+     * @throws IllegalArgumentException if the value is not of the type given to {@link #setFormatter(Class, Function)}
+     */
+    public String format(Object value) {
+        return value == null ? "" : formatter.apply(value);
+    }
+}
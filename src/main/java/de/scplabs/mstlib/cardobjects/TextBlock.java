@@ -1,16 +1,36 @@
 package de.scplabs.mstlib.cardobjects;
 
-import com.fasterxml.jackson.annotation.JsonInclude;
+import de.scplabs.mstlib.json.JsonToken;
+import de.scplabs.mstlib.json.JsonWriter;
 import de.scplabs.mstlib.options.*;
 
+import java.util.Objects;
+
 /**
  * Represents a text block element in an adaptive card, allowing configuration of text content,
  * color, font type, alignment, subtlety, size, weight, wrapping, and style.
  *
  * @param <T> the parent type
  */
-@JsonInclude(JsonInclude.Include.NON_DEFAULT)
 public class TextBlock<T extends CardParent<?>> extends CardObject<T, TextBlock<T>> {
+    private static final JsonToken TEXT = JsonToken.of("text");
+    private static final JsonToken COLOR = JsonToken.of("color");
+    private static final JsonToken FONT_TYPE = JsonToken.of("fontType");
+    private static final JsonToken HORIZONTAL_ALIGNMENT = JsonToken.of("horizontalAlignment");
+    private static final JsonToken IS_SUBTLE = JsonToken.of("isSubtle");
+    private static final JsonToken SIZE = JsonToken.of("size");
+    private static final JsonToken WEIGHT = JsonToken.of("weight");
+    private static final JsonToken WRAP = JsonToken.of("wrap");
+    private static final JsonToken STYLE = JsonToken.of("style");
+
+    private static final int HAS_COLOR = FIRST_PROPERTY;
+    private static final int HAS_FONT_TYPE = FIRST_PROPERTY << 1;
+    private static final int HAS_HORIZONTAL_ALIGNMENT = FIRST_PROPERTY << 2;
+    private static final int HAS_IS_SUBTLE = FIRST_PROPERTY << 3;
+    private static final int HAS_SIZE = FIRST_PROPERTY << 4;
+    private static final int HAS_WEIGHT = FIRST_PROPERTY << 5;
+    private static final int HAS_WRAP = FIRST_PROPERTY << 6;
+    private static final int HAS_STYLE = FIRST_PROPERTY << 7;
 
     private String text = "";
     private Colors color = Colors.DEFAULT;
@@ -18,7 +38,9 @@ public class TextBlock<T extends CardParent<?>> extends CardObject<T, TextBlock<
     private HorizontalAlignments horizontalAlignment = HorizontalAlignments.LEFT;
     private boolean isSubtle = false;
     // maxLines
-    private FontTypes size = FontTypes.DEFAULT;
+    private FontSize size = FontSize.DEFAULT;
+    /** A size value the library does not model, written instead of {@link #size} if set. */
+    private String rawSize;
     private FontWeights weight = FontWeights.DEFAULT;
     private boolean wrap = true;
     private TextBlockStyles style = TextBlockStyles.DEFAULT;
@@ -28,7 +50,7 @@ public class TextBlock<T extends CardParent<?>> extends CardObject<T, TextBlock<
     public String getFontType() { return fontType.toString(); }
     public String getHorizontalAlignment() { return horizontalAlignment.toString(); }
     public boolean isIsSubtle() { return isSubtle; }
-    public String getSize() { return size.toString(); }
+    public String getSize() { return rawSize != null ? rawSize : size.toString(); }
     public String getWeight() { return weight.toString(); }
     public boolean isWrap() { return wrap; }
     public String getStyle() { return style.toString(); }
@@ -51,6 +73,52 @@ public class TextBlock<T extends CardParent<?>> extends CardObject<T, TextBlock<
         this.text = text;
     }
 
+    @Override
+    protected void writeProperties(JsonWriter out) {
+        super.writeProperties(out);
+        writeString(out, TEXT, text, "");
+        if (isSet(HAS_COLOR)) {
+            out.field(COLOR, color);
+        }
+        if (isSet(HAS_FONT_TYPE)) {
+            out.field(FONT_TYPE, fontType);
+        }
+        if (isSet(HAS_HORIZONTAL_ALIGNMENT)) {
+            out.field(HORIZONTAL_ALIGNMENT, horizontalAlignment);
+        }
+        if (isSet(HAS_IS_SUBTLE)) {
+            out.field(IS_SUBTLE, isSubtle);
+        }
+        if (isSet(HAS_SIZE)) {
+            if (rawSize != null) {
+                out.field(SIZE, rawSize);
+            } else {
+                out.field(SIZE, size);
+            }
+        }
+        if (isSet(HAS_WEIGHT)) {
+            out.field(WEIGHT, weight);
+        }
+        if (isSet(HAS_WRAP)) {
+            out.field(WRAP, wrap);
+        }
+        if (isSet(HAS_STYLE)) {
+            out.field(STYLE, style);
+        }
+    }
+
+    /**
+     * Sets the text content.
+     *
+     * @param text the text content
+     * @return this text block for method chaining
+     */
+    public TextBlock<T> setText(String text) {
+        invalidate();
+        this.text = text;
+        return this;
+    }
+
     /**
      * Sets the color of the text.
      *
@@ -58,6 +126,7 @@ public class TextBlock<T extends CardParent<?>> extends CardObject<T, TextBlock<
      * @return this text block for method chaining
      */
     public TextBlock<T> setColor(Colors color) {
+        set(HAS_COLOR);
         this.color = color;
         return this;
     }
@@ -69,6 +138,7 @@ public class TextBlock<T extends CardParent<?>> extends CardObject<T, TextBlock<
      * @return this text block for method chaining
      */
     public TextBlock<T> setFontType(FontTypes fontType) {
+        set(HAS_FONT_TYPE);
         this.fontType = fontType;
         return this;
     }
@@ -80,6 +150,7 @@ public class TextBlock<T extends CardParent<?>> extends CardObject<T, TextBlock<
      * @return this text block for method chaining
      */
     public TextBlock<T> setHorizontalAlignment(HorizontalAlignments horizontalAlignment) {
+        set(HAS_HORIZONTAL_ALIGNMENT);
         this.horizontalAlignment = horizontalAlignment;
         return this;
     }
@@ -91,6 +162,7 @@ public class TextBlock<T extends CardParent<?>> extends CardObject<T, TextBlock<
      * @return this text block for method chaining
      */
     public TextBlock<T> setSubtle(boolean subtle) {
+        set(HAS_IS_SUBTLE);
         isSubtle = subtle;
         return this;
     }
@@ -101,8 +173,33 @@ public class TextBlock<T extends CardParent<?>> extends CardObject<T, TextBlock<
      * @param size the font size to set
      * @return this text block for method chaining
      */
-    public TextBlock<T> setSize(FontTypes size) {
+    public TextBlock<T> setSize(FontSize size) {
+        set(HAS_SIZE);
         this.size = size;
+        this.rawSize = null;
+        return this;
+    }
+
+    /**
+     * Sets the font size to the value of a font type.
+     *
+     * @param size the font type whose value is written as the size
+     * @return this text block for method chaining
+     */
+    public TextBlock<T> setSize(FontTypes size) {
+        return setSize(size.toString());
+    }
+
+    /**
+     * Sets the font size to a value that is written verbatim, e.g. a size of a newer schema
+     * read from a stored card.
+     *
+     * @param size the size value
+     * @return this text block for method chaining
+     */
+    public TextBlock<T> setSize(String size) {
+        set(HAS_SIZE);
+        this.rawSize = Objects.requireNonNull(size, "size");
         return this;
     }
 
@@ -113,6 +210,7 @@ public class TextBlock<T extends CardParent<?>> extends CardObject<T, TextBlock<
      * @return this text block for method chaining
      */
     public TextBlock<T> setWeight(FontWeights weight) {
+        set(HAS_WEIGHT);
         this.weight = weight;
         return this;
     }
@@ -124,6 +222,7 @@ public class TextBlock<T extends CardParent<?>> extends CardObject<T, TextBlock<
      * @return this text block for method chaining
      */
     public TextBlock<T> setWrap(boolean wrap) {
+        set(HAS_WRAP);
         this.wrap = wrap;
         return this;
     }
@@ -135,6 +234,7 @@ public class TextBlock<T extends CardParent<?>> extends CardObject<T, TextBlock<
      * @return this text block for method chaining
      */
     public TextBlock<T> setStyle(TextBlockStyles style) {
+        set(HAS_STYLE);
         this.style = style;
         return this;
     }
@@ -1,6 +1,7 @@
 package de.scplabs.mstlib.cardobjects;
 
-import com.fasterxml.jackson.annotation.JsonInclude;
+import de.scplabs.mstlib.json.JsonToken;
+import de.scplabs.mstlib.json.JsonWriter;
 import de.scplabs.mstlib.options.Colors;
 import de.scplabs.mstlib.options.FontSize;
 import de.scplabs.mstlib.options.FontTypes;
@@ -12,8 +13,27 @@ import de.scplabs.mstlib.options.FontWeights;
  *
  * @param <T> the parent type
  */
-@JsonInclude(JsonInclude.Include.NON_DEFAULT)
 public class TextRun<T extends CardParent<?>> extends CardObject<T, TextRun<T>> {
+    private static final JsonToken TEXT = JsonToken.of("text");
+    private static final JsonToken COLOR = JsonToken.of("color");
+    private static final JsonToken FONT_TYPE = JsonToken.of("fontType");
+    private static final JsonToken HIGHLIGHT = JsonToken.of("highlight");
+    private static final JsonToken IS_SUBTLE = JsonToken.of("isSubtle");
+    private static final JsonToken ITALIC = JsonToken.of("italic");
+    private static final JsonToken SIZE = JsonToken.of("size");
+    private static final JsonToken STRIKETHROUGH = JsonToken.of("strikethrough");
+    private static final JsonToken UNDERLINE = JsonToken.of("underline");
+    private static final JsonToken WEIGHT = JsonToken.of("weight");
+
+    private static final int HAS_COLOR = FIRST_PROPERTY;
+    private static final int HAS_FONT_TYPE = FIRST_PROPERTY << 1;
+    private static final int HAS_HIGHLIGHT = FIRST_PROPERTY << 2;
+    private static final int HAS_IS_SUBTLE = FIRST_PROPERTY << 3;
+    private static final int HAS_ITALIC = FIRST_PROPERTY << 4;
+    private static final int HAS_SIZE = FIRST_PROPERTY << 5;
+    private static final int HAS_STRIKETHROUGH = FIRST_PROPERTY << 6;
+    private static final int HAS_UNDERLINE = FIRST_PROPERTY << 7;
+    private static final int HAS_WEIGHT = FIRST_PROPERTY << 8;
 
     private String text = "";
     private Colors color = Colors.DEFAULT;
@@ -55,6 +75,51 @@ public class TextRun<T extends CardParent<?>> extends CardObject<T, TextRun<T>>
         this.text = text;
     }
 
+    @Override
+    protected void writeProperties(JsonWriter out) {
+        super.writeProperties(out);
+        writeString(out, TEXT, text, "");
+        if (isSet(HAS_COLOR)) {
+            out.field(COLOR, color);
+        }
+        if (isSet(HAS_FONT_TYPE)) {
+            out.field(FONT_TYPE, fontType);
+        }
+        if (isSet(HAS_HIGHLIGHT)) {
+            out.field(HIGHLIGHT, highlight);
+        }
+        if (isSet(HAS_IS_SUBTLE)) {
+            out.field(IS_SUBTLE, isSubtle);
+        }
+        if (isSet(HAS_ITALIC)) {
+            out.field(ITALIC, italic);
+        }
+        if (isSet(HAS_SIZE)) {
+            out.field(SIZE, size);
+        }
+        if (isSet(HAS_STRIKETHROUGH)) {
+            out.field(STRIKETHROUGH, strikethrough);
+        }
+        if (isSet(HAS_UNDERLINE)) {
+            out.field(UNDERLINE, underline);
+        }
+        if (isSet(HAS_WEIGHT)) {
+            out.field(WEIGHT, weight);
+        }
+    }
+
+    /**
+     * Sets the text content.
+     *
+     * @param text the text content
+     * @return this text run for method chaining
+     */
+    public TextRun<T> setText(String text) {
+        invalidate();
+        this.text = text;
+        return this;
+    }
+
     /**
      * Sets the color of the text.
      *
@@ -62,6 +127,7 @@ public class TextRun<T extends CardParent<?>> extends CardObject<T, TextRun<T>>
      * @return this text run for method chaining
      */
     public TextRun<T> setColor(Colors color) {
+        set(HAS_COLOR);
         this.color = color;
         return this;
     }
@@ -73,6 +139,7 @@ public class TextRun<T extends CardParent<?>> extends CardObject<T, TextRun<T>>
      * @return this text run for method chaining
      */
     public TextRun<T> setFontType(FontTypes fontType) {
+        set(HAS_FONT_TYPE);
         this.fontType = fontType;
         return this;
     }
@@ -84,6 +151,7 @@ public class TextRun<T extends CardParent<?>> extends CardObject<T, TextRun<T>>
      * @return this text run for method chaining
      */
     public TextRun<T> setHighlight(boolean highlight) {
+        set(HAS_HIGHLIGHT);
         this.highlight = highlight;
         return this;
     }
@@ -95,6 +163,7 @@ public class TextRun<T extends CardParent<?>> extends CardObject<T, TextRun<T>>
      * @return this text run for method chaining
      */
     public TextRun<T> setSubtle(boolean subtle) {
+        set(HAS_IS_SUBTLE);
         isSubtle = subtle;
         return this;
     }
@@ -106,6 +175,7 @@ public class TextRun<T extends CardParent<?>> extends CardObject<T, TextRun<T>>
      * @return this text run for method chaining
      */
     public TextRun<T> setItalic(boolean italic) {
+        set(HAS_ITALIC);
         this.italic = italic;
         return this;
     }
@@ -117,6 +187,7 @@ public class TextRun<T extends CardParent<?>> extends CardObject<T, TextRun<T>>
      * @return this text run for method chaining
      */
     public TextRun<T> setSize(FontSize size) {
+        set(HAS_SIZE);
         this.size = size;
         return this;
     }
@@ -128,6 +199,7 @@ public class TextRun<T extends CardParent<?>> extends CardObject<T, TextRun<T>>
      * @return this text run for method chaining
      */
     public TextRun<T> setStrikethrough(boolean strikethrough) {
+        set(HAS_STRIKETHROUGH);
         this.strikethrough = strikethrough;
         return this;
     }
@@ -139,6 +211,7 @@ public class TextRun<T extends CardParent<?>> extends CardObject<T, TextRun<T>>
      * @return this text run for method chaining
      */
     public TextRun<T> setUnderline(boolean underline) {
+        set(HAS_UNDERLINE);
         this.underline = underline;
         return this;
     }
@@ -150,6 +223,7 @@ public class TextRun<T extends CardParent<?>> extends CardObject<T, TextRun<T>>
      * @return this text run for method chaining
      */
     public TextRun<T> setWeight(FontWeights weight) {
+        set(HAS_WEIGHT);
         this.weight = weight;
         return this;
     }
@@ -0,0 +1,117 @@
+package de.scplabs.mstlib.json;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Represents a pre-encoded JSON string, used for field names and enum values.
+ * <p>
+ * The token holds the quoted and escaped UTF-8 bytes, so writing it is a plain array copy.
+ */
+public final class JsonToken {
+
+    /** Tokens of enum constants by ordinal, using {@link Enum#toString()}. */
+    private static final ClassValue<JsonToken[]> VALUES = new ClassValue<>() {
+        @Override
+        protected JsonToken[] computeValue(Class<?> type) {
+            Object[] constants = type.getEnumConstants();
+            JsonToken[] tokens = new JsonToken[constants.length];
+            for (int i = 0; i < constants.length; i++) {
+                tokens[i] = of(constants[i].toString());
+            }
+            return tokens;
+        }
+    };
+
+    /** Tokens of enum constants by ordinal, using {@link Enum#name()}. */
+    private static final ClassValue<JsonToken[]> NAMES = new ClassValue<>() {
+        @Override
+        protected JsonToken[] computeValue(Class<?> type) {
+            Object[] constants = type.getEnumConstants();
+            JsonToken[] tokens = new JsonToken[constants.length];
+            for (int i = 0; i < constants.length; i++) {
+                tokens[i] = of(((Enum<?>) constants[i]).name());
+            }
+            return tokens;
+        }
+    };
+
+    private final String text;
+    private final byte[] bytes;
+
+    private JsonToken(String text, byte[] bytes) {
+        this.text = text;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Creates a token for the given string.
+     *
+     * @param text the unescaped string
+     * @return the pre-encoded token
+     */
+    public static JsonToken of(String text) {
+        JsonWriter out = new JsonWriter(text.length() + 8);
+        out.value(text);
+        return new JsonToken(text, out.toByteArray());
+    }
+
+    /**
+     * Returns the token of an enum constant's {@code toString()} value.
+     *
+     * @param value the enum constant
+     * @return the pre-encoded token, or {@code null} if the value is {@code null}
+     */
+    public static JsonToken of(Enum<?> value) {
+        if (value == null) {
+            return null;
+        }
+        return VALUES.get(value.getDeclaringClass())[value.ordinal()];
+    }
+
+    /**
+     * Returns the token of an enum constant's {@code name()}.
+     *
+     * @param value the enum constant
+     * @return the pre-encoded token, or {@code null} if the value is {@code null}
+     */
+    public static JsonToken nameOf(Enum<?> value) {
+        if (value == null) {
+            return null;
+        }
+        return NAMES.get(value.getDeclaringClass())[value.ordinal()];
+    }
+
+    /**
+     * Returns the unescaped string of this token.
+     *
+     * @return the string value
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Returns the quoted UTF-8 bytes of this token. The returned array must not be modified.
+     *
+     * @return the encoded bytes
+     */
+    byte[] bytes() {
+        return bytes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof JsonToken other && Arrays.equals(bytes, other.bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(bytes);
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,13 @@
+package de.scplabs.mstlib.json;
+
+/**
+ * Represents an object that writes itself as a single JSON value to a {@link JsonWriter}.
+ */
+public interface JsonWritable {
+    /**
+     * Writes this object as a JSON value.
+     *
+     * @param out the writer to write to
+     */
+    void writeJson(JsonWriter out);
+}
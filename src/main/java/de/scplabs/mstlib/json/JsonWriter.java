@@ -0,0 +1,492 @@
+package de.scplabs.mstlib.json;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import de.scplabs.mstlib.CardMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A compact streaming JSON writer that encodes directly into a growable UTF-8 byte buffer.
+ * <p>
+ * Separators between object members and array elements are inserted automatically.
+ * Strings are escaped exactly like Jackson's default {@code JsonGenerator}, so the output is
+ * byte-identical to a databind serialization of the same values.
+ * <p>
+ * Instances are not thread-safe.
+ */
+public final class JsonWriter {
+
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+
+    /**
+     * Escape codes for ASCII characters: 0 = literal, a character = two-character escape,
+     * -1 = six-character unicode escape.
+     */
+    private static final int[] ESCAPES = new int[128];
+
+    static {
+        for (int c = 0; c < 0x20; c++) {
+            ESCAPES[c] = -1;
+        }
+        ESCAPES['"'] = '"';
+        ESCAPES['\\'] = '\\';
+        ESCAPES['\b'] = 'b';
+        ESCAPES['\t'] = 't';
+        ESCAPES['\f'] = 'f';
+        ESCAPES['\n'] = 'n';
+        ESCAPES['\r'] = 'r';
+    }
+
+    private byte[] buf;
+    private int len;
+
+    /** Whether the container at each nesting level already holds an element. */
+    private boolean[] hasElement = new boolean[16];
+    private int depth;
+    /** Whether a field name was just written and its value is pending. */
+    private boolean afterName;
+
+    /**
+     * Creates a new writer with a default initial capacity.
+     */
+    public JsonWriter() {
+        this(1024);
+    }
+
+    /**
+     * Creates a new writer with the given initial capacity in bytes.
+     *
+     * @param capacity the initial buffer capacity
+     */
+    public JsonWriter(int capacity) {
+        this.buf = new byte[Math.max(capacity, 16)];
+    }
+
+    /**
+     * Starts a JSON object.
+     *
+     * @return this writer for method chaining
+     */
+    public JsonWriter beginObject() {
+        beforeValue();
+        push();
+        write('{');
+        return this;
+    }
+
+    /**
+     * Ends the current JSON object.
+     *
+     * @return this writer for method chaining
+     */
+    public JsonWriter endObject() {
+        depth--;
+        write('}');
+        return this;
+    }
+
+    /**
+     * Starts a JSON array.
+     *
+     * @return this writer for method chaining
+     */
+    public JsonWriter beginArray() {
+        beforeValue();
+        push();
+        write('[');
+        return this;
+    }
+
+    /**
+     * Ends the current JSON array.
+     *
+     * @return this writer for method chaining
+     */
+    public JsonWriter endArray() {
+        depth--;
+        write(']');
+        return this;
+    }
+
+    /**
+     * Writes a field name of the current object.
+     *
+     * @param name the pre-encoded field name
+     * @return this writer for method chaining
+     */
+    public JsonWriter name(JsonToken name) {
+        separate();
+        write(name.bytes());
+        write(':');
+        afterName = true;
+        return this;
+    }
+
+    /**
+     * Writes a field name of the current object.
+     *
+     * @param name the field name
+     * @return this writer for method chaining
+     */
+    public JsonWriter name(String name) {
+        separate();
+        writeString(name);
+        write(':');
+        afterName = true;
+        return this;
+    }
+
+    /**
+     * Writes a string value, or {@code null}.
+     *
+     * @param value the string value
+     * @return this writer for method chaining
+     */
+    public JsonWriter value(String value) {
+        beforeValue();
+        if (value == null) {
+            write(NULL);
+        } else {
+            writeString(value);
+        }
+        return this;
+    }
+
+    /**
+     * Writes a pre-encoded string value, or {@code null}.
+     *
+     * @param value the pre-encoded value
+     * @return this writer for method chaining
+     */
+    public JsonWriter value(JsonToken value) {
+        beforeValue();
+        write(value == null ? NULL : value.bytes());
+        return this;
+    }
+
+    /**
+     * Writes an enum constant using its {@code toString()} value, or {@code null}.
+     *
+     * @param value the enum constant
+     * @return this writer for method chaining
+     */
+    public JsonWriter value(Enum<?> value) {
+        return value(JsonToken.of(value));
+    }
+
+    /**
+     * Writes a boolean value.
+     *
+     * @param value the boolean value
+     * @return this writer for method chaining
+     */
+    public JsonWriter value(boolean value) {
+        beforeValue();
+        write(value ? TRUE : FALSE);
+        return this;
+    }
+
+    /**
+     * Writes a numeric value.
+     *
+     * @param value the numeric value
+     * @return this writer for method chaining
+     */
+    public JsonWriter value(long value) {
+        beforeValue();
+        writeAscii(Long.toString(value));
+        return this;
+    }
+
+    /**
+     * Writes a {@code null} value.
+     *
+     * @return this writer for method chaining
+     */
+    public JsonWriter nullValue() {
+        beforeValue();
+        write(NULL);
+        return this;
+    }
+
+    /**
+     * Writes an arbitrary value. {@link JsonWritable} objects write themselves, strings, booleans,
+     * numbers, enums and collections are written directly, and any other object is serialized
+     * with the shared Jackson writer of {@link CardMapper}.
+     *
+     * @param value the value to write
+     * @return this writer for method chaining
+     */
+    public JsonWriter value(Object value) {
+        if (value == null) {
+            return nullValue();
+        } else if (value instanceof JsonWritable writable) {
+            writable.writeJson(this);
+        } else if (value instanceof String s) {
+            value(s);
+        } else if (value instanceof Boolean b) {
+            value(b.booleanValue());
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            value(((Number) value).longValue());
+        } else if (value instanceof Enum<?> e) {
+            // Jackson writes enum names unless configured otherwise
+            value(JsonToken.nameOf(e));
+        } else if (value instanceof Collection<?> collection) {
+            beginArray();
+            for (Object element : collection) {
+                value(element);
+            }
+            endArray();
+        } else {
+            try {
+                rawValue(CardMapper.getWriter().writeValueAsBytes(value));
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Cannot serialize " + value.getClass().getName(), e);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Writes a field with a string value.
+     *
+     * @param name  the field name
+     * @param value the string value, or {@code null}
+     * @return this writer for method chaining
+     */
+    public JsonWriter field(JsonToken name, String value) {
+        return name(name).value(value);
+    }
+
+    /**
+     * Writes a field with a pre-encoded value.
+     *
+     * @param name  the field name
+     * @param value the pre-encoded value, or {@code null}
+     * @return this writer for method chaining
+     */
+    public JsonWriter field(JsonToken name, JsonToken value) {
+        return name(name).value(value);
+    }
+
+    /**
+     * Writes a field with an enum value using its {@code toString()} value.
+     *
+     * @param name  the field name
+     * @param value the enum constant, or {@code null}
+     * @return this writer for method chaining
+     */
+    public JsonWriter field(JsonToken name, Enum<?> value) {
+        return name(name).value(value);
+    }
+
+    /**
+     * Writes a field with a boolean value.
+     *
+     * @param name  the field name
+     * @param value the boolean value
+     * @return this writer for method chaining
+     */
+    public JsonWriter field(JsonToken name, boolean value) {
+        return name(name).value(value);
+    }
+
+    /**
+     * Writes an already encoded JSON value as-is.
+     *
+     * @param json the UTF-8 encoded JSON value
+     * @return this writer for method chaining
+     */
+    public JsonWriter rawValue(byte[] json) {
+        return rawValue(json, 0, json.length);
+    }
+
+    /**
+     * Writes a range of an already encoded JSON value as-is.
+     *
+     * @param json   the buffer holding the UTF-8 encoded JSON value
+     * @param offset the start offset
+     * @param length the number of bytes
+     * @return this writer for method chaining
+     */
+    public JsonWriter rawValue(byte[] json, int offset, int length) {
+        beforeValue();
+        write(json, offset, length);
+        return this;
+    }
+
+    /**
+     * Appends already encoded bytes without inserting separators. Used to splice pre-serialized
+     * fragments whose structure the caller tracks itself, such as the segments of a compiled template.
+     *
+     * @param bytes  the buffer holding the UTF-8 encoded JSON fragment
+     * @param offset the start offset
+     * @param length the number of bytes
+     * @return this writer for method chaining
+     */
+    public JsonWriter raw(byte[] bytes, int offset, int length) {
+        write(bytes, offset, length);
+        return this;
+    }
+
+    /**
+     * Appends the escaped characters of a string without surrounding quotes, for text spliced into
+     * a string literal that is already open.
+     *
+     * @param s the string to append
+     * @return this writer for method chaining
+     */
+    public JsonWriter stringContent(String s) {
+        writeChars(s);
+        return this;
+    }
+
+    /**
+     * Returns the number of bytes written so far.
+     *
+     * @return the encoded size
+     */
+    public int size() {
+        return len;
+    }
+
+    /**
+     * Returns a copy of the bytes written so far.
+     *
+     * @return the encoded JSON
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buf, len);
+    }
+
+    /**
+     * Returns a copy of the bytes written since the given offset, e.g. to cache the encoding of a value.
+     *
+     * @param offset the offset returned by {@link #size()} before the value was written
+     * @return the encoded JSON written since the offset
+     */
+    public byte[] toByteArray(int offset) {
+        return Arrays.copyOfRange(buf, offset, len);
+    }
+
+    /**
+     * Clears the writer so its buffer can be reused.
+     */
+    public void reset() {
+        len = 0;
+        depth = 0;
+        afterName = false;
+    }
+
+    @Override
+    public String toString() {
+        return new String(buf, 0, len, StandardCharsets.UTF_8);
+    }
+
+    private void push() {
+        if (++depth == hasElement.length) {
+            hasElement = Arrays.copyOf(hasElement, depth * 2);
+        }
+        hasElement[depth] = false;
+    }
+
+    private void separate() {
+        if (hasElement[depth]) {
+            write(',');
+        } else {
+            hasElement[depth] = true;
+        }
+    }
+
+    private void beforeValue() {
+        if (afterName) {
+            afterName = false;
+        } else if (depth > 0) {
+            separate();
+        }
+    }
+
+    private void ensure(int extra) {
+        if (len + extra > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, len + extra));
+        }
+    }
+
+    private void write(int b) {
+        ensure(1);
+        buf[len++] = (byte) b;
+    }
+
+    private void write(byte[] bytes) {
+        write(bytes, 0, bytes.length);
+    }
+
+    private void write(byte[] bytes, int offset, int length) {
+        ensure(length);
+        System.arraycopy(bytes, offset, buf, len, length);
+        len += length;
+    }
+
+    private void writeAscii(String s) {
+        int n = s.length();
+        ensure(n);
+        for (int i = 0; i < n; i++) {
+            buf[len++] = (byte) s.charAt(i);
+        }
+    }
+
+    private void writeString(String s) {
+        write('"');
+        writeChars(s);
+        write('"');
+    }
+
+    private void writeChars(String s) {
+        int n = s.length();
+        // worst case: 6 bytes per char (unicode escape)
+        ensure(n * 6);
+        byte[] b = buf;
+        int p = len;
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                int esc = ESCAPES[c];
+                if (esc == 0) {
+                    b[p++] = (byte) c;
+                } else if (esc > 0) {
+                    b[p++] = '\\';
+                    b[p++] = (byte) esc;
+                } else {
+                    b[p++] = '\\';
+                    b[p++] = 'u';
+                    b[p++] = '0';
+                    b[p++] = '0';
+                    b[p++] = HEX[c >> 4];
+                    b[p++] = HEX[c & 0xF];
+                }
+            } else if (c < 0x800) {
+                b[p++] = (byte) (0xC0 | (c >> 6));
+                b[p++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                b[p++] = (byte) (0xF0 | (cp >> 18));
+                b[p++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                b[p++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                b[p++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // unpaired surrogate, replaced like String.getBytes(UTF_8)
+                b[p++] = '?';
+            } else {
+                b[p++] = (byte) (0xE0 | (c >> 12));
+                b[p++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                b[p++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        len = p;
+    }
+}
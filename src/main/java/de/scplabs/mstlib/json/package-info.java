@@ -0,0 +1,4 @@
+/**
+ * Provides the streaming JSON writer used to serialize adaptive cards.
+ */
+package de.scplabs.mstlib.json;
@@ -0,0 +1,21 @@
+package de.scplabs.mstlib.metrics;
+
+/**
+ * A monotonically increasing count of events.
+ */
+public interface Counter {
+
+    /**
+     * Increments the count by one.
+     */
+    default void increment() {
+        add(1);
+    }
+
+    /**
+     * Increments the count by the given amount.
+     *
+     * @param amount the amount to add
+     */
+    void add(long amount);
+}
@@ -0,0 +1,15 @@
+package de.scplabs.mstlib.metrics;
+
+/**
+ * A distribution of recorded values, such as latencies in nanoseconds or payload sizes in bytes.
+ */
+@FunctionalInterface
+public interface Histogram {
+
+    /**
+     * Records a value.
+     *
+     * @param value the value, negative values are treated as zero
+     */
+    void record(long value);
+}
@@ -0,0 +1,46 @@
+package de.scplabs.mstlib.metrics;
+
+import java.util.function.LongSupplier;
+
+/**
+ * The service provider interface through which mstlib creates its metrics.
+ * <p>
+ * Implementations adapt the instruments to an existing metrics stack; {@link SimpleMetricsRegistry}
+ * is a lock-free implementation without dependencies. Instruments are requested once per name and
+ * recorded on hot paths, so they must be thread-safe and cheap to update.
+ */
+public interface MetricsRegistry {
+
+    /**
+     * Returns the counter with the given name, creating it if necessary.
+     *
+     * @param name the metric name
+     * @return the counter
+     */
+    Counter counter(String name);
+
+    /**
+     * Returns the histogram with the given name, creating it if necessary.
+     *
+     * @param name the metric name
+     * @return the histogram
+     */
+    Histogram histogram(String name);
+
+    /**
+     * Registers a gauge whose current value is read from the given supplier.
+     *
+     * @param name  the metric name
+     * @param value the supplier of the current value
+     */
+    void gauge(String name, LongSupplier value);
+
+    /**
+     * Returns a registry whose instruments discard all values.
+     *
+     * @return the no-op registry
+     */
+    static MetricsRegistry noop() {
+        return NoopMetricsRegistry.INSTANCE;
+    }
+}
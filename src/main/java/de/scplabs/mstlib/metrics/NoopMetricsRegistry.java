@@ -0,0 +1,31 @@
+package de.scplabs.mstlib.metrics;
+
+import java.util.function.LongSupplier;
+
+/**
+ * A registry whose instruments discard all values.
+ */
+final class NoopMetricsRegistry implements MetricsRegistry {
+
+    static final NoopMetricsRegistry INSTANCE = new NoopMetricsRegistry();
+
+    private static final Counter COUNTER = amount -> { };
+    private static final Histogram HISTOGRAM = value -> { };
+
+    private NoopMetricsRegistry() { }
+
+    @Override
+    public Counter counter(String name) {
+        return COUNTER;
+    }
+
+    @Override
+    public Histogram histogram(String name) {
+        return HISTOGRAM;
+    }
+
+    @Override
+    public void gauge(String name, LongSupplier value) {
+        // nothing to do
+    }
+}
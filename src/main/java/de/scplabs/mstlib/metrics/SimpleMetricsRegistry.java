@@ -0,0 +1,98 @@
+package de.scplabs.mstlib.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * A lock-free in-memory {@link MetricsRegistry} without dependencies.
+ * <p>
+ * Counters are backed by {@link LongAdder}s and histograms by {@link LogHistogram}s, so recording never blocks.
+ * The current values can be read by name, e.g. to expose them through a health endpoint.
+ */
+public class SimpleMetricsRegistry implements MetricsRegistry {
+
+    private final Map<String, SimpleCounter> counters = new ConcurrentHashMap<>();
+    private final Map<String, LogHistogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+    @Override
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, n -> new SimpleCounter());
+    }
+
+    @Override
+    public LogHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, n -> new LogHistogram());
+    }
+
+    @Override
+    public void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    /**
+     * Returns the current value of a counter.
+     *
+     * @param name the metric name
+     * @return the count, or {@code 0} if the counter does not exist
+     */
+    public long getCount(String name) {
+        SimpleCounter counter = counters.get(name);
+        return counter == null ? 0 : counter.adder.sum();
+    }
+
+    /**
+     * Returns a histogram if it exists.
+     *
+     * @param name the metric name
+     * @return the histogram, or {@code null} if it does not exist
+     */
+    public LogHistogram getHistogram(String name) {
+        return histograms.get(name);
+    }
+
+    /**
+     * Returns the current value of a gauge.
+     *
+     * @param name the metric name
+     * @return the value, or {@code 0} if the gauge does not exist
+     */
+    public long getGauge(String name) {
+        LongSupplier gauge = gauges.get(name);
+        return gauge == null ? 0 : gauge.getAsLong();
+    }
+
+    /**
+     * Returns all metrics with their current values, sorted by name.
+     *
+     * @return the metric values, histograms summarized as text
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new TreeMap<>();
+        counters.forEach((name, counter) -> snapshot.put(name, counter.adder.sum()));
+        gauges.forEach((name, gauge) -> snapshot.put(name, gauge.getAsLong()));
+        histograms.forEach((name, histogram) -> snapshot.put(name, histogram.toString()));
+        return snapshot;
+    }
+
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+
+    /**
+     * A counter backed by a {@link LongAdder}.
+     */
+    private static final class SimpleCounter implements Counter {
+
+        private final LongAdder adder = new LongAdder();
+
+        @Override
+        public void add(long amount) {
+            adder.add(amount);
+        }
+    }
+}
@@ -0,0 +1,5 @@
+/**
+ * Provides the metrics SPI through which mstlib reports build, serialization and send statistics,
+ * together with a dependency-free default implementation.
+ */
+package de.scplabs.mstlib.metrics;
@@ -1,15 +1,25 @@
 package de.scplabs.mstlib.options;
 
+import de.scplabs.mstlib.cardobjects.CardObject;
 import de.scplabs.mstlib.cardobjects.CardParent;
-import com.fasterxml.jackson.annotation.JsonInclude;
+import de.scplabs.mstlib.json.JsonToken;
+import de.scplabs.mstlib.json.JsonWritable;
+import de.scplabs.mstlib.json.JsonWriter;
 
 /**
  * Represents a background image option for a card object.
  *
  * @param <T> the type of the parent card object
  */
-@JsonInclude(JsonInclude.Include.NON_DEFAULT)
-public class BackGroundImage<T extends CardParent<?>> implements CardParent<T> {
+public class BackGroundImage<T extends CardParent<?>> implements CardParent<T>, JsonWritable {
+    private static final JsonToken URL = JsonToken.of("url");
+    private static final JsonToken FILL_MODE = JsonToken.of("fillMode");
+    private static final JsonToken HORIZONTAL_ALIGNMENT = JsonToken.of("horizontalAlignment");
+    private static final JsonToken VERTICAL_ALIGNMENT = JsonToken.of("verticalAlignment");
+
+    private static final int HAS_HORIZONTAL_ALIGNMENT = 1;
+    private static final int HAS_VERTICAL_ALIGNMENT = 1 << 1;
+
     /**
      * The parent card object.
      */
@@ -26,6 +36,8 @@ public class BackGroundImage<T extends CardParent<?>> implements CardParent<T> {
     private ImageFillMode fillMode;
     private HorizontalAlignments horizontalAlignment = HorizontalAlignments.LEFT;
     private VerticalContentAlignment verticalAlignment = VerticalContentAlignment.TOP;
+    /** The presence bits of the alignments that were set explicitly. */
+    private int present;
 
     public String getUrl() { return url; }
     public ImageFillMode getFillMode() { return fillMode; }
@@ -50,6 +62,39 @@ public class BackGroundImage<T extends CardParent<?>> implements CardParent<T> {
         this.url = url;
     }
 
+    /**
+     * Writes this background image as a JSON object. Properties that were not set are omitted.
+     * The getters return the enums, which Jackson writes by name, so the names are written here as well.
+     *
+     * @param out the writer to write to
+     */
+    @Override
+    public void writeJson(JsonWriter out) {
+        out.beginObject();
+        if (url != null) {
+            out.field(URL, url);
+        }
+        if (fillMode != null) {
+            out.field(FILL_MODE, JsonToken.nameOf(fillMode));
+        }
+        if ((present & HAS_HORIZONTAL_ALIGNMENT) != 0) {
+            out.field(HORIZONTAL_ALIGNMENT, JsonToken.nameOf(horizontalAlignment));
+        }
+        if ((present & HAS_VERTICAL_ALIGNMENT) != 0) {
+            out.field(VERTICAL_ALIGNMENT, JsonToken.nameOf(verticalAlignment));
+        }
+        out.endObject();
+    }
+
+    /**
+     * Discards the cached encoding of the card element holding this background image.
+     */
+    private void invalidate() {
+        if (parent instanceof CardObject<?, ?> owner) {
+            owner.invalidate();
+        }
+    }
+
     /**
      * Sets the fill mode for the background image.
      *
@@ -57,6 +102,7 @@ public class BackGroundImage<T extends CardParent<?>> implements CardParent<T> {
      * @return this BackGroundImage instance
      */
     public BackGroundImage<T> setFillMode(ImageFillMode fillMode) {
+        invalidate();
         this.fillMode = fillMode;
         return this;
     }
@@ -68,6 +114,8 @@ public class BackGroundImage<T extends CardParent<?>> implements CardParent<T> {
      * @return this BackGroundImage instance
      */
     public BackGroundImage<T> setHorizontalAlignment(HorizontalAlignments horizontalAlignment) {
+        invalidate();
+        present |= HAS_HORIZONTAL_ALIGNMENT;
         this.horizontalAlignment = horizontalAlignment;
         return this;
     }
@@ -79,6 +127,8 @@ public class BackGroundImage<T extends CardParent<?>> implements CardParent<T> {
      * @return this BackGroundImage instance
      */
     public BackGroundImage<T> setVerticalAlignment(VerticalContentAlignment verticalAlignment) {
+        invalidate();
+        present |= HAS_VERTICAL_ALIGNMENT;
         this.verticalAlignment = verticalAlignment;
         return this;
     }
@@ -0,0 +1,445 @@
+package de.scplabs.mstlib.testing;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import de.scplabs.mstlib.IncomingWebhookBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@code TeamsStubServer} class is an embeddable stand-in for a Teams incoming webhook endpoint.
+ * <p>
+ * The server listens on the loopback interface and accepts the message format produced by
+ * {@link IncomingWebhookBuilder}: a {@code message} with adaptive card attachments. Valid messages are
+ * answered with {@code 200} and the body {@code 1} like Teams does; malformed messages with {@code 400},
+ * and payloads above the size limit with {@code 413}. To exercise retry and throttling logic the server
+ * can delay responses and answer a share of the requests with {@code 429} and a {@code Retry-After}
+ * header or with {@code 503}.
+ * <pre>{@code
+ * try (TeamsStubServer server = TeamsStubServer.builder()
+ *         .setLatency(Duration.ofMillis(20), Duration.ofMillis(200))
+ *         .setThrottleRate(0.05)
+ *         .start()) {
+ *     new IncomingWebhookBuilder(server.getUrl()).addTextBlock("Hello").prev().build().execute();
+ * }
+ * }</pre>
+ */
+public class TeamsStubServer implements AutoCloseable {
+
+    /** The content type of adaptive card attachments. */
+    public static final String CARD_CONTENT_TYPE = "application/vnd.microsoft.card.adaptive";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final AtomicInteger SERVER_IDS = new AtomicInteger();
+
+    private final long minLatencyNanos;
+    private final long maxLatencyNanos;
+    private final double throttleRate;
+    private final double serverErrorRate;
+    private final Duration retryAfter;
+    private final int maxPayloadSize;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private final LongAdder received = new LongAdder();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder invalid = new LongAdder();
+    private final LongAdder tooLarge = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder serverErrors = new LongAdder();
+    private final AtomicReference<String> lastMessage = new AtomicReference<>();
+
+    private TeamsStubServer(Builder builder) throws IOException {
+        this.minLatencyNanos = builder.minLatency.toNanos();
+        this.maxLatencyNanos = builder.maxLatency.toNanos();
+        this.throttleRate = builder.throttleRate;
+        this.serverErrorRate = builder.serverErrorRate;
+        this.retryAfter = builder.retryAfter;
+        this.maxPayloadSize = builder.maxPayloadSize;
+        String name = "mstlib-stub-" + SERVER_IDS.incrementAndGet() + "-";
+        AtomicInteger threadIds = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, name + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), builder.port), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Creates a new builder for configuring a server.
+     *
+     * @return a new {@code Builder}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the webhook URL of this server.
+     *
+     * @return the URL to pass to {@link IncomingWebhookBuilder}
+     */
+    public String getUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + getPort() + "/webhook";
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return the local port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Returns the number of requests received.
+     *
+     * @return the number of requests
+     */
+    public long getReceived() {
+        return received.sum();
+    }
+
+    /**
+     * Returns the number of messages accepted with {@code 200}.
+     *
+     * @return the number of accepted messages
+     */
+    public long getAccepted() {
+        return accepted.sum();
+    }
+
+    /**
+     * Returns the number of requests rejected with {@code 400} because they were not a valid message.
+     *
+     * @return the number of invalid requests
+     */
+    public long getInvalid() {
+        return invalid.sum();
+    }
+
+    /**
+     * Returns the number of requests rejected with {@code 413} because they exceeded the size limit.
+     *
+     * @return the number of oversized requests
+     */
+    public long getTooLarge() {
+        return tooLarge.sum();
+    }
+
+    /**
+     * Returns the number of requests answered with {@code 429}.
+     *
+     * @return the number of throttled requests
+     */
+    public long getThrottled() {
+        return throttled.sum();
+    }
+
+    /**
+     * Returns the number of requests answered with {@code 503}.
+     *
+     * @return the number of injected server errors
+     */
+    public long getServerErrors() {
+        return serverErrors.sum();
+    }
+
+    /**
+     * Returns the payload of the most recently accepted message.
+     *
+     * @return the JSON payload, or {@code null} if no message was accepted yet
+     */
+    public String getLastMessage() {
+        return lastMessage.get();
+    }
+
+    /**
+     * Resets all counters and the last message.
+     */
+    public void reset() {
+        received.reset();
+        accepted.reset();
+        invalid.reset();
+        tooLarge.reset();
+        throttled.reset();
+        serverErrors.reset();
+        lastMessage.set(null);
+    }
+
+    /**
+     * Stops the server, closing open exchanges immediately.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            received.increment();
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                respond(exchange, 405, "Method not allowed");
+                return;
+            }
+            byte[] body = readBody(exchange.getRequestBody());
+            delay();
+            if (body.length > maxPayloadSize) {
+                tooLarge.increment();
+                respond(exchange, 413, "Message size too large (" + body.length + " bytes)");
+                return;
+            }
+            double roll = ThreadLocalRandom.current().nextDouble();
+            if (roll < throttleRate) {
+                throttled.increment();
+                exchange.getResponseHeaders().set("Retry-After", String.valueOf(retryAfter.toSeconds()));
+                respond(exchange, 429, "Too many requests");
+                return;
+            }
+            if (roll < throttleRate + serverErrorRate) {
+                serverErrors.increment();
+                respond(exchange, 503, "Service unavailable");
+                return;
+            }
+            String error = validate(body);
+            if (error != null) {
+                invalid.increment();
+                respond(exchange, 400, error);
+                return;
+            }
+            accepted.increment();
+            lastMessage.set(new String(body, StandardCharsets.UTF_8));
+            respond(exchange, 200, "1");
+        }
+    }
+
+    private byte[] readBody(InputStream in) throws IOException {
+        // read one byte past the limit at most, so oversized payloads do not need to be buffered
+        byte[] body = in.readNBytes(maxPayloadSize + 1);
+        in.transferTo(OutputStream.nullOutputStream());
+        return body;
+    }
+
+    private void delay() {
+        if (maxLatencyNanos == 0) {
+            return;
+        }
+        long nanos = minLatencyNanos == maxLatencyNanos
+                ? minLatencyNanos
+                : ThreadLocalRandom.current().nextLong(minLatencyNanos, maxLatencyNanos + 1);
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Checks that the body is a message with adaptive card attachments.
+     *
+     * @return a description of the first problem found, or {@code null} if the message is valid
+     */
+    static String validate(byte[] body) {
+        JsonNode message;
+        try {
+            message = MAPPER.readTree(body);
+        } catch (JsonProcessingException e) {
+            return "Invalid JSON: " + e.getOriginalMessage();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (message == null || !message.isObject()) {
+            return "Payload must be a JSON object";
+        }
+        if (!"message".equals(message.path("type").asText(null))) {
+            return "type must be \"message\"";
+        }
+        JsonNode attachments = message.path("attachments");
+        if (!attachments.isArray() || attachments.isEmpty()) {
+            return "attachments must be a non-empty array";
+        }
+        for (JsonNode attachment : attachments) {
+            if (!CARD_CONTENT_TYPE.equals(attachment.path("contentType").asText(null))) {
+                return "attachment contentType must be \"" + CARD_CONTENT_TYPE + "\"";
+            }
+            JsonNode card = attachment.path("content");
+            if (!"AdaptiveCard".equals(card.path("type").asText(null))) {
+                return "attachment content type must be \"AdaptiveCard\"";
+            }
+            if (!card.path("version").isTextual()) {
+                return "card version must be a string";
+            }
+            if (!card.path("body").isArray()) {
+                return "card body must be an array";
+            }
+            for (JsonNode element : card.path("body")) {
+                if (!element.path("type").isTextual()) {
+                    return "card elements must have a type";
+                }
+            }
+        }
+        return null;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    /**
+     * Builder class for {@link TeamsStubServer} instances.
+     */
+    public static class Builder {
+
+        private int port;
+        private Duration minLatency = Duration.ZERO;
+        private Duration maxLatency = Duration.ZERO;
+        private double throttleRate;
+        private double serverErrorRate;
+        private Duration retryAfter = Duration.ofSeconds(1);
+        private int maxPayloadSize = IncomingWebhookBuilder.MAX_PAYLOAD_SIZE;
+
+        private Builder() { }
+
+        /**
+         * Sets the port to listen on. Defaults to {@code 0}, an ephemeral port.
+         *
+         * @param port the port
+         * @return this builder for method chaining
+         */
+        public Builder setPort(int port) {
+            if (port < 0 || port > 0xFFFF) {
+                throw new IllegalArgumentException("port must be between 0 and 65535");
+            }
+            this.port = port;
+            return this;
+        }
+
+        /**
+         * Delays every response by the given time.
+         *
+         * @param latency the response latency
+         * @return this builder for method chaining
+         */
+        public Builder setLatency(Duration latency) {
+            return setLatency(latency, latency);
+        }
+
+        /**
+         * Delays every response by a uniformly distributed time within the given bounds.
+         *
+         * @param min the minimum response latency
+         * @param max the maximum response latency
+         * @return this builder for method chaining
+         */
+        public Builder setLatency(Duration min, Duration max) {
+            if (min.isNegative() || max.compareTo(min) < 0) {
+                throw new IllegalArgumentException("latency bounds must satisfy 0 <= min <= max");
+            }
+            this.minLatency = min;
+            this.maxLatency = max;
+            return this;
+        }
+
+        /**
+         * Sets the share of requests answered with {@code 429 Too Many Requests}.
+         *
+         * @param throttleRate the share between 0 and 1
+         * @return this builder for method chaining
+         */
+        public Builder setThrottleRate(double throttleRate) {
+            if (!(throttleRate >= 0 && throttleRate <= 1)) {
+                throw new IllegalArgumentException("throttleRate must be between 0 and 1");
+            }
+            this.throttleRate = throttleRate;
+            return this;
+        }
+
+        /**
+         * Sets the {@code Retry-After} value of throttled responses. Defaults to one second.
+         *
+         * @param retryAfter the delay announced to clients, in whole seconds
+         * @return this builder for method chaining
+         */
+        public Builder setRetryAfter(Duration retryAfter) {
+            if (retryAfter.isNegative()) {
+                throw new IllegalArgumentException("retryAfter must not be negative");
+            }
+            this.retryAfter = retryAfter;
+            return this;
+        }
+
+        /**
+         * Sets the share of requests answered with {@code 503 Service Unavailable}.
+         *
+         * @param serverErrorRate the share between 0 and 1
+         * @return this builder for method chaining
+         */
+        public Builder setServerErrorRate(double serverErrorRate) {
+            if (!(serverErrorRate >= 0 && serverErrorRate <= 1)) {
+                throw new IllegalArgumentException("serverErrorRate must be between 0 and 1");
+            }
+            this.serverErrorRate = serverErrorRate;
+            return this;
+        }
+
+        /**
+         * Sets the payload size above which requests are rejected with {@code 413}.
+         * Defaults to {@link IncomingWebhookBuilder#MAX_PAYLOAD_SIZE}.
+         *
+         * @param maxPayloadSize the maximum payload size in bytes
+         * @return this builder for method chaining
+         */
+        public Builder setMaxPayloadSize(int maxPayloadSize) {
+            if (maxPayloadSize < 1) {
+                throw new IllegalArgumentException("maxPayloadSize must be positive");
+            }
+            this.maxPayloadSize = maxPayloadSize;
+            return this;
+        }
+
+        /**
+         * Starts the server.
+         *
+         * @return the running {@code TeamsStubServer}
+         * @throws UncheckedIOException if the server cannot bind its port
+         */
+        public TeamsStubServer start() {
+            if (throttleRate + serverErrorRate > 1) {
+                throw new IllegalArgumentException("throttleRate and serverErrorRate must not exceed 1 in total");
+            }
+            try {
+                return new TeamsStubServer(this);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Starting stub server failed", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package de.scplabs.mstlib.testing;
+
+import de.scplabs.mstlib.IncomingWebhook;
+import de.scplabs.mstlib.Webhook;
+import de.scplabs.mstlib.metrics.LogHistogram;
+
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * The {@code WebhookLoadGenerator} class sends webhooks at a target rate and reports throughput and latency.
+ * <p>
+ * Sends are scheduled open-loop: the n-th send is due at {@code n / rate} seconds after the start,
+ * independent of how long earlier sends take. Latency is measured from the due time rather than from
+ * the actual send, so a slow server that makes sends start late shows up in the percentiles instead of
+ * silently lowering the load. The number of concurrent sends is capped; when the cap is reached the
+ * generator waits for a free slot.
+ * <pre>{@code
+ * LoadReport report = WebhookLoadGenerator.builder(webhook)
+ *         .setRate(200)
+ *         .setDuration(Duration.ofSeconds(30))
+ *         .build()
+ *         .run();
+ * System.out.println(report);
+ * }</pre>
+ */
+public class WebhookLoadGenerator {
+
+    private final Supplier<? extends Webhook> webhooks;
+    private final double rate;
+    private final Duration duration;
+    private final int maxInFlight;
+
+    private WebhookLoadGenerator(Builder builder) {
+        this.webhooks = builder.webhooks;
+        this.rate = builder.rate;
+        this.duration = builder.duration;
+        this.maxInFlight = builder.maxInFlight;
+    }
+
+    /**
+     * Creates a new builder for a generator that sends the same webhook repeatedly.
+     * The prepared request of an {@link IncomingWebhook} is reused for every send.
+     *
+     * @param webhook the webhook to send
+     * @return a new {@code Builder}
+     */
+    public static Builder builder(Webhook webhook) {
+        Objects.requireNonNull(webhook, "webhook");
+        return new Builder(() -> webhook);
+    }
+
+    /**
+     * Creates a new builder for a generator that sends a new webhook from the supplier for every send.
+     *
+     * @param webhooks the supplier of webhooks
+     * @return a new {@code Builder}
+     */
+    public static Builder builder(Supplier<? extends Webhook> webhooks) {
+        return new Builder(Objects.requireNonNull(webhooks, "webhooks"));
+    }
+
+    /**
+     * Sends webhooks at the target rate for the configured duration and waits for all sends to complete.
+     *
+     * @return the report of the run
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    public LoadReport run() throws InterruptedException {
+        LogHistogram latencies = new LogHistogram();
+        Map<Integer, LongAdder> statuses = new TreeMap<>();
+        LongAdder failures = new LongAdder();
+        Semaphore slots = new Semaphore(maxInFlight);
+        long intervalNanos = Math.max(1, Math.round(1_000_000_000 / rate));
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long sent = 0;
+        for (long due = start; due - end < 0; due += intervalNanos) {
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            slots.acquire();
+            long scheduled = due;
+            CompletableFuture<HttpResponse<String>> response;
+            try {
+                response = webhooks.get().executeAsync();
+            } catch (RuntimeException e) {
+                response = CompletableFuture.failedFuture(e);
+            }
+            response.whenComplete((r, e) -> {
+                latencies.record(System.nanoTime() - scheduled);
+                if (r != null) {
+                    LongAdder count;
+                    synchronized (statuses) {
+                        count = statuses.computeIfAbsent(r.statusCode(), status -> new LongAdder());
+                    }
+                    count.increment();
+                } else {
+                    failures.increment();
+                }
+                slots.release();
+            });
+            sent++;
+        }
+        slots.acquire(maxInFlight);
+        long elapsed = System.nanoTime() - start;
+
+        Map<Integer, Long> counts = new TreeMap<>();
+        statuses.forEach((status, count) -> counts.put(status, count.sum()));
+        return new LoadReport(sent, counts, failures.sum(), Duration.ofNanos(elapsed), latencies);
+    }
+
+    /**
+     * The outcome of a load generator run.
+     */
+    public static final class LoadReport {
+
+        private final long sent;
+        private final Map<Integer, Long> statuses;
+        private final long failures;
+        private final Duration elapsed;
+        private final LogHistogram latencies;
+
+        private LoadReport(long sent, Map<Integer, Long> statuses, long failures, Duration elapsed,
+                           LogHistogram latencies) {
+            this.sent = sent;
+            this.statuses = Map.copyOf(statuses);
+            this.failures = failures;
+            this.elapsed = elapsed;
+            this.latencies = latencies;
+        }
+
+        /**
+         * Returns the number of webhooks sent.
+         *
+         * @return the number of sends
+         */
+        public long getSent() {
+            return sent;
+        }
+
+        /**
+         * Returns the number of sends answered with a {@code 2xx} status.
+         *
+         * @return the number of successful sends
+         */
+        public long getSucceeded() {
+            return statuses.entrySet().stream()
+                    .filter(entry -> entry.getKey() >= 200 && entry.getKey() < 300)
+                    .mapToLong(Map.Entry::getValue)
+                    .sum();
+        }
+
+        /**
+         * Returns the number of responses per HTTP status code.
+         *
+         * @return the response counts by status
+         */
+        public Map<Integer, Long> getStatuses() {
+            return statuses;
+        }
+
+        /**
+         * Returns the number of sends that failed without a response.
+         *
+         * @return the number of failed sends
+         */
+        public long getFailures() {
+            return failures;
+        }
+
+        /**
+         * Returns the time from the first send until the last send completed.
+         *
+         * @return the elapsed time
+         */
+        public Duration getElapsed() {
+            return elapsed;
+        }
+
+        /**
+         * Returns the achieved throughput of completed sends.
+         *
+         * @return the sends per second
+         */
+        public double getThroughput() {
+            return elapsed.isZero() ? 0 : sent * 1e9 / elapsed.toNanos();
+        }
+
+        /**
+         * Returns the latency at the given percentile, measured from the time each send was due.
+         *
+         * @param percentile the percentile between 0 and 100
+         * @return the latency
+         */
+        public Duration getLatency(double percentile) {
+            return Duration.ofNanos(latencies.getValueAtPercentile(percentile));
+        }
+
+        /**
+         * Returns the latency histogram in nanoseconds.
+         *
+         * @return the latency histogram
+         */
+        public LogHistogram getLatencies() {
+            return latencies;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("sent=%d, statuses=%s, failures=%d, throughput=%.1f/s, "
+                            + "p50=%.2fms, p90=%.2fms, p99=%.2fms, max=%.2fms",
+                    sent, statuses, failures, getThroughput(),
+                    millis(latencies.getValueAtPercentile(50)), millis(latencies.getValueAtPercentile(90)),
+                    millis(latencies.getValueAtPercentile(99)), millis(latencies.getMax()));
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1e6;
+        }
+    }
+
+    /**
+     * Builder class for {@link WebhookLoadGenerator} instances.
+     */
+    public static class Builder {
+
+        private final Supplier<? extends Webhook> webhooks;
+        private double rate = 10;
+        private Duration duration = Duration.ofSeconds(10);
+        private int maxInFlight = 256;
+
+        private Builder(Supplier<? extends Webhook> webhooks) {
+            this.webhooks = webhooks;
+        }
+
+        /**
+         * Sets the target rate. Defaults to 10 sends per second.
+         *
+         * @param rate the sends per second
+         * @return this builder for method chaining
+         */
+        public Builder setRate(double rate) {
+            if (!(rate > 0)) {
+                throw new IllegalArgumentException("rate must be positive");
+            }
+            this.rate = rate;
+            return this;
+        }
+
+        /**
+         * Sets how long webhooks are sent. Defaults to ten seconds.
+         *
+         * @param duration the duration of the run
+         * @return this builder for method chaining
+         */
+        public Builder setDuration(Duration duration) {
+            if (duration.isNegative() || duration.isZero()) {
+                throw new IllegalArgumentException("duration must be positive");
+            }
+            this.duration = duration;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of concurrent sends. Defaults to 256.
+         *
+         * @param maxInFlight the maximum number of concurrent sends
+         * @return this builder for method chaining
+         */
+        public Builder setMaxInFlight(int maxInFlight) {
+            if (maxInFlight < 1) {
+                throw new IllegalArgumentException("maxInFlight must be positive");
+            }
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * Creates the load generator.
+         *
+         * @return the new {@code WebhookLoadGenerator}
+         */
+        public WebhookLoadGenerator build() {
+            return new WebhookLoadGenerator(this);
+        }
+    }
+}
@@ -0,0 +1,5 @@
+/**
+ * Provides a local stand-in for the Teams incoming webhook endpoint and a load generator for testing
+ * alerting pipelines without network access.
+ */
+package de.scplabs.mstlib.testing;
@@ -0,0 +1,46 @@
+package de.scplabs.mstlib;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * The {@code VirtualThreads} class creates the threads used by the virtual-thread execution mode.
+ * <p>
+ * This is the Java 21 variant of the class, loaded from the multi-release JAR. It creates virtual threads,
+ * which release their carrier thread while blocked on I/O.
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() { }
+
+    /**
+     * Returns whether the runtime supports virtual threads.
+     *
+     * @return {@code true} if threads created by this class are virtual
+     */
+    public static boolean isSupported() {
+        return true;
+    }
+
+    /**
+     * Creates a thread factory naming its threads with the given prefix followed by a counter.
+     *
+     * @param prefix the thread name prefix
+     * @return a factory creating virtual threads, or daemon platform threads if virtual threads are not supported
+     */
+    public static ThreadFactory newThreadFactory(String prefix) {
+        return Thread.ofVirtual().name(prefix, 1).factory();
+    }
+
+    /**
+     * Creates an executor running each task in its own thread.
+     *
+     * @param prefix the thread name prefix
+     * @return a thread-per-task executor using virtual threads, or a cached pool of daemon platform threads
+     *         if virtual threads are not supported
+     */
+    public static ExecutorService newExecutor(String prefix) {
+        return Executors.newThreadPerTaskExecutor(newThreadFactory(prefix));
+    }
+}
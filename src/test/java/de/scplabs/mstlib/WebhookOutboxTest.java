@@ -0,0 +1,116 @@
+package de.scplabs.mstlib;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.net.ssl.SSLSession;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WebhookOutboxTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysExactlyTheUnacknowledgedMessagesWithSmallSegments() {
+        for (int seed = 0; seed < 300; seed++) {
+            Path segments = directory.resolve("seed-" + seed);
+            Random random = new Random(seed);
+            Set<String> unacknowledged = new HashSet<>();
+            WebhookOutbox outbox = WebhookOutbox.builder(segments)
+                    .setSegmentSize(4096)
+                    .setMaxSegments(1 + seed % 3)
+                    .setSender(webhook -> {
+                        String payload = ((IncomingWebhook) webhook).getPayload();
+                        int outcome = random.nextInt(10);
+                        if (outcome < 6) {
+                            unacknowledged.remove(payload);
+                            return CompletableFuture.completedFuture(new StubResponse(200));
+                        }
+                        unacknowledged.add(payload);
+                        if (outcome < 8) {
+                            return CompletableFuture.completedFuture(new StubResponse(503));
+                        }
+                        if (outcome < 9) {
+                            return CompletableFuture.failedFuture(new WebhookException(webhook.getUrl(), "down", null));
+                        }
+                        // still in flight when the outbox is closed
+                        return new CompletableFuture<>();
+                    })
+                    .open();
+            for (int i = 0; i < 150; i++) {
+                IncomingWebhookBuilder builder = new IncomingWebhookBuilder("http://localhost/hook");
+                builder.addTextBlock("message " + i + " " + "x".repeat(random.nextInt(1200)));
+                outbox.send(builder.build());
+                if (random.nextInt(10) == 0) {
+                    outbox.replay();
+                }
+            }
+            outbox.close();
+
+            Set<String> replayed = new HashSet<>();
+            WebhookOutbox reopened = WebhookOutbox.builder(segments)
+                    .setSegmentSize(4096)
+                    .setMaxSegments(1 + seed % 3)
+                    .setSender(webhook -> {
+                        replayed.add(((IncomingWebhook) webhook).getPayload());
+                        return new CompletableFuture<>();
+                    })
+                    .open();
+            assertEquals(unacknowledged, replayed, "seed " + seed);
+            assertEquals(unacknowledged.size(), reopened.getPending(), "seed " + seed);
+            reopened.close();
+        }
+    }
+
+    private record StubResponse(int statusCode) implements HttpResponse<String> {
+
+        @Override
+        public HttpRequest request() {
+            return null;
+        }
+
+        @Override
+        public Optional<HttpResponse<String>> previousResponse() {
+            return Optional.empty();
+        }
+
+        @Override
+        public HttpHeaders headers() {
+            return HttpHeaders.of(Map.of(), (name, value) -> true);
+        }
+
+        @Override
+        public String body() {
+            return "";
+        }
+
+        @Override
+        public Optional<SSLSession> sslSession() {
+            return Optional.empty();
+        }
+
+        @Override
+        public URI uri() {
+            return URI.create("http://localhost/hook");
+        }
+
+        @Override
+        public HttpClient.Version version() {
+            return HttpClient.Version.HTTP_1_1;
+        }
+    }
+}